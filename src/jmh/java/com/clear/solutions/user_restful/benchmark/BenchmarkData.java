@@ -0,0 +1,57 @@
+package com.clear.solutions.user_restful.benchmark;
+
+import com.clear.solutions.user_restful.dto.DataContainerDTO;
+import com.clear.solutions.user_restful.dto.UserInfoDTO;
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.serialization.DataContainerJson;
+import com.clear.solutions.user_restful.serialization.UserInfoJson;
+import com.clear.solutions.user_restful.serialization.UsersJson;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Request data shared by the benchmarks, shaped like the examples in the controller tests.
+ */
+final class BenchmarkData {
+
+    static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1950, 1, 1);
+    // birth dates of generated users cycle through this many days, about 55 years
+    static final int BIRTH_DATE_DAYS = 20_000;
+
+    static final UserInfoDTO VALID_USER = new UserInfoDTO("examplemail@lll.kpi.ua", "Ivan", "Franko",
+            LocalDate.of(1990, 10, 10), "Street 10/2, apartment 15, Kyiv, Ukraine", "+380502123369");
+    static final UserInfoDTO VALID_PARTIAL_USER = new UserInfoDTO(null, null, null, null,
+            "Street 10/2, apartment 15, Kyiv, Ukraine", "+380502123369");
+    static final UserInfoDTO INVALID_USER = new UserInfoDTO("Example@", "ivan", "", null, null, "050");
+
+    // emails are unique in the storage, every generated user gets its own
+    private static final AtomicLong EMAIL_SEQUENCE = new AtomicLong();
+
+    private BenchmarkData() {
+    }
+
+    static Users user(int sequenceNumber) {
+        Users user = new Users();
+        user.setEmail("examplemail" + EMAIL_SEQUENCE.incrementAndGet() + "@lll.kpi.ua");
+        user.setFirstName(VALID_USER.firstName());
+        user.setLastName(VALID_USER.lastName());
+        user.setBirthDate(FIRST_BIRTH_DATE.plusDays(sequenceNumber % BIRTH_DATE_DAYS));
+        user.setAddress(VALID_USER.address());
+        user.setPhoneNumber(VALID_USER.phoneNumber());
+        return user;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static SimpleModule handWrittenCodecs() {
+        // what the @JsonComponent scan registers in the application
+        return new SimpleModule()
+                .addSerializer(Users.class, new UsersJson.Serializer())
+                .addDeserializer(Users.class, new UsersJson.Deserializer())
+                .addSerializer(UserInfoDTO.class, new UserInfoJson.Serializer())
+                .addDeserializer(UserInfoDTO.class, new UserInfoJson.Deserializer())
+                .addSerializer((Class) DataContainerDTO.class, new DataContainerJson.Serializer())
+                .addDeserializer((Class) DataContainerDTO.class, new DataContainerJson.Deserializer());
+    }
+}
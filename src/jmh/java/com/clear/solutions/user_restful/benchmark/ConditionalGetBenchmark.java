@@ -0,0 +1,98 @@
+package com.clear.solutions.user_restful.benchmark;
+
+import com.clear.solutions.user_restful.cache.RangeResponseCache;
+import com.clear.solutions.user_restful.controller.UsersController;
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.mapper.UsersMapper;
+import com.clear.solutions.user_restful.service.implementation.UsersServiceImpl;
+import com.clear.solutions.user_restful.storage.UsersPatch;
+import com.clear.solutions.user_restful.storage.implementation.ConcurrentUsersStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A polling client repeating a one-year range query with the ETag of its previous response, answered by the
+ * controller with the range response cache sized to zero. {@code pollAfterUnrelatedWrite} changes a user
+ * outside the range before every poll, which must still end in a 304.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class ConditionalGetBenchmark {
+
+    private static final LocalDate START_DATE = BenchmarkData.FIRST_BIRTH_DATE;
+    private static final LocalDate END_DATE = BenchmarkData.FIRST_BIRTH_DATE.plusYears(1).minusDays(1);
+
+    @Param({"100000"})
+    private int size;
+
+    @Param({"true", "false"})
+    private boolean conditional;
+
+    private ConcurrentUsersStorage storage;
+    private UsersController controller;
+    private String eTag;
+    private List<UsersPatch> unrelatedPatch;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        storage = new ConcurrentUsersStorage();
+        List<Users> users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            users.add(BenchmarkData.user(i));
+        storage.addNewUsers(users);
+        Long unrelatedUserId = storage.getAllByBirthDateRange(BenchmarkData.FIRST_BIRTH_DATE.plusYears(10),
+                BenchmarkData.FIRST_BIRTH_DATE.plusYears(10)).get(0).getId();
+        unrelatedPatch = List.of(new UsersPatch(unrelatedUserId, null, "Taras", null, null, null, null));
+
+        controller = new UsersController(new UsersServiceImpl(storage, new UsersMapper(), 18),
+                Jackson2ObjectMapperBuilder.json().modulesToInstall(BenchmarkData.handWrittenCodecs()).build(),
+                new RangeResponseCache(0), new ContentNegotiationManager());
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.getUsersByBirthdateRange(START_DATE, END_DATE, null,
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/v1/users"), response));
+        eTag = response.getHeader(HttpHeaders.ETAG);
+    }
+
+    @Benchmark
+    public MockHttpServletResponse poll() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v1/users");
+        if (conditional)
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        controller.getUsersByBirthdateRange(START_DATE, END_DATE, null, new ServletWebRequest(request, response));
+        return response;
+    }
+
+    @Benchmark
+    public MockHttpServletResponse pollAfterUnrelatedWrite() throws Exception {
+        storage.updateUsersData(unrelatedPatch, true);
+        return poll();
+    }
+}
@@ -0,0 +1,91 @@
+package com.clear.solutions.user_restful.benchmark;
+
+import com.clear.solutions.user_restful.dto.DataContainerDTO;
+import com.clear.solutions.user_restful.entity.Users;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A range query response with {@code size} users in each content type the users endpoints support: written by
+ * the service and read back by a client. The payload size of every format is printed once per trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContentFormatBenchmark {
+
+    @Param({"100000"})
+    private int size;
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    private ObjectMapper objectMapper;
+    private ObjectReader responseReader;
+    private DataContainerDTO<List<Users>> response;
+    private byte[] payload;
+
+    @Setup(Level.Trial)
+    public void createResponse() throws IOException {
+        JsonFactory factory = switch (format) {
+            case "json" -> new JsonFactory();
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> throw new IllegalArgumentException(format);
+        };
+        objectMapper = new ObjectMapper(factory)
+                .registerModule(new JavaTimeModule())
+                .registerModule(BenchmarkData.handWrittenCodecs())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        responseReader = objectMapper.readerFor(objectMapper.getTypeFactory().constructParametricType(DataContainerDTO.class,
+                objectMapper.getTypeFactory().constructCollectionType(List.class, Users.class)));
+
+        List<Users> users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Users user = BenchmarkData.user(i);
+            user.setId(i + 1L);
+            users.add(user);
+        }
+        response = new DataContainerDTO<>(users);
+        payload = objectMapper.writeValueAsBytes(response);
+        System.out.printf("%n%s payload of %d users: %d bytes%n", format, size, payload.length);
+    }
+
+    @Benchmark
+    public void writeResponse() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), response);
+    }
+
+    @Benchmark
+    public DataContainerDTO<List<Users>> readResponse() throws IOException {
+        return responseReader.readValue(payload);
+    }
+}
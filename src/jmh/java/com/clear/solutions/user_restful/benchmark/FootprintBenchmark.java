@@ -0,0 +1,104 @@
+package com.clear.solutions.user_restful.benchmark;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.storage.BirthDateChangeListener;
+import com.clear.solutions.user_restful.storage.UsersStorage;
+import com.clear.solutions.user_restful.storage.implementation.ColumnarUsersStorage;
+import com.clear.solutions.user_restful.storage.implementation.ConcurrentUsersStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory taken per user by each storage engine and what reading it costs. Setup prints the heap, and for the
+ * off-heap columnar engine the direct buffers, that filling the storage took, measured after full
+ * collections, and how long one more full collection took with the storage live: it has to trace every
+ * object the storage keeps. Run with {@code -prof gc} for the allocation rate and collection times of the reads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FootprintBenchmark {
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"concurrent", "columnar", "columnar-off-heap"})
+    private String engine;
+
+    private UsersStorage storage;
+
+    @Setup(Level.Trial)
+    public void fillStorage() {
+        long heapBefore = usedHeap();
+        long directBefore = usedDirectMemory();
+        storage = switch (engine) {
+            case "concurrent" -> new ConcurrentUsersStorage();
+            case "columnar" -> new ColumnarUsersStorage(BirthDateChangeListener.NONE, false);
+            case "columnar-off-heap" -> new ColumnarUsersStorage(BirthDateChangeListener.NONE, true);
+            default -> throw new IllegalArgumentException(engine);
+        };
+        for (int i = 0; i < size; i++)
+            storage.addNewUser(BenchmarkData.user(i));
+
+        long heap = usedHeap() - heapBefore;
+        long direct = usedDirectMemory() - directBefore;
+        long collectionTimeBefore = collectionTime();
+        System.gc();
+        System.out.printf("%n%s, %d users: %d heap bytes per user, %d direct bytes per user, full collection %d ms%n",
+                engine, size, heap / size, direct / size, collectionTime() - collectionTimeBefore);
+    }
+
+    @Benchmark
+    public Optional<Users> getUserById() {
+        return storage.getUserById(1L + ThreadLocalRandom.current().nextInt(size));
+    }
+
+    @Benchmark
+    public List<Users> getAllByBirthDateRange() {
+        // about 50 users a day
+        LocalDate birthDate = BenchmarkData.FIRST_BIRTH_DATE.plusDays(ThreadLocalRandom.current().nextInt(BenchmarkData.BIRTH_DATE_DAYS));
+        return storage.getAllByBirthDateRange(birthDate, birthDate);
+    }
+
+    private static long usedHeap() {
+        // a few collections, the first ones may leave garbage reachable from finalizable objects behind
+        for (int i = 0; i < 3; i++)
+            System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long collectionTime() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime)
+                .sum();
+    }
+
+    private static long usedDirectMemory() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> pool.getName().equals("direct"))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+}
@@ -0,0 +1,137 @@
+package com.clear.solutions.user_restful.benchmark;
+
+import com.clear.solutions.user_restful.dto.UserInfoDTO;
+import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorDescription;
+import com.clear.solutions.user_restful.exceptions.IncorrectRequestException;
+import com.clear.solutions.user_restful.exceptions.ValidationFailedException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validation as it was before the rule engine, kept as the baseline of {@link ValidationBenchmark}: the email
+ * regex is recompiled by {@link String#matches} and an error list is allocated on every call.
+ */
+final class LegacyUsersValidation {
+
+    private LegacyUsersValidation() {
+    }
+
+
+    static void validateUserData(UserInfoDTO user) {
+        throwExceptionIfRequired(collectUserDataErrors(user));
+    }
+
+    /**
+     * Same checks as {@link #validateUserData(UserInfoDTO)}, but the problems are returned instead of thrown,
+     * so batch requests can report them per item.
+     */
+    static List<ErrorDescription> collectUserDataErrors(UserInfoDTO user) {
+        List<ErrorDescription> errorDescriptions = new ArrayList<>();
+
+        checkRequiredFieldsPresence(user, errorDescriptions);
+        validateInputForPatterns(user, errorDescriptions);
+
+        return errorDescriptions;
+    }
+
+    static void validatePartialUserData(UserInfoDTO user) {
+        checkAllFieldsPresenceForPartialUpdate(user);
+
+        throwExceptionIfRequired(collectPartialFieldErrors(user));
+    }
+
+    /**
+     * Same checks as {@link #validatePartialUserData(UserInfoDTO)}, but the problems are returned instead of thrown.
+     * A body with all fields present is reported with the 405 status the single-user endpoint responds with.
+     */
+    static List<ErrorDescription> collectPartialUserDataErrors(UserInfoDTO user) {
+        try {
+            checkAllFieldsPresenceForPartialUpdate(user);
+        } catch (IncorrectRequestException e) {
+            return new ArrayList<>(List.of(new ErrorDescription(405, e.getMessage())));
+        }
+
+        return collectPartialFieldErrors(user);
+    }
+
+    static void validateAllUserData(UserInfoDTO user) {
+        List<ErrorDescription> errorDescriptions = new ArrayList<>();
+        checkAllFieldsPresence(user, errorDescriptions);
+
+        validateEmailAgainstPattern(user, errorDescriptions);
+        validateBirthDateAgainstCurrentDate(user, errorDescriptions);
+
+        throwExceptionIfRequired(errorDescriptions);
+    }
+
+    private static List<ErrorDescription> collectPartialFieldErrors(UserInfoDTO user) {
+        List<ErrorDescription> errorDescriptions = new ArrayList<>();
+        checkAllFieldsAbsence(user, errorDescriptions);
+
+        validateEmailAgainstPattern(user, errorDescriptions);
+        validateBirthDateAgainstCurrentDate(user, errorDescriptions);
+
+        return errorDescriptions;
+    }
+
+    private static void throwExceptionIfRequired(List<ErrorDescription> errorDescriptions) {
+        if (errorDescriptions.size() != 0)
+            throw new ValidationFailedException(errorDescriptions);
+    }
+
+    private static void validateInputForPatterns(UserInfoDTO user, List<ErrorDescription> errorDescriptions) {
+        validateEmailAgainstPattern(user, errorDescriptions);
+        validateBirthDateAgainstCurrentDate(user, errorDescriptions);
+    }
+
+    private static void checkAllFieldsPresence(UserInfoDTO user, List<ErrorDescription> errorDescriptions) {
+        if (user.address() == null)
+            errorDescriptions.add(createErrorResponse("'address' field should be present"));
+        if (user.phoneNumber() == null)
+            errorDescriptions.add(createErrorResponse("'phoneNumber' field should be present"));
+
+        checkRequiredFieldsPresence(user, errorDescriptions);
+    }
+
+    private static void checkRequiredFieldsPresence(UserInfoDTO user, List<ErrorDescription> errorDescriptions) {
+        if (user.email() == null)
+            errorDescriptions.add(createErrorResponse("'email' field should be present"));
+        if (user.firstName() == null)
+            errorDescriptions.add(createErrorResponse("'firstName' field should be present"));
+        if (user.lastName() == null)
+            errorDescriptions.add(createErrorResponse("'lastName' field should be present"));
+        if (user.birthDate() == null)
+            errorDescriptions.add(createErrorResponse("'birthDate' field should be present"));
+    }
+
+    private static void checkAllFieldsAbsence(UserInfoDTO user, List<ErrorDescription> errorDescriptions) {
+        if (user.email() == null && user.firstName() == null && user.lastName() == null &&
+                user.birthDate() == null && user.address() == null && user.phoneNumber() == null)
+            errorDescriptions.add(
+                    createErrorResponse("At least one field out of the following list should be present: 'email', 'firstName', 'lastName', " +
+                            "'birthDate', 'address', 'phoneNumber'")
+            );
+    }
+
+    private static void checkAllFieldsPresenceForPartialUpdate(UserInfoDTO user) {
+        if (user.email() != null && user.firstName() != null && user.lastName() != null &&
+                user.birthDate() != null && user.address() != null && user.phoneNumber() != null)
+            throw new IncorrectRequestException("Request body contains all user fields. Use endpoint with PUT method");
+    }
+
+    private static void validateEmailAgainstPattern(UserInfoDTO user, List<ErrorDescription> errorDescriptions) {
+        if (user.email() != null && !user.email().matches("[a-z]+\\.?[a-z0-9]+@[a-z]{2,6}(\\.[a-z]{2,4}){1,2}"))
+            errorDescriptions.add(createErrorResponse("Email should start with a shorter letter and do not contain capital letters or special symbols (e.g. examplemail@lll.kpi.ua)"));
+    }
+
+    private static void validateBirthDateAgainstCurrentDate(UserInfoDTO user, List<ErrorDescription> errorDescriptions) {
+        if (user.birthDate() != null && LocalDate.now().isBefore(user.birthDate()))
+            errorDescriptions.add(createErrorResponse("Birth date should be less than current date value"));
+    }
+
+    private static ErrorDescription createErrorResponse(String detail) {
+        return new ErrorDescription(400, detail);
+    }
+}
@@ -0,0 +1,31 @@
+package com.clear.solutions.user_restful.benchmark;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.mapper.UsersMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private final UsersMapper usersMapper = new UsersMapper();
+
+    @Benchmark
+    public Users usersDtoToEntity() {
+        return usersMapper.usersDtoToEntity(BenchmarkData.VALID_USER);
+    }
+}
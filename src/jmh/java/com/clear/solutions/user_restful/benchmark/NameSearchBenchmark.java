@@ -0,0 +1,107 @@
+package com.clear.solutions.user_restful.benchmark;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.storage.UsersStorage;
+import com.clear.solutions.user_restful.storage.implementation.ConcurrentUsersStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Name search latency against a storage pre-filled with {@code size} users. Names are glued from syllables,
+ * about ten thousand distinct first names and over a million last names, so common prefixes match many users
+ * and typos have real neighbours. Run with {@code -p size=10000000 -jvmArgsAppend -Xmx8g} for the 10M figure.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NameSearchBenchmark {
+
+    private static final String[] SYLLABLES = {"an", "ber", "ca", "da", "el", "fi", "go", "ha", "ia", "jo", "ka",
+            "li", "ma", "na", "ol", "pe", "ra", "sa", "ta", "ul", "va", "wi", "xe", "yu", "zo"};
+    private static final int LIMIT = 20;
+
+    @Param({"1000000"})
+    private int size;
+
+    private UsersStorage storage;
+    private String[] lastNames;
+
+    @Setup(Level.Trial)
+    public void fillStorage() {
+        storage = new ConcurrentUsersStorage();
+        lastNames = new String[size];
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            Users user = BenchmarkData.user(i);
+            user.setFirstName(name(random, 2 + random.nextInt(2)));
+            lastNames[i] = name(random, 3 + random.nextInt(3));
+            user.setLastName(lastNames[i]);
+            storage.addNewUser(user);
+        }
+    }
+
+    @Benchmark
+    public List<Users> exactLastName() {
+        return storage.searchByName(randomLastName(), LIMIT);
+    }
+
+    /**
+     * The first three letters of a last name, matching thousands of users.
+     */
+    @Benchmark
+    public List<Users> prefix() {
+        return storage.searchByName(randomLastName().substring(0, 3), LIMIT);
+    }
+
+    /**
+     * A last name with two adjacent letters swapped.
+     */
+    @Benchmark
+    public List<Users> typo() {
+        char[] name = randomLastName().toCharArray();
+        int position = 1 + ThreadLocalRandom.current().nextInt(name.length - 2);
+        char swapped = name[position];
+        name[position] = name[position + 1];
+        name[position + 1] = swapped;
+        return storage.searchByName(new String(name), LIMIT);
+    }
+
+    /**
+     * A first and a last name, the shorter one only filtering the users matched by the longer.
+     */
+    @Benchmark
+    public List<Users> fullName() {
+        int position = ThreadLocalRandom.current().nextInt(size);
+        return storage.searchByName(storage.getUserById(position + 1L).orElseThrow().getFirstName() + " " + lastNames[position], LIMIT);
+    }
+
+    private String randomLastName() {
+        return lastNames[ThreadLocalRandom.current().nextInt(size)];
+    }
+
+    private static String name(Random random, int syllables) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < syllables; i++)
+            name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+}
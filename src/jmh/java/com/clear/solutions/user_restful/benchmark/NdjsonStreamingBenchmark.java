@@ -0,0 +1,120 @@
+package com.clear.solutions.user_restful.benchmark;
+
+import com.clear.solutions.user_restful.serialization.NdjsonUsersWriter;
+import com.clear.solutions.user_restful.storage.UsersStorage;
+import com.clear.solutions.user_restful.storage.implementation.ConcurrentUsersStorage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming every one of {@code size} users as NDJSON to a stream that discards it. With {@code -prof gc}
+ * the allocation per operation shows what a user costs on its way out. At the end of the trial, one more
+ * stream samples the heap after a full collection every {@value #HEAP_SAMPLE_INTERVAL} lines and prints how
+ * much it grew: the output of a million users is well above 100 MB, so keeping it in memory would show.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NdjsonStreamingBenchmark {
+
+    private static final int HEAP_SAMPLE_INTERVAL = 100_000;
+
+    @Param({"1000000"})
+    private int size;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .registerModule(BenchmarkData.handWrittenCodecs());
+    private UsersStorage storage;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void fillStorage() {
+        storage = new ConcurrentUsersStorage();
+        for (int i = 0; i < size; i++)
+            storage.addNewUser(BenchmarkData.user(i));
+        startDate = BenchmarkData.FIRST_BIRTH_DATE;
+        endDate = startDate.plusDays(BenchmarkData.BIRTH_DATE_DAYS - 1);
+    }
+
+    @Benchmark
+    public long streamRange() throws IOException {
+        LineCountingOutputStream outputStream = new LineCountingOutputStream(() -> {
+        });
+        stream(outputStream);
+        return outputStream.lines;
+    }
+
+    @TearDown(Level.Trial)
+    public void measureHeapGrowth() throws IOException {
+        long[] minimum = {Long.MAX_VALUE};
+        long[] maximum = {0};
+        LineCountingOutputStream outputStream = new LineCountingOutputStream(() -> {
+            System.gc();
+            long usedHeap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+            minimum[0] = Math.min(minimum[0], usedHeap);
+            maximum[0] = Math.max(maximum[0], usedHeap);
+        });
+        stream(outputStream);
+        System.out.printf("%n%d users, %d MB streamed: heap grew by %d KB at most between samples%n",
+                outputStream.lines, outputStream.bytes / (1024 * 1024), (maximum[0] - minimum[0]) / 1024);
+    }
+
+    private void stream(OutputStream outputStream) throws IOException {
+        NdjsonUsersWriter writer = new NdjsonUsersWriter(objectMapper, outputStream);
+        storage.forEachByBirthDateRange(startDate, endDate, writer);
+        writer.finish();
+    }
+
+    /**
+     * Discards the output, counting lines and running the sampler every {@link #HEAP_SAMPLE_INTERVAL} lines.
+     */
+    private static class LineCountingOutputStream extends OutputStream {
+
+        private final Runnable sampler;
+        private long lines;
+        private long bytes;
+
+        private LineCountingOutputStream(Runnable sampler) {
+            this.sampler = sampler;
+        }
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n' && ++lines % HEAP_SAMPLE_INTERVAL == 0)
+                sampler.run();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++)
+                write(b[i]);
+        }
+    }
+}
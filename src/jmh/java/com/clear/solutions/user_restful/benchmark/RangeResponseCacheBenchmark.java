@@ -0,0 +1,95 @@
+package com.clear.solutions.user_restful.benchmark;
+
+import com.clear.solutions.user_restful.cache.RangeResponseCache;
+import com.clear.solutions.user_restful.controller.UsersController;
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.mapper.UsersMapper;
+import com.clear.solutions.user_restful.service.implementation.UsersServiceImpl;
+import com.clear.solutions.user_restful.storage.UsersPatch;
+import com.clear.solutions.user_restful.storage.implementation.ConcurrentUsersStorage;
+import com.clear.solutions.user_restful.storage.snapshot.SnapshotStore;
+import com.clear.solutions.user_restful.storage.wal.WriteAheadLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.accept.ContentNegotiationManager;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A repeated one-year range query answered by the controller, with the range response cache enabled or sized
+ * to zero. The controller is called directly: copying the response through a {@code MockMvc} buffer costs
+ * more than building it. {@code rangeQueryAfterUnrelatedWrite} changes a user outside the range before every
+ * query, which must not cost the cached response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class RangeResponseCacheBenchmark {
+
+    private static final LocalDate START_DATE = BenchmarkData.FIRST_BIRTH_DATE;
+    private static final LocalDate END_DATE = BenchmarkData.FIRST_BIRTH_DATE.plusYears(1).minusDays(1);
+
+    @Param({"100000"})
+    private int size;
+
+    @Param({"true", "false"})
+    private boolean cached;
+
+    private ConcurrentUsersStorage storage;
+    private UsersController controller;
+    private final ServletWebRequest request =
+            new ServletWebRequest(new MockHttpServletRequest("GET", "/v1/users"), new MockHttpServletResponse());
+    private List<UsersPatch> unrelatedPatch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RangeResponseCache cache = new RangeResponseCache(cached ? 64L << 20 : 0);
+        storage = new ConcurrentUsersStorage(WriteAheadLog.DISABLED, SnapshotStore.DISABLED, cache);
+        List<Users> users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            users.add(BenchmarkData.user(i));
+        storage.addNewUsers(users);
+        Long unrelatedUserId = storage.getAllByBirthDateRange(BenchmarkData.FIRST_BIRTH_DATE.plusYears(10),
+                BenchmarkData.FIRST_BIRTH_DATE.plusYears(10)).get(0).getId();
+        unrelatedPatch = List.of(new UsersPatch(unrelatedUserId, null, "Taras", null, null, null, null));
+
+        UsersServiceImpl usersService = new UsersServiceImpl(storage, new UsersMapper(), 18);
+        controller = new UsersController(usersService,
+                Jackson2ObjectMapperBuilder.json().modulesToInstall(BenchmarkData.handWrittenCodecs()).build(),
+                cache, new ContentNegotiationManager());
+    }
+
+    @Benchmark
+    public ResponseEntity<?> rangeQuery() throws Exception {
+        return controller.getUsersByBirthdateRange(START_DATE, END_DATE, null, request);
+    }
+
+    @Benchmark
+    public ResponseEntity<?> rangeQueryAfterUnrelatedWrite() throws Exception {
+        storage.updateUsersData(unrelatedPatch, true);
+        return rangeQuery();
+    }
+}
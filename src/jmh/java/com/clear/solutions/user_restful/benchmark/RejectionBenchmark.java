@@ -0,0 +1,103 @@
+package com.clear.solutions.user_restful.benchmark;
+
+import com.clear.solutions.user_restful.cache.RangeResponseCache;
+import com.clear.solutions.user_restful.controller.UsersController;
+import com.clear.solutions.user_restful.exception_hadler.RestResponseEntityExceptionHandler;
+import com.clear.solutions.user_restful.mapper.UsersMapper;
+import com.clear.solutions.user_restful.service.implementation.UsersServiceImpl;
+import com.clear.solutions.user_restful.storage.implementation.ConcurrentUsersStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.accept.ContentNegotiationManager;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+/**
+ * Rejected requests per second on a single core, each going through the whole MVC pipeline of a standalone
+ * {@link MockMvc}: request parsing, the controller, the exception handler and the error body.
+ * The MVC pipeline takes a while to be compiled, hence the long warmup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 15, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(1)
+public class RejectionBenchmark {
+
+    private static final String INVALID_USER = """
+            {"data": {"email": "Example@", "firstName": "ivan", "lastName": "", "phoneNumber": "050"}}""";
+    private static final String UNDERAGE_USER = """
+            {"data": {"email": "examplemail@lll.kpi.ua", "firstName": "Ivan", "lastName": "Franko", "birthDate": "2020-01-01"}}""";
+    private static final String FULL_USER = """
+            {"data": {"email": "examplemail@lll.kpi.ua", "firstName": "Ivan", "lastName": "Franko", "birthDate": "1990-01-01",
+            "address": "Lviv", "phoneNumber": "0501234567"}}""";
+
+    private MockMvc mockMvc;
+
+    @Setup
+    public void setUp() {
+        UsersServiceImpl usersService = new UsersServiceImpl(new ConcurrentUsersStorage(), new UsersMapper(), 18);
+        mockMvc = MockMvcBuilders
+                .standaloneSetup(new UsersController(usersService, Jackson2ObjectMapperBuilder.json().build(),
+                        new RangeResponseCache(0), new ContentNegotiationManager()))
+                .setControllerAdvice(new RestResponseEntityExceptionHandler())
+                .build();
+    }
+
+    /**
+     * 400 listing every broken field.
+     */
+    @Benchmark
+    public MvcResult rejectInvalidUser() throws Exception {
+        return perform(post("/v1/users").contentType(MediaType.APPLICATION_JSON).content(INVALID_USER));
+    }
+
+    /**
+     * 400 with a single fixed message.
+     */
+    @Benchmark
+    public MvcResult rejectMissingData() throws Exception {
+        return perform(post("/v1/users").contentType(MediaType.APPLICATION_JSON).content("{}"));
+    }
+
+    @Benchmark
+    public MvcResult rejectUnderageUser() throws Exception {
+        return perform(post("/v1/users").contentType(MediaType.APPLICATION_JSON).content(UNDERAGE_USER));
+    }
+
+    @Benchmark
+    public MvcResult rejectFullPartialUpdate() throws Exception {
+        return perform(patch("/v1/users/1").contentType(MediaType.APPLICATION_JSON).content(FULL_USER));
+    }
+
+    /**
+     * 404 with a message built from the identifier.
+     */
+    @Benchmark
+    public MvcResult rejectUnknownUser() throws Exception {
+        return perform(put("/v1/users/42").contentType(MediaType.APPLICATION_JSON).content(FULL_USER));
+    }
+
+    private MvcResult perform(RequestBuilder request) throws Exception {
+        return mockMvc.perform(request).andReturn();
+    }
+}
@@ -0,0 +1,124 @@
+package com.clear.solutions.user_restful.benchmark;
+
+import com.clear.solutions.user_restful.dto.DataContainerDTO;
+import com.clear.solutions.user_restful.dto.UserInfoDTO;
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.serialization.UserProjection;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of a range query response with {@code size} users and deserialization of a request body,
+ * with the hand-written codecs next to the {@code _Legacy} reflective ones. Both mappers are configured like
+ * the Spring Boot object mapper: ISO dates instead of timestamps, unknown properties ignored.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    private int size;
+
+    private static final byte[] REQUEST = """
+            {"data": {"email": "examplemail@lll.kpi.ua", "firstName": "Ivan", "lastName": "Franko",
+            "birthDate": "1990-01-31", "address": "Street 10/2, apartment 15, Kyiv, Ukraine", "phoneNumber": "0501234567"}}"""
+            .getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper legacyObjectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    private final ObjectMapper objectMapper = legacyObjectMapper.copy().registerModule(BenchmarkData.handWrittenCodecs());
+
+    private final JavaType requestType = objectMapper.getTypeFactory()
+            .constructParametricType(DataContainerDTO.class, UserInfoDTO.class);
+    // the message converter reads through an ObjectReader for the target type, like these
+    private final ObjectReader requestReader = objectMapper.readerFor(requestType);
+    private final ObjectReader legacyRequestReader = legacyObjectMapper.readerFor(requestType);
+
+    // what most range query consumers ask for with the 'fields' parameter
+    private final ObjectWriter projectedWriter =
+            objectMapper.writer(UserProjection.parse("id,email,birthDate").asFilterProvider());
+
+    private DataContainerDTO<List<Users>> response;
+
+    @Setup(Level.Trial)
+    public void createResponse() {
+        List<Users> users = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Users user = BenchmarkData.user(i);
+            user.setId(i + 1L);
+            users.add(user);
+        }
+        response = new DataContainerDTO<>(users);
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() throws IOException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes_Legacy() throws IOException {
+        return legacyObjectMapper.writeValueAsBytes(response);
+    }
+
+    /**
+     * Like a servlet response, the output is streamed rather than collected.
+     */
+    @Benchmark
+    public void writeValueToStream() throws IOException {
+        objectMapper.writeValue(OutputStream.nullOutputStream(), response);
+    }
+
+    @Benchmark
+    public void writeValueToStream_Legacy() throws IOException {
+        legacyObjectMapper.writeValue(OutputStream.nullOutputStream(), response);
+    }
+
+    @Benchmark
+    public void writeProjectedValueToStream() throws IOException {
+        projectedWriter.writeValue(OutputStream.nullOutputStream(), response);
+    }
+
+    /**
+     * Request bodies hold a single user, {@code size} does not apply.
+     */
+    @Benchmark
+    public DataContainerDTO<UserInfoDTO> readRequest() throws IOException {
+        return requestReader.readValue(REQUEST);
+    }
+
+    @Benchmark
+    public DataContainerDTO<UserInfoDTO> readRequest_Legacy() throws IOException {
+        return legacyRequestReader.readValue(REQUEST);
+    }
+}
@@ -0,0 +1,75 @@
+package com.clear.solutions.user_restful.benchmark;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.storage.BirthDateChangeListener;
+import com.clear.solutions.user_restful.storage.UsersStorage;
+import com.clear.solutions.user_restful.storage.implementation.ConcurrentUsersStorage;
+import com.clear.solutions.user_restful.storage.snapshot.SnapshotStore;
+import com.clear.solutions.user_restful.storage.wal.WriteAheadLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scaling of a wide range query, a tenth of {@code size} users, with the number of cores it may use. The query
+ * runs in a fork/join pool of {@code cores} threads, so its shards are scanned there. Results only mean
+ * something up to the number of cores of the machine: compare {@code shards=1}, the sequential scan, with
+ * {@code shards=32} at every core count.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShardedScanBenchmark {
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"1", "32"})
+    private int shards;
+
+    @Param({"1", "2", "4", "8", "16", "32"})
+    private int cores;
+
+    private UsersStorage storage;
+    private ForkJoinPool pool;
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    @Setup(Level.Trial)
+    public void fillStorage() {
+        storage = new ConcurrentUsersStorage(WriteAheadLog.DISABLED, SnapshotStore.DISABLED, BirthDateChangeListener.NONE, shards);
+        for (int i = 0; i < size; i++)
+            storage.addNewUser(BenchmarkData.user(i));
+        pool = new ForkJoinPool(cores);
+        startDate = BenchmarkData.FIRST_BIRTH_DATE.plusDays(BenchmarkData.BIRTH_DATE_DAYS / 2);
+        endDate = startDate.plusDays(BenchmarkData.BIRTH_DATE_DAYS / 10 - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void shutdownPool() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public List<Users> getAllByBirthDateRange() {
+        return pool.submit(() -> storage.getAllByBirthDateRange(startDate, endDate)).join();
+    }
+}
@@ -0,0 +1,97 @@
+package com.clear.solutions.user_restful.benchmark;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.storage.UsersStorage;
+import com.clear.solutions.user_restful.storage.implementation.ConcurrentUsersStorage;
+import com.clear.solutions.user_restful.storage.snapshot.FileSnapshotStore;
+import com.clear.solutions.user_restful.storage.snapshot.SnapshotStore;
+import com.clear.solutions.user_restful.storage.wal.FileWriteAheadLog;
+import com.clear.solutions.user_restful.storage.wal.FsyncPolicy;
+import com.clear.solutions.user_restful.storage.wal.WriteAheadLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Startup from a snapshot compared with startup from a write-ahead log holding the same {@code size} users.
+ * Users have only their required fields, so that ten million restored users fit into a few gigabytes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class StartupBenchmark {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param({"10000000"})
+    private int size;
+
+    private Path directory;
+    private Path walDirectory;
+    private Path snapshotDirectory;
+
+    @Setup(Level.Trial)
+    public void writeLogAndSnapshot() throws IOException {
+        directory = Files.createTempDirectory("startup-benchmark");
+        walDirectory = directory.resolve("wal");
+        snapshotDirectory = directory.resolve("snapshots");
+        try (FileWriteAheadLog log = new FileWriteAheadLog(walDirectory, FsyncPolicy.EVERY_N_RECORDS, BATCH_SIZE)) {
+            ConcurrentUsersStorage storage = new ConcurrentUsersStorage(log, SnapshotStore.DISABLED);
+            for (int batch = 0; batch < size / BATCH_SIZE; batch++) {
+                List<Users> users = new ArrayList<>(BATCH_SIZE);
+                for (int i = 0; i < BATCH_SIZE; i++) {
+                    Users user = BenchmarkData.user(batch * BATCH_SIZE + i);
+                    user.setAddress(null);
+                    user.setPhoneNumber(null);
+                    users.add(user);
+                }
+                storage.addNewUsers(users);
+            }
+            new FileSnapshotStore(snapshotDirectory).write(0, size + 1L, consumer ->
+                    storage.forEachByBirthDateRange(LocalDate.MIN, LocalDate.MAX, consumer));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteFiles() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList())
+                Files.delete(file);
+        }
+    }
+
+    @Benchmark
+    public UsersStorage replayLog() throws IOException {
+        try (FileWriteAheadLog log = new FileWriteAheadLog(walDirectory, FsyncPolicy.EVERY_WRITE, 0)) {
+            return new ConcurrentUsersStorage(log, SnapshotStore.DISABLED);
+        }
+    }
+
+    @Benchmark
+    public UsersStorage loadSnapshot() throws IOException {
+        return new ConcurrentUsersStorage(WriteAheadLog.DISABLED, new FileSnapshotStore(snapshotDirectory));
+    }
+}
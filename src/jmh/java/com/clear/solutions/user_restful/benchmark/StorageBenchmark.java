@@ -0,0 +1,140 @@
+package com.clear.solutions.user_restful.benchmark;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.storage.UsersPatch;
+import com.clear.solutions.user_restful.storage.UsersStorage;
+import com.clear.solutions.user_restful.storage.implementation.ConcurrentUsersStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Storage operations against a storage pre-filled with {@code size} users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    private UsersStorage storage;
+    private String[] emails;
+    private final Object globalLock = new Object();
+
+    @Setup(Level.Trial)
+    public void fillStorage() {
+        storage = new ConcurrentUsersStorage();
+        emails = new String[size];
+        for (int i = 0; i < size; i++) {
+            Users user = BenchmarkData.user(i);
+            emails[i] = user.getEmail();
+            storage.addNewUser(user);
+        }
+    }
+
+    @Benchmark
+    public Users getUserById() {
+        return storage.getUserById(ThreadLocalRandom.current().nextLong(1, size + 1)).orElseThrow();
+    }
+
+    @Benchmark
+    public Users getUserByEmail() {
+        return storage.getUserByEmail(emails[ThreadLocalRandom.current().nextInt(size)]).orElseThrow();
+    }
+
+    /**
+     * What clients did before the email lookup existed: a range query over every birth date, filtered by email.
+     */
+    @Benchmark
+    public Users scanForEmail() {
+        String email = emails[ThreadLocalRandom.current().nextInt(size)];
+        return storage.getAllByBirthDateRange(LocalDate.MIN, LocalDate.MAX).stream()
+                .filter(user -> user.getEmail().equals(email))
+                .findAny()
+                .orElseThrow();
+    }
+
+    /**
+     * A one-week range, about {@code 7 * size / 20000} users.
+     */
+    @Benchmark
+    public List<Users> getAllByBirthDateRange() {
+        LocalDate startDate = BenchmarkData.FIRST_BIRTH_DATE.plusDays(ThreadLocalRandom.current().nextInt(BenchmarkData.BIRTH_DATE_DAYS - 7));
+        return storage.getAllByBirthDateRange(startDate, startDate.plusDays(6));
+    }
+
+    /**
+     * Dataset grows by one user per invocation, which does not matter at these sizes.
+     */
+    @Benchmark
+    public Long addNewUser() {
+        return storage.addNewUser(BenchmarkData.user(ThreadLocalRandom.current().nextInt(size)));
+    }
+
+    /**
+     * Read-then-update of a random user with an optimistic version check, as a PATCH with {@code If-Match}.
+     */
+    @Benchmark
+    @Threads(4)
+    public boolean updateUserDataIfVersion() {
+        Users user = storage.getUserById(ThreadLocalRandom.current().nextLong(1, size + 1)).orElseThrow();
+        return storage.updateUserData(renamed(user), user.getVersion()).orElseThrow().applied();
+    }
+
+    /**
+     * The same read-then-update serialized by one lock, as a gateway lock around every write would do.
+     */
+    @Benchmark
+    @Threads(4)
+    public Users updateUserDataUnderGlobalLock() {
+        synchronized (globalLock) {
+            Users user = storage.getUserById(ThreadLocalRandom.current().nextLong(1, size + 1)).orElseThrow();
+            return storage.updateUsersData(List.of(renamed(user)), false).get(0);
+        }
+    }
+
+    private static UsersPatch renamed(Users user) {
+        return new UsersPatch(user.getId(), null, user.getVersion() % 2 == 0 ? "Ivan" : "Taras", null, null, null, null);
+    }
+
+    @Benchmark
+    public void removeUser(UserToRemove userToRemove) {
+        storage.removeUser(userToRemove.userId);
+    }
+
+    /**
+     * Every removal gets a fresh user, so the dataset keeps its size and no removal misses. Adding it is not
+     * measured, but invocation-level setup has an overhead of its own: compare results of this benchmark
+     * only with earlier runs of itself.
+     */
+    @State(Scope.Thread)
+    public static class UserToRemove {
+
+        private long userId;
+
+        @Setup(Level.Invocation)
+        public void addUser(StorageBenchmark benchmark) {
+            userId = benchmark.storage.addNewUser(BenchmarkData.user(ThreadLocalRandom.current().nextInt(benchmark.size)));
+        }
+    }
+}
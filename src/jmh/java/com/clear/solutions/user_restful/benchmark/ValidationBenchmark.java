@@ -0,0 +1,68 @@
+package com.clear.solutions.user_restful.benchmark;
+
+import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorDescription;
+import com.clear.solutions.user_restful.util.UsersValidationUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every check of {@link UsersValidationUtil} next to its {@link LegacyUsersValidation} baseline.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValidationBenchmark {
+
+    @Benchmark
+    public void validateUserData() {
+        UsersValidationUtil.validateUserData(BenchmarkData.VALID_USER);
+    }
+
+    @Benchmark
+    public void validateUserData_Legacy() {
+        LegacyUsersValidation.validateUserData(BenchmarkData.VALID_USER);
+    }
+
+    @Benchmark
+    public void validatePartialUserData() {
+        UsersValidationUtil.validatePartialUserData(BenchmarkData.VALID_PARTIAL_USER);
+    }
+
+    @Benchmark
+    public void validatePartialUserData_Legacy() {
+        LegacyUsersValidation.validatePartialUserData(BenchmarkData.VALID_PARTIAL_USER);
+    }
+
+    @Benchmark
+    public void validateAllUserData() {
+        UsersValidationUtil.validateAllUserData(BenchmarkData.VALID_USER);
+    }
+
+    @Benchmark
+    public void validateAllUserData_Legacy() {
+        LegacyUsersValidation.validateAllUserData(BenchmarkData.VALID_USER);
+    }
+
+    /**
+     * Rejected requests go through the same checks but also build the error descriptions.
+     */
+    @Benchmark
+    public List<ErrorDescription> collectUserDataErrors_InvalidUser() {
+        return UsersValidationUtil.collectUserDataErrors(BenchmarkData.INVALID_USER);
+    }
+
+    @Benchmark
+    public List<ErrorDescription> collectUserDataErrors_InvalidUser_Legacy() {
+        return LegacyUsersValidation.collectUserDataErrors(BenchmarkData.INVALID_USER);
+    }
+}
@@ -0,0 +1,195 @@
+package com.clear.solutions.user_restful.cache;
+
+import com.clear.solutions.user_restful.serialization.UserProjection;
+import com.clear.solutions.user_restful.storage.BirthDateChangeListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Serialized responses of birth-date range queries, bounded by their total size and evicted in LRU order.
+ * <p>
+ * As a {@link BirthDateChangeListener} of the storage it drops exactly the responses whose range contains a
+ * changed birth date. A response that was being built while such a change was published could be missing it,
+ * so loads remember the invalidation sequence they started at and are not stored if an invalidation of their
+ * range happened since. The latest invalidations are kept for that check; a load older than all of them is
+ * not stored either.
+ * <p>
+ * Responses larger than an eighth of the capacity are not cached, so a single huge range does not flush
+ * everything else.
+ */
+@Component
+public class RangeResponseCache implements BirthDateChangeListener {
+
+    // rough per-entry cost of the map node, the key and the array header
+    private static final int ENTRY_OVERHEAD = 128;
+    private static final int RECENT_INVALIDATIONS = 64;
+
+    private final long maxBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final LinkedHashMap<Key, byte[]> responses = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+    private long invalidationSequence;
+    // sorted changed days of the latest invalidations, by sequence modulo the array length
+    private final long[][] recentInvalidations = new long[RECENT_INVALIDATIONS][];
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public RangeResponseCache(@Value("${user.cache.range.max-bytes}") long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached response for the range and projection, or loads, caches and returns it.
+     */
+    public byte[] get(LocalDate startDate, LocalDate endDate, UserProjection projection, Loader loader) throws IOException {
+        Key key = new Key(startDate.toEpochDay(), endDate.toEpochDay(), projection);
+        long loadSequence;
+        lock.lock();
+        try {
+            byte[] response = responses.get(key);
+            if (response != null) {
+                hits.increment();
+                return response;
+            }
+            loadSequence = invalidationSequence;
+        } finally {
+            lock.unlock();
+        }
+
+        misses.increment();
+        byte[] response = loader.load();
+        put(key, response, loadSequence);
+        return response;
+    }
+
+    private void put(Key key, byte[] response, long loadSequence) {
+        long size = sizeOf(response);
+        if (size > maxBytes / 8)
+            return;
+
+        lock.lock();
+        try {
+            if (invalidatedSince(loadSequence, key))
+                return;
+
+            byte[] previous = responses.put(key, response);
+            usedBytes += size - (previous == null ? 0 : sizeOf(previous));
+            Iterator<byte[]> leastRecentlyUsed = responses.values().iterator();
+            while (usedBytes > maxBytes) {
+                usedBytes -= sizeOf(leastRecentlyUsed.next());
+                leastRecentlyUsed.remove();
+                evictions.increment();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Must be called with the lock held.
+     */
+    private boolean invalidatedSince(long loadSequence, Key key) {
+        if (invalidationSequence - loadSequence > RECENT_INVALIDATIONS)
+            return true;
+        for (long sequence = loadSequence + 1; sequence <= invalidationSequence; sequence++) {
+            if (key.containsAny(recentInvalidations[(int) (sequence % RECENT_INVALIDATIONS)]))
+                return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void birthDatesChanged(long[] epochDays, int count) {
+        if (count == 0)
+            return;
+        long[] changedDays = Arrays.copyOf(epochDays, count);
+        Arrays.sort(changedDays);
+
+        lock.lock();
+        try {
+            invalidationSequence++;
+            recentInvalidations[(int) (invalidationSequence % RECENT_INVALIDATIONS)] = changedDays;
+
+            Iterator<Map.Entry<Key, byte[]>> entries = responses.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<Key, byte[]> entry = entries.next();
+                if (entry.getKey().containsAny(changedDays)) {
+                    usedBytes -= sizeOf(entry.getValue());
+                    entries.remove();
+                    invalidations.increment();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            responses.clear();
+            usedBytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public long invalidations() {
+        return invalidations.sum();
+    }
+
+    public long usedBytes() {
+        lock.lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static long sizeOf(byte[] response) {
+        return response.length + ENTRY_OVERHEAD;
+    }
+
+    public interface Loader {
+        byte[] load() throws IOException;
+    }
+
+    private record Key(long startEpochDay, long endEpochDay, UserProjection projection) {
+
+        /**
+         * @param sortedDays days in ascending order
+         */
+        boolean containsAny(long[] sortedDays) {
+            int insertionPoint = Arrays.binarySearch(sortedDays, startEpochDay);
+            if (insertionPoint >= 0)
+                return true;
+            int firstAfterStart = -insertionPoint - 1;
+            return firstAfterStart < sortedDays.length && sortedDays[firstAfterStart] <= endEpochDay;
+        }
+    }
+}
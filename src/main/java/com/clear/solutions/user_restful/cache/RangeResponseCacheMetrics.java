@@ -0,0 +1,39 @@
+package com.clear.solutions.user_restful.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the {@link RangeResponseCache} counters, e.g. {@code /actuator/metrics/users.range.cache.hits}.
+ */
+@Component
+public class RangeResponseCacheMetrics implements MeterBinder {
+
+    private final RangeResponseCache cache;
+
+    public RangeResponseCacheMetrics(RangeResponseCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("users.range.cache.hits", cache, RangeResponseCache::hits)
+                .description("Range queries answered from the cache")
+                .register(registry);
+        FunctionCounter.builder("users.range.cache.misses", cache, RangeResponseCache::misses)
+                .description("Range queries that had to be loaded")
+                .register(registry);
+        FunctionCounter.builder("users.range.cache.evictions", cache, RangeResponseCache::evictions)
+                .description("Responses evicted to stay within the size limit")
+                .register(registry);
+        FunctionCounter.builder("users.range.cache.invalidations", cache, RangeResponseCache::invalidations)
+                .description("Responses dropped because a user in their range changed")
+                .register(registry);
+        Gauge.builder("users.range.cache.size", cache, RangeResponseCache::usedBytes)
+                .baseUnit("bytes")
+                .register(registry);
+    }
+}
@@ -0,0 +1,53 @@
+package com.clear.solutions.user_restful.controller;
+
+import java.security.SecureRandom;
+
+/**
+ * Strong entity tags of the users resources.
+ * <p>
+ * Tags are built from storage generations and user versions, which start over with the process, so every tag
+ * also carries a random tag of the process: tags handed out by an earlier run never match.
+ */
+final class ETags {
+
+    private static final String INSTANCE_TAG = Long.toHexString(new SecureRandom().nextLong());
+    private static final String USER_VERSION_PREFIX = '"' + INSTANCE_TAG + "-v";
+    // never the version of a user, so an update conditioned on it always fails
+    private static final long UNKNOWN_VERSION = -1;
+
+    private ETags() {
+    }
+
+    /**
+     * Tags a birth-date range response by the modification generation of the range and its representation.
+     */
+    static String range(long generation, String representation) {
+        return '"' + INSTANCE_TAG + '-' + Long.toHexString(generation) + '-' + representation + '"';
+    }
+
+    static String user(long version) {
+        return USER_VERSION_PREFIX + version + '"';
+    }
+
+    /**
+     * Returns the user version named by an {@code If-Match} header, {@code null} if the header is absent or
+     * {@code *}. A header without a user tag of this process names a version no user has; of several tags
+     * the first one of this process counts.
+     */
+    static Long expectedUserVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.strip().equals("*"))
+            return null;
+
+        for (String tag : ifMatch.split(",")) {
+            tag = tag.strip();
+            if (tag.startsWith(USER_VERSION_PREFIX) && tag.endsWith("\"") && tag.length() > USER_VERSION_PREFIX.length() + 1) {
+                try {
+                    return Long.parseLong(tag, USER_VERSION_PREFIX.length(), tag.length() - 1, 10);
+                } catch (NumberFormatException e) {
+                    return UNKNOWN_VERSION;
+                }
+            }
+        }
+        return UNKNOWN_VERSION;
+    }
+}
@@ -1,16 +1,37 @@
 package com.clear.solutions.user_restful.controller;
 
+import com.clear.solutions.user_restful.cache.RangeResponseCache;
+import com.clear.solutions.user_restful.dto.BatchItemResultDTO;
 import com.clear.solutions.user_restful.dto.DataContainerDTO;
+import com.clear.solutions.user_restful.dto.HistogramBucketDTO;
+import com.clear.solutions.user_restful.dto.HistogramGranularity;
+import com.clear.solutions.user_restful.dto.PageCursor;
 import com.clear.solutions.user_restful.dto.UserInfoDTO;
+import com.clear.solutions.user_restful.dto.UserPatchDTO;
 import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorBodies;
 import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorDescription;
 import com.clear.solutions.user_restful.exceptions.ValidationFailedException;
+import com.clear.solutions.user_restful.serialization.CborSequenceUsersWriter;
+import com.clear.solutions.user_restful.serialization.NdjsonUsersWriter;
+import com.clear.solutions.user_restful.serialization.UserProjection;
+import com.clear.solutions.user_restful.serialization.UsersStreamWriter;
 import com.clear.solutions.user_restful.service.UsersService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.stereotype.Controller;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.accept.ContentNegotiationManager;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.time.LocalDate;
 import java.util.List;
@@ -22,20 +43,96 @@ import static com.clear.solutions.user_restful.util.ValidateDataContainer.valida
 @RequestMapping("/v1/users")
 public class UsersController {
 
-    public UsersController(UsersService usersService) {
+    public UsersController(UsersService usersService, ObjectMapper objectMapper, RangeResponseCache rangeResponseCache,
+                           ContentNegotiationManager contentNegotiationManager) {
         this.usersService = usersService;
+        this.objectMapper = objectMapper;
+        this.rangeResponseCache = rangeResponseCache;
+        this.contentNegotiationManager = contentNegotiationManager;
     }
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_SEARCH_RESULTS = 100;
+    private static final int MAX_COHORT_YEARS = 150;
+    private static final String JSON_REPRESENTATION = "json";
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final List<ErrorDescription> BATCH_SIZE_ERRORS =
+            List.of(ErrorBodies.fixed(400, "Batch should contain from 1 to %s items".formatted(MAX_BATCH_SIZE)));
+
     private final UsersService usersService;
+    private final ObjectMapper objectMapper;
+    private final RangeResponseCache rangeResponseCache;
+    private final ContentNegotiationManager contentNegotiationManager;
 
+    /**
+     * Responses negotiated to JSON are served from the range response cache as ready bytes, other formats are
+     * written by their message converters.
+     */
     @GetMapping
-    public ResponseEntity<DataContainerDTO<List<Users>>> getUsersByBirthdateRange(@RequestParam LocalDate startDate, @RequestParam LocalDate endDate) {
-        if (startDate.isAfter(endDate))
+    public ResponseEntity<?> getUsersByBirthdateRange(@RequestParam LocalDate startDate, @RequestParam LocalDate endDate,
+                                                      @RequestParam(required = false) String fields,
+                                                      ServletWebRequest request) throws IOException, HttpMediaTypeNotAcceptableException {
+        validateDateRange(startDate, endDate);
+        UserProjection projection = UserProjection.parse(fields);
+
+        String representation = negotiatedRepresentation(request);
+        if (notModified(request, startDate, endDate, representation))
+            return null;
+        if (!representation.equals(JSON_REPRESENTATION))
+            return ResponseEntity.ok(projected(usersService.getAllByBirthDateRange(startDate, endDate), projection));
+
+        byte[] response = rangeResponseCache.get(startDate, endDate, projection,
+                () -> objectMapper.writer(projection.asFilterProvider())
+                        .writeValueAsBytes(usersService.getAllByBirthDateRange(startDate, endDate)));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsersByBirthdateRange(@RequestParam LocalDate startDate, @RequestParam LocalDate endDate,
+                                                                             @RequestParam(required = false) String fields,
+                                                                             ServletWebRequest request) {
+        validateDateRange(startDate, endDate);
+        UserProjection projection = UserProjection.parse(fields);
+        if (notModified(request, startDate, endDate, "ndjson"))
+            return null;
+
+        return streamed(MediaType.APPLICATION_NDJSON, startDate, endDate,
+                outputStream -> new NdjsonUsersWriter(objectMapper, outputStream, projection));
+    }
+
+    @GetMapping(produces = CborSequenceUsersWriter.MEDIA_TYPE_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsersByBirthdateRangeAsCbor(@RequestParam LocalDate startDate, @RequestParam LocalDate endDate,
+                                                                                   @RequestParam(required = false) String fields,
+                                                                                   ServletWebRequest request) {
+        validateDateRange(startDate, endDate);
+        UserProjection projection = UserProjection.parse(fields);
+        if (notModified(request, startDate, endDate, "cbor-seq"))
+            return null;
+
+        return streamed(CborSequenceUsersWriter.MEDIA_TYPE, startDate, endDate,
+                outputStream -> new CborSequenceUsersWriter(outputStream, projection));
+    }
+
+    @GetMapping(params = "limit")
+    public ResponseEntity<MappingJacksonValue> getUsersPageByBirthdateRange(@RequestParam LocalDate startDate, @RequestParam LocalDate endDate,
+                                                                            @RequestParam int limit, @RequestParam(required = false) String cursor,
+                                                                            @RequestParam(required = false) String fields,
+                                                                            ServletWebRequest request) throws HttpMediaTypeNotAcceptableException {
+        validateDateRange(startDate, endDate);
+        UserProjection projection = UserProjection.parse(fields);
+        if (limit < 1 || limit > MAX_PAGE_SIZE)
             throw new ValidationFailedException(
-                    List.of(new ErrorDescription(400, "Start date (%s) should be earlier than end date (%s)".formatted(startDate, endDate)))
+                    List.of(new ErrorDescription(400, "Limit (%s) should be between 1 and %s".formatted(limit, MAX_PAGE_SIZE)))
             );
+        if (notModified(request, startDate, endDate, negotiatedRepresentation(request)))
+            return null;
 
-        return ResponseEntity.ok(usersService.getAllByBirthDateRange(startDate, endDate));
+        return ResponseEntity.ok(projected(
+                usersService.getPageByBirthDateRange(startDate, endDate, cursor == null ? null : PageCursor.decode(cursor), limit),
+                projection
+        ));
     }
 
     @PostMapping
@@ -48,22 +145,127 @@ public class UsersController {
                 .build();
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<DataContainerDTO<List<BatchItemResultDTO>>> createUsers(@RequestBody DataContainerDTO<List<UserInfoDTO>> usersInfo) {
+        validateDataContainer(usersInfo);
+        validateBatchSize(usersInfo.data());
+
+        return ResponseEntity.ok(new DataContainerDTO<>(usersService.createNewUsers(usersInfo.data())));
+    }
+
+    /**
+     * The ETag of the user names its version; {@code If-Match} on PUT and PATCH makes the update conditional on it.
+     */
+    @GetMapping("/{userId}")
+    public ResponseEntity<DataContainerDTO<Users>> getUserById(@PathVariable Long userId) {
+        Users user = usersService.getUserById(userId);
+        return ResponseEntity.ok()
+                .eTag(ETags.user(user.getVersion()))
+                .body(new DataContainerDTO<>(user));
+    }
+
+    @GetMapping("/by-email/{email}")
+    public ResponseEntity<DataContainerDTO<Users>> getUserByEmail(@PathVariable String email) {
+        Users user = usersService.getUserByEmail(email);
+        return ResponseEntity.ok()
+                .eTag(ETags.user(user.getVersion()))
+                .body(new DataContainerDTO<>(user));
+    }
+
+    /**
+     * Searches users by the words of their first and last names, tolerating typos; see
+     * {@link com.clear.solutions.user_restful.storage.UsersStorage#searchByName} for the ranking.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<MappingJacksonValue> searchUsersByName(@RequestParam String q, @RequestParam(defaultValue = "20") int limit,
+                                                                 @RequestParam(required = false) String fields) {
+        UserProjection projection = UserProjection.parse(fields);
+        if (q.isBlank())
+            throw new ValidationFailedException(List.of(new ErrorDescription(400, "Search query should not be blank")));
+        if (limit < 1 || limit > MAX_SEARCH_RESULTS)
+            throw new ValidationFailedException(
+                    List.of(new ErrorDescription(400, "Limit (%s) should be between 1 and %s".formatted(limit, MAX_SEARCH_RESULTS)))
+            );
+
+        return ResponseEntity.ok(projected(usersService.searchByName(q, limit), projection));
+    }
+
+    /**
+     * Lists users having their birthday within the window, which may span the turn of a year but must be
+     * shorter than a year; with {@code age}, only users turning that age. See
+     * {@link com.clear.solutions.user_restful.storage.UsersStorage#getAllByAnniversaryRange} for February 29.
+     */
+    @GetMapping("/anniversaries")
+    public ResponseEntity<MappingJacksonValue> getUsersByAnniversaryRange(@RequestParam LocalDate startDate, @RequestParam LocalDate endDate,
+                                                                          @RequestParam(required = false) Integer age,
+                                                                          @RequestParam(required = false) String fields) {
+        validateDateRange(startDate, endDate);
+        UserProjection projection = UserProjection.parse(fields);
+        if (!endDate.isBefore(startDate.plusYears(1)))
+            throw new ValidationFailedException(
+                    List.of(new ErrorDescription(400, "Anniversary window from %s to %s should be shorter than a year".formatted(startDate, endDate)))
+            );
+        if (age != null && age < 1)
+            throw new ValidationFailedException(List.of(new ErrorDescription(400, "Age (%s) should be positive".formatted(age))));
+
+        return ResponseEntity.ok(projected(usersService.getAllByAnniversaryRange(startDate, endDate, age), projection));
+    }
+
+    /**
+     * Counts users born within the range without reading them.
+     */
+    @GetMapping("/count")
+    public ResponseEntity<DataContainerDTO<Long>> countUsersByBirthdateRange(@RequestParam LocalDate startDate, @RequestParam LocalDate endDate) {
+        validateDateRange(startDate, endDate);
+
+        return ResponseEntity.ok(usersService.countByBirthDateRange(startDate, endDate));
+    }
+
+    /**
+     * Counts users born within the range by year, month or age cohort of {@code cohortYears} ages, one count
+     * per bucket; see {@link HistogramGranularity}.
+     */
+    @GetMapping("/histogram")
+    public ResponseEntity<DataContainerDTO<List<HistogramBucketDTO>>> getBirthdateHistogram(@RequestParam LocalDate startDate, @RequestParam LocalDate endDate,
+                                                                                           @RequestParam String bucket,
+                                                                                           @RequestParam(defaultValue = "10") int cohortYears) {
+        validateDateRange(startDate, endDate);
+        HistogramGranularity granularity = HistogramGranularity.parse(bucket);
+        if (cohortYears < 1 || cohortYears > MAX_COHORT_YEARS)
+            throw new ValidationFailedException(
+                    List.of(new ErrorDescription(400, "Cohort years (%s) should be between 1 and %s".formatted(cohortYears, MAX_COHORT_YEARS)))
+            );
+
+        return ResponseEntity.ok(usersService.getBirthDateHistogram(startDate, endDate, granularity, cohortYears));
+    }
+
     @PatchMapping("/{userId}")
-    public ResponseEntity<Void> partialUserUpdate(@PathVariable Long userId, @RequestBody DataContainerDTO<UserInfoDTO> partialUserInfo) {
+    public ResponseEntity<Void> partialUserUpdate(@PathVariable Long userId, @RequestBody DataContainerDTO<UserInfoDTO> partialUserInfo,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         validateDataContainer(partialUserInfo);
         validatePartialUserData(partialUserInfo.data());
 
-        usersService.partialUpdateUserData(userId, partialUserInfo.data());
-        return ResponseEntity.ok().build();
+        long version = usersService.partialUpdateUserData(userId, partialUserInfo.data(), ETags.expectedUserVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.user(version)).build();
+    }
+
+    @PatchMapping("/batch")
+    public ResponseEntity<DataContainerDTO<List<BatchItemResultDTO>>> partialUsersUpdate(@RequestBody DataContainerDTO<List<UserPatchDTO>> patches,
+                                                                                       @RequestParam(defaultValue = "false") boolean atomic) {
+        validateDataContainer(patches);
+        validateBatchSize(patches.data());
+
+        return ResponseEntity.ok(new DataContainerDTO<>(usersService.partialUpdateUsers(patches.data(), atomic)));
     }
 
     @PutMapping("/{userId}")
-    public ResponseEntity<Void> fullUserUpdate(@PathVariable Long userId, @RequestBody DataContainerDTO<UserInfoDTO> userInfo) {
+    public ResponseEntity<Void> fullUserUpdate(@PathVariable Long userId, @RequestBody DataContainerDTO<UserInfoDTO> userInfo,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
         validateDataContainer(userInfo);
         validateAllUserData(userInfo.data());
 
-        usersService.updateAllUserData(userId, userInfo.data());
-        return ResponseEntity.ok().build();
+        long version = usersService.updateAllUserData(userId, userInfo.data(), ETags.expectedUserVersion(ifMatch));
+        return ResponseEntity.ok().eTag(ETags.user(version)).build();
     }
 
     @DeleteMapping("/{userId}")
@@ -71,4 +273,77 @@ public class UsersController {
         usersService.deleteUserById(userId);
         return ResponseEntity.noContent().build();
     }
+
+    @DeleteMapping("/batch")
+    public ResponseEntity<DataContainerDTO<List<BatchItemResultDTO>>> deleteUsersByIds(@RequestBody DataContainerDTO<List<Long>> userIds,
+                                                                                     @RequestParam(defaultValue = "false") boolean atomic) {
+        validateDataContainer(userIds);
+        validateBatchSize(userIds.data());
+
+        return ResponseEntity.ok(new DataContainerDTO<>(usersService.deleteUsersByIds(userIds.data(), atomic)));
+    }
+
+    @DeleteMapping
+    public ResponseEntity<DataContainerDTO<List<BatchItemResultDTO>>> deleteUsersByBirthdateRange(@RequestParam LocalDate startDate, @RequestParam LocalDate endDate) {
+        validateDateRange(startDate, endDate);
+
+        return ResponseEntity.ok(new DataContainerDTO<>(usersService.deleteAllByBirthDateRange(startDate, endDate)));
+    }
+
+    private ResponseEntity<StreamingResponseBody> streamed(MediaType mediaType, LocalDate startDate, LocalDate endDate,
+                                                           StreamWriterFactory writerFactory) {
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .body(outputStream -> {
+                    UsersStreamWriter writer = writerFactory.open(outputStream);
+                    usersService.streamAllByBirthDateRange(startDate, endDate, writer);
+                    writer.finish();
+                });
+    }
+
+    /**
+     * Attaches the projection to the body; the user serializers apply it while writing.
+     */
+    private static MappingJacksonValue projected(Object body, UserProjection projection) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(projection.asFilterProvider());
+        return value;
+    }
+
+    /**
+     * Names the representation a negotiated response will have: {@link #JSON_REPRESENTATION} if JSON is the
+     * preferred type, otherwise the preferred type itself.
+     */
+    private String negotiatedRepresentation(ServletWebRequest request) throws HttpMediaTypeNotAcceptableException {
+        List<MediaType> acceptable = contentNegotiationManager.resolveMediaTypes(request);
+        if (acceptable.isEmpty() || acceptable.get(0).includes(MediaType.APPLICATION_JSON))
+            return JSON_REPRESENTATION;
+        return acceptable.get(0).getType() + "-" + acceptable.get(0).getSubtype();
+    }
+
+    /**
+     * Sets the strong ETag of the range in the given representation and tells whether the client already
+     * has it, in which case the response is a 304 and nothing is read from the storage.
+     */
+    private boolean notModified(ServletWebRequest request, LocalDate startDate, LocalDate endDate, String representation) {
+        if (request.getResponse() != null)
+            request.getResponse().setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return request.checkNotModified(ETags.range(usersService.getBirthDateRangeGeneration(startDate, endDate), representation));
+    }
+
+    private static void validateBatchSize(List<?> items) {
+        if (items.isEmpty() || items.size() > MAX_BATCH_SIZE)
+            throw new ValidationFailedException(BATCH_SIZE_ERRORS);
+    }
+
+    private static void validateDateRange(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate))
+            throw new ValidationFailedException(
+                    List.of(new ErrorDescription(400, "Start date (%s) should be earlier than end date (%s)".formatted(startDate, endDate)))
+            );
+    }
+
+    private interface StreamWriterFactory {
+        UsersStreamWriter open(OutputStream outputStream) throws IOException;
+    }
 }
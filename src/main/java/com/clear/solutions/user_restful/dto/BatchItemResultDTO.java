@@ -0,0 +1,46 @@
+package com.clear.solutions.user_restful.dto;
+
+import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorDescription;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BatchItemResultDTO(
+        Long id,
+        BatchItemStatus status,
+        List<ErrorDescription> errors
+) {
+
+    public static BatchItemResultDTO created(Long id) {
+        return new BatchItemResultDTO(id, BatchItemStatus.CREATED, null);
+    }
+
+    public static BatchItemResultDTO updated(Long id) {
+        return new BatchItemResultDTO(id, BatchItemStatus.UPDATED, null);
+    }
+
+    public static BatchItemResultDTO deleted(Long id) {
+        return new BatchItemResultDTO(id, BatchItemStatus.DELETED, null);
+    }
+
+    public static BatchItemResultDTO notFound(Long id) {
+        return new BatchItemResultDTO(id, BatchItemStatus.NOT_FOUND, null);
+    }
+
+    public static BatchItemResultDTO notApplied(Long id) {
+        return new BatchItemResultDTO(id, BatchItemStatus.NOT_APPLIED, null);
+    }
+
+    public static BatchItemResultDTO conflict(Long id, List<ErrorDescription> errors) {
+        return new BatchItemResultDTO(id, BatchItemStatus.CONFLICT, errors);
+    }
+
+    public static BatchItemResultDTO invalid(List<ErrorDescription> errors) {
+        return invalid(null, errors);
+    }
+
+    public static BatchItemResultDTO invalid(Long id, List<ErrorDescription> errors) {
+        return new BatchItemResultDTO(id, BatchItemStatus.INVALID, errors);
+    }
+}
@@ -0,0 +1,17 @@
+package com.clear.solutions.user_restful.dto;
+
+public enum BatchItemStatus {
+    CREATED,
+    UPDATED,
+    DELETED,
+    NOT_FOUND,
+    INVALID,
+    /**
+     * The item would give a user an email another user has.
+     */
+    CONFLICT,
+    /**
+     * The item was fine, but an all-or-nothing batch was rejected because of other items.
+     */
+    NOT_APPLIED
+}
@@ -0,0 +1,19 @@
+package com.clear.solutions.user_restful.dto;
+
+import java.time.LocalDate;
+
+/**
+ * Number of users born within [startDate, endDate]; the key names the bucket, e.g. {@code 1990},
+ * {@code 1990-05} or {@code 30-39}.
+ */
+public record HistogramBucketDTO(
+        String key,
+        LocalDate startDate,
+        LocalDate endDate,
+        long count
+) {
+
+    public HistogramBucketDTO withCount(long count) {
+        return new HistogramBucketDTO(key, startDate, endDate, count);
+    }
+}
@@ -0,0 +1,101 @@
+package com.clear.solutions.user_restful.dto;
+
+import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorDescription;
+import com.clear.solutions.user_restful.exceptions.ValidationFailedException;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * How a birth-date histogram splits its range into buckets. Buckets at the ends of the range are cut to it.
+ */
+public enum HistogramGranularity {
+    YEAR,
+    MONTH,
+    /**
+     * Cohorts of users whose age in full years, as of a given day, falls within a span of ages.
+     */
+    AGE;
+
+    public static final int MAX_BUCKETS = 1000;
+
+    public static HistogramGranularity parse(String name) {
+        for (HistogramGranularity granularity : values()) {
+            if (granularity.name().equalsIgnoreCase(name.strip()))
+                return granularity;
+        }
+        throw new ValidationFailedException(List.of(new ErrorDescription(400,
+                "'bucket' parameter should be one of %s".formatted(Arrays.stream(values()).map(HistogramGranularity::key).toList()))));
+    }
+
+    /**
+     * Splits [startDate, endDate] into empty buckets, ordered by birth date or, for {@link #AGE}, from the
+     * youngest cohort to the oldest.
+     *
+     * @param cohortYears number of ages in an {@link #AGE} bucket
+     * @param today       the day ages are taken on
+     * @throws ValidationFailedException if there would be more than {@value #MAX_BUCKETS} buckets
+     */
+    public List<HistogramBucketDTO> split(LocalDate startDate, LocalDate endDate, int cohortYears, LocalDate today) {
+        List<HistogramBucketDTO> buckets = new ArrayList<>();
+        switch (this) {
+            case YEAR -> {
+                checkBucketCount((long) endDate.getYear() - startDate.getYear() + 1);
+                for (int year = startDate.getYear(); year <= endDate.getYear(); year++)
+                    buckets.add(bucket(String.valueOf(year), LocalDate.of(year, 1, 1), LocalDate.of(year, 12, 31), startDate, endDate));
+            }
+            case MONTH -> {
+                YearMonth first = YearMonth.from(startDate);
+                YearMonth last = YearMonth.from(endDate);
+                checkBucketCount(12L * (last.getYear() - first.getYear()) + last.getMonthValue() - first.getMonthValue() + 1);
+                for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1))
+                    buckets.add(bucket(month.toString(), month.atDay(1), month.atEndOfMonth(), startDate, endDate));
+            }
+            case AGE -> {
+                // the youngest users of the range were born on its end date, the oldest on its start date
+                int youngest = ageOn(endDate, today);
+                int oldest = ageOn(startDate, today);
+                checkBucketCount((long) oldest / cohortYears - youngest / cohortYears + 1);
+                for (int cohort = youngest / cohortYears; cohort <= oldest / cohortYears; cohort++) {
+                    int fromAge = cohort * cohortYears;
+                    int toAge = fromAge + cohortYears - 1;
+                    // born after the day one would turn toAge + 1, at the latest on the day one turns fromAge
+                    LocalDate from = today.minusYears(toAge + 1L).plusDays(1);
+                    LocalDate to = today.minusYears(fromAge);
+                    buckets.add(bucket(fromAge + "-" + toAge, from, to, startDate, endDate));
+                }
+            }
+        }
+        return buckets;
+    }
+
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Age by {@link LocalDate#minusYears} arithmetic, like the minimum age rule: February 29 birthdays are
+     * reached on March 1 in years that are not leap years.
+     */
+    private static int ageOn(LocalDate birthDate, LocalDate today) {
+        if (birthDate.isAfter(today))
+            return 0;
+        int age = Period.between(birthDate, today).getYears();
+        return birthDate.isAfter(today.minusYears(age)) ? age - 1 : age;
+    }
+
+    private static HistogramBucketDTO bucket(String key, LocalDate from, LocalDate to, LocalDate startDate, LocalDate endDate) {
+        return new HistogramBucketDTO(key, from.isBefore(startDate) ? startDate : from, to.isAfter(endDate) ? endDate : to, 0);
+    }
+
+    private static void checkBucketCount(long bucketCount) {
+        if (bucketCount > MAX_BUCKETS)
+            throw new ValidationFailedException(List.of(new ErrorDescription(400,
+                    "Histogram would have %s buckets, at most %s are allowed".formatted(bucketCount, MAX_BUCKETS))));
+    }
+}
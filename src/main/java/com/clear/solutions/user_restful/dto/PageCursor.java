@@ -0,0 +1,57 @@
+package com.clear.solutions.user_restful.dto;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorBodies;
+import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorDescription;
+import com.clear.solutions.user_restful.exceptions.ValidationFailedException;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Position of the last user returned in a page of a birth-date range query.
+ * Clients receive it as an opaque URL-safe token and pass it back unchanged to get the next page.
+ */
+public record PageCursor(
+        LocalDate birthDate,
+        long userId
+) {
+
+    private static final int ENCODED_BYTES = 2 * Long.BYTES;
+    private static final List<ErrorDescription> MALFORMED_CURSOR_ERRORS =
+            List.of(ErrorBodies.fixed(400, "'cursor' parameter is malformed"));
+
+    public static PageCursor after(Users user) {
+        return new PageCursor(user.getBirthDate(), user.getId());
+    }
+
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_BYTES)
+                .putLong(birthDate.toEpochDay())
+                .putLong(userId);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    public static PageCursor decode(String cursor) {
+        byte[] bytes;
+        try {
+            bytes = Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw malformedCursor();
+        }
+        if (bytes.length != ENCODED_BYTES)
+            throw malformedCursor();
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long epochDay = buffer.getLong();
+        if (epochDay < LocalDate.MIN.toEpochDay() || epochDay > LocalDate.MAX.toEpochDay())
+            throw malformedCursor();
+        return new PageCursor(LocalDate.ofEpochDay(epochDay), buffer.getLong());
+    }
+
+    private static ValidationFailedException malformedCursor() {
+        return new ValidationFailedException(MALFORMED_CURSOR_ERRORS);
+    }
+}
@@ -0,0 +1,6 @@
+package com.clear.solutions.user_restful.dto;
+
+public record PagedDataContainerDTO<T>(
+        T data,
+        String next
+){}
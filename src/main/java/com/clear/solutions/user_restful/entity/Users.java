@@ -1,6 +1,8 @@
 package com.clear.solutions.user_restful.entity;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.time.LocalDate;
 import java.util.Objects;
 
@@ -12,6 +14,17 @@ public class Users {
         this.id = id;
     }
 
+    public Users(Users other) {
+        this.id = other.id;
+        this.email = other.email;
+        this.firstName = other.firstName;
+        this.lastName = other.lastName;
+        this.birthDate = other.birthDate;
+        this.address = other.address;
+        this.phoneNumber = other.phoneNumber;
+        this.version = other.version;
+    }
+
     private Long id;
     private String email;
     private String firstName;
@@ -19,6 +32,8 @@ public class Users {
     private LocalDate birthDate;
     private String address;
     private String phoneNumber;
+    // counts the changes of the user, exposed as its ETag rather than in the body
+    private long version;
 
     public Long getId() {
         return id;
@@ -76,6 +91,16 @@ public class Users {
         this.phoneNumber = phoneNumber;
     }
 
+    @JsonIgnore
+    public long getVersion() {
+        return version;
+    }
+
+    @JsonIgnore
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
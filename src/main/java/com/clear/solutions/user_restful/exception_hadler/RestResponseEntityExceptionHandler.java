@@ -1,42 +1,58 @@
 package com.clear.solutions.user_restful.exception_hadler;
 
-import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorContainer;
+import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorBodies;
 import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorDescription;
+import com.clear.solutions.user_restful.exceptions.EmailAlreadyExistsException;
 import com.clear.solutions.user_restful.exceptions.IncorrectRequestException;
 import com.clear.solutions.user_restful.exceptions.NotSupportedAgeException;
 import com.clear.solutions.user_restful.exceptions.UserNotFoundException;
+import com.clear.solutions.user_restful.exceptions.UserVersionMismatchException;
 import com.clear.solutions.user_restful.exceptions.ValidationFailedException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
-import java.util.List;
-
+/**
+ * Answers rejected requests with an {@link com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorContainer}
+ * body. Bodies are written by {@link ErrorBodies} rather than by the message converters, so errors with a fixed
+ * message are answered with bytes prepared in advance.
+ */
 @RestControllerAdvice
 public class RestResponseEntityExceptionHandler {
 
-    @ResponseStatus(HttpStatus.NOT_FOUND)
     @ExceptionHandler(UserNotFoundException.class)
-    protected ErrorContainer<ErrorDescription> handleUsersNotFound(UserNotFoundException e) {
-        return new ErrorContainer<>(new ErrorDescription(404, e.getMessage()));
+    protected ResponseEntity<byte[]> handleUsersNotFound(UserNotFoundException e) {
+        return errorResponse(HttpStatus.NOT_FOUND, ErrorBodies.of(new ErrorDescription(404, e.getMessage())));
+    }
+
+    @ExceptionHandler(UserVersionMismatchException.class)
+    protected ResponseEntity<byte[]> handleUserVersionMismatch(UserVersionMismatchException e) {
+        return errorResponse(HttpStatus.PRECONDITION_FAILED, ErrorBodies.of(new ErrorDescription(412, e.getMessage())));
+    }
+
+    @ExceptionHandler(EmailAlreadyExistsException.class)
+    protected ResponseEntity<byte[]> handleEmailAlreadyExists(EmailAlreadyExistsException e) {
+        return errorResponse(HttpStatus.CONFLICT, ErrorBodies.of(new ErrorDescription(409, e.getMessage())));
     }
 
-    @ResponseStatus(HttpStatus.METHOD_NOT_ALLOWED)
     @ExceptionHandler(IncorrectRequestException.class)
-    protected ErrorContainer<ErrorDescription> handlePatchRequestInsteadOfPut(IncorrectRequestException e) {
-        return new ErrorContainer<>(new ErrorDescription(405, e.getMessage()));
+    protected ResponseEntity<byte[]> handlePatchRequestInsteadOfPut(IncorrectRequestException e) {
+        return errorResponse(HttpStatus.METHOD_NOT_ALLOWED, ErrorBodies.of(new ErrorDescription(405, e.getMessage())));
     }
 
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(NotSupportedAgeException.class)
-    protected ErrorContainer<ErrorDescription> handleUnsupportedUserAge(NotSupportedAgeException e) {
-        return new ErrorContainer<>(new ErrorDescription(400, e.getMessage()));
+    protected ResponseEntity<byte[]> handleUnsupportedUserAge(NotSupportedAgeException e) {
+        return errorResponse(HttpStatus.BAD_REQUEST, ErrorBodies.of(new ErrorDescription(400, e.getMessage())));
     }
 
-    @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ExceptionHandler(ValidationFailedException.class)
-    protected ErrorContainer<List<ErrorDescription>> handleValidationProblems(ValidationFailedException e) {
-        return new ErrorContainer<>(e.getErrorResponses());
+    protected ResponseEntity<byte[]> handleValidationProblems(ValidationFailedException e) {
+        return errorResponse(HttpStatus.BAD_REQUEST, ErrorBodies.of(e.getErrorResponses()));
+    }
+
+    private static ResponseEntity<byte[]> errorResponse(HttpStatus status, byte[] body) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(body);
     }
 }
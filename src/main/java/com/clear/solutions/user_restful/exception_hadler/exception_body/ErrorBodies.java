@@ -0,0 +1,93 @@
+package com.clear.solutions.user_restful.exception_hadler.exception_body;
+
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Writes {@link ErrorContainer} bodies straight to JSON bytes, in the same shape Jackson produces for them.
+ * <p>
+ * Errors with a fixed message are registered once through {@link #fixed(int, String)} and their JSON is kept,
+ * so rejecting a request with them only copies bytes. Other errors are encoded on every call.
+ */
+public final class ErrorBodies {
+
+    private static final byte[] SINGLE_PREFIX = ascii("{\"errors\":");
+    private static final byte[] LIST_PREFIX = ascii("{\"errors\":[");
+    private static final byte[] SINGLE_SUFFIX = ascii("}");
+    private static final byte[] LIST_SUFFIX = ascii("]}");
+    private static final byte[] EMPTY_LIST = ascii("{\"errors\":[]}");
+
+    // only registered errors are kept, messages built from request data would make the map grow without bound
+    private static final Map<ErrorDescription, byte[]> FIXED_ERRORS = new ConcurrentHashMap<>();
+
+    private ErrorBodies() {
+    }
+
+    /**
+     * Creates an error with a message that never changes and keeps its JSON for later responses.
+     */
+    public static ErrorDescription fixed(int statusCode, String detail) {
+        ErrorDescription error = new ErrorDescription(statusCode, detail);
+        FIXED_ERRORS.putIfAbsent(error, encode(error));
+        return error;
+    }
+
+    /**
+     * Returns {@code {"errors":{...}}}.
+     */
+    public static byte[] of(ErrorDescription error) {
+        byte[] encoded = encoded(error);
+        byte[] body = new byte[SINGLE_PREFIX.length + encoded.length + SINGLE_SUFFIX.length];
+        System.arraycopy(SINGLE_PREFIX, 0, body, 0, SINGLE_PREFIX.length);
+        System.arraycopy(encoded, 0, body, SINGLE_PREFIX.length, encoded.length);
+        System.arraycopy(SINGLE_SUFFIX, 0, body, SINGLE_PREFIX.length + encoded.length, SINGLE_SUFFIX.length);
+        return body;
+    }
+
+    /**
+     * Returns {@code {"errors":[...]}}.
+     */
+    public static byte[] of(List<ErrorDescription> errors) {
+        if (errors.isEmpty())
+            return EMPTY_LIST.clone();
+
+        byte[][] encoded = new byte[errors.size()][];
+        int length = LIST_PREFIX.length + LIST_SUFFIX.length + errors.size() - 1;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = encoded(errors.get(i));
+            length += encoded[i].length;
+        }
+
+        byte[] body = new byte[length];
+        System.arraycopy(LIST_PREFIX, 0, body, 0, LIST_PREFIX.length);
+        int position = LIST_PREFIX.length;
+        for (int i = 0; i < encoded.length; i++) {
+            if (i > 0)
+                body[position++] = ',';
+            System.arraycopy(encoded[i], 0, body, position, encoded[i].length);
+            position += encoded[i].length;
+        }
+        System.arraycopy(LIST_SUFFIX, 0, body, position, LIST_SUFFIX.length);
+        return body;
+    }
+
+    private static byte[] encoded(ErrorDescription error) {
+        byte[] encoded = FIXED_ERRORS.get(error);
+        return encoded != null ? encoded : encode(error);
+    }
+
+    private static byte[] encode(ErrorDescription error) {
+        String detail = error.detail() == null
+                ? "null"
+                : '"' + new String(JsonStringEncoder.getInstance().quoteAsString(error.detail())) + '"';
+        return ("{\"statusCode\":" + error.statusCode() + ",\"detail\":" + detail + "}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
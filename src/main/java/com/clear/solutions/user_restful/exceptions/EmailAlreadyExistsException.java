@@ -0,0 +1,8 @@
+package com.clear.solutions.user_restful.exceptions;
+
+public class EmailAlreadyExistsException extends RejectionException {
+
+    public EmailAlreadyExistsException(String email) {
+        super("User with email " + email + " already exists");
+    }
+}
@@ -1,6 +1,6 @@
 package com.clear.solutions.user_restful.exceptions;
 
-public class IncorrectRequestException extends RuntimeException {
+public class IncorrectRequestException extends RejectionException {
 
     public IncorrectRequestException(String message) {
         super(message);
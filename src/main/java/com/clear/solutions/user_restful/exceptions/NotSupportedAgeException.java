@@ -1,6 +1,6 @@
 package com.clear.solutions.user_restful.exceptions;
 
-public class NotSupportedAgeException extends RuntimeException {
+public class NotSupportedAgeException extends RejectionException {
 
     public NotSupportedAgeException(String message) {
         super(message);
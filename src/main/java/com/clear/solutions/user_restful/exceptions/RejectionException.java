@@ -0,0 +1,12 @@
+package com.clear.solutions.user_restful.exceptions;
+
+/**
+ * Base of the exceptions a request is rejected with. They are part of normal operation and are answered with
+ * an error body, never logged, so they are created without a stack trace.
+ */
+public abstract class RejectionException extends RuntimeException {
+
+    protected RejectionException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -1,8 +1,12 @@
 package com.clear.solutions.user_restful.exceptions;
 
-public class UserNotFoundException extends RuntimeException {
+public class UserNotFoundException extends RejectionException {
 
-    public UserNotFoundException(String message) {
-        super(message);
+    public UserNotFoundException(Long userId) {
+        super("User with identifier " + userId + " wasn't found");
+    }
+
+    public UserNotFoundException(String email) {
+        super("User with email " + email + " wasn't found");
     }
 }
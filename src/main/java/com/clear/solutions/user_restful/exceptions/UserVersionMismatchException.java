@@ -0,0 +1,8 @@
+package com.clear.solutions.user_restful.exceptions;
+
+public class UserVersionMismatchException extends RejectionException {
+
+    public UserVersionMismatchException(Long userId) {
+        super("User with identifier " + userId + " was changed since the version given in If-Match");
+    }
+}
@@ -4,11 +4,12 @@ import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorDes
 
 import java.util.List;
 
-public class ValidationFailedException extends RuntimeException {
+public class ValidationFailedException extends RejectionException {
 
     private final List<ErrorDescription> errorResponses;
 
     public ValidationFailedException(List<ErrorDescription> errorResponses) {
+        super(null);
         this.errorResponses = errorResponses;
     }
 
@@ -0,0 +1,49 @@
+package com.clear.solutions.user_restful.serialization;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * CBOR ({@code application/cbor}) and Smile ({@code application/x-jackson-smile}) request and response bodies.
+ * <p>
+ * Spring adds converters for both formats on its own once they are on the classpath, but their mappers miss
+ * the application's Jackson setup: ISO dates and the hand-written codecs. They are replaced by converters whose
+ * mappers come from the application's {@link Jackson2ObjectMapperBuilder}. The converters stay behind the JSON
+ * one, so JSON remains the default for clients that accept anything.
+ */
+@Configuration(proxyBeanMethods = false)
+public class BinaryFormatsConfiguration implements WebMvcConfigurer {
+
+    private final ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilders;
+
+    public BinaryFormatsConfiguration(ObjectProvider<Jackson2ObjectMapperBuilder> objectMapperBuilders) {
+        this.objectMapperBuilders = objectMapperBuilders;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        replaceOrAdd(converters, new MappingJackson2CborHttpMessageConverter(
+                objectMapperBuilders.getObject().factory(new CBORFactory()).build()));
+        replaceOrAdd(converters, new MappingJackson2SmileHttpMessageConverter(
+                objectMapperBuilders.getObject().factory(new SmileFactory()).build()));
+    }
+
+    private static void replaceOrAdd(List<HttpMessageConverter<?>> converters, HttpMessageConverter<?> converter) {
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i).getClass() == converter.getClass()) {
+                converters.set(i, converter);
+                return;
+            }
+        }
+        converters.add(converter);
+    }
+}
@@ -0,0 +1,23 @@
+package com.clear.solutions.user_restful.serialization;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes users as a CBOR sequence (RFC 8742): CBOR items back to back, one per user, the binary counterpart
+ * of newline-delimited JSON.
+ */
+public class CborSequenceUsersWriter extends UsersStreamWriter {
+
+    public static final String MEDIA_TYPE_VALUE = "application/cbor-seq";
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(MEDIA_TYPE_VALUE);
+
+    private static final CBORFactory CBOR_FACTORY = new CBORFactory();
+
+    public CborSequenceUsersWriter(OutputStream outputStream, UserProjection projection) throws IOException {
+        super(CBOR_FACTORY, outputStream, projection);
+    }
+}
@@ -0,0 +1,105 @@
+package com.clear.solutions.user_restful.serialization;
+
+import com.clear.solutions.user_restful.dto.DataContainerDTO;
+import com.clear.solutions.user_restful.entity.Users;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.BeanProperty;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.ContextualDeserializer;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.clear.solutions.user_restful.serialization.UserJsonFields.DATA;
+
+/**
+ * JSON codec of {@link DataContainerDTO}.
+ * <p>
+ * Users and lists of users, the bulk of every range response, are written by {@link UsersJson.Serializer}
+ * without looking up a serializer per element. The deserializer resolves the serializer of its content type
+ * once, when Jackson contextualizes it for a target type, instead of on every request.
+ */
+@JsonComponent
+public class DataContainerJson {
+
+    public static class Serializer extends JsonSerializer<DataContainerDTO<?>> {
+
+        @Override
+        public void serialize(DataContainerDTO<?> container, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(container);
+            generator.writeFieldName(DATA);
+            writeContent(container.data(), generator, provider);
+            generator.writeEndObject();
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<DataContainerDTO<?>> implements ContextualDeserializer {
+
+        private final JsonDeserializer<Object> contentDeserializer;
+
+        public Deserializer() {
+            this(null);
+        }
+
+        private Deserializer(JsonDeserializer<Object> contentDeserializer) {
+            this.contentDeserializer = contentDeserializer;
+        }
+
+        @Override
+        public JsonDeserializer<?> createContextual(DeserializationContext context, BeanProperty property) throws JsonMappingException {
+            JavaType type = property != null ? property.getType() : context.getContextualType();
+            JavaType contentType = type != null ? type.containedTypeOrUnknown(0) : context.constructType(Object.class);
+            return new Deserializer(context.findContextualValueDeserializer(contentType, property));
+        }
+
+        @Override
+        public DataContainerDTO<?> deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartObjectToken())
+                return (DataContainerDTO<?>) context.handleUnexpectedToken(DataContainerDTO.class, parser);
+
+            Object data = null;
+            for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+                JsonToken token = parser.nextToken();
+                if (!"data".equals(field))
+                    context.handleUnknownProperty(parser, this, DataContainerDTO.class, field);
+                else
+                    data = token == JsonToken.VALUE_NULL
+                            ? contentDeserializer.getNullValue(context)
+                            : contentDeserializer.deserialize(parser, context);
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT)
+                return (DataContainerDTO<?>) context.handleUnexpectedToken(DataContainerDTO.class, parser);
+            return new DataContainerDTO<>(data);
+        }
+    }
+
+    /**
+     * Writes the content of a container, taking the direct path for users and lists of them. The projection
+     * is looked up once for the whole list.
+     */
+    static void writeContent(Object content, JsonGenerator generator, SerializerProvider provider) throws IOException {
+        if (content instanceof Users user) {
+            UsersJson.Serializer.write(user, generator, UserProjection.of(provider));
+        } else if (content instanceof List<?> list) {
+            UserProjection projection = UserProjection.of(provider);
+            generator.writeStartArray(list, list.size());
+            for (Object element : list) {
+                if (element instanceof Users user)
+                    UsersJson.Serializer.write(user, generator, projection);
+                else
+                    provider.defaultSerializeValue(element, generator);
+            }
+            generator.writeEndArray();
+        } else {
+            provider.defaultSerializeValue(content, generator);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.clear.solutions.user_restful.serialization;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Writes users as newline-delimited JSON, one line per user.
+ */
+public class NdjsonUsersWriter extends UsersStreamWriter {
+
+    public NdjsonUsersWriter(ObjectMapper objectMapper, OutputStream outputStream) throws IOException {
+        this(objectMapper, outputStream, UserProjection.ALL);
+    }
+
+    /**
+     * Writes only the fields the projection includes.
+     */
+    public NdjsonUsersWriter(ObjectMapper objectMapper, OutputStream outputStream, UserProjection projection) throws IOException {
+        super(objectMapper.getFactory(), outputStream, projection);
+    }
+
+    @Override
+    protected void afterUser() throws IOException {
+        generator.writeRaw('\n');
+    }
+}
@@ -0,0 +1,32 @@
+package com.clear.solutions.user_restful.serialization;
+
+import com.clear.solutions.user_restful.dto.PagedDataContainerDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+import static com.clear.solutions.user_restful.serialization.UserJsonFields.DATA;
+import static com.clear.solutions.user_restful.serialization.UserJsonFields.NEXT;
+
+/**
+ * JSON serializer of {@link PagedDataContainerDTO}, writing its content like {@link DataContainerJson}.
+ */
+@JsonComponent
+public class PagedDataContainerJson {
+
+    public static class Serializer extends JsonSerializer<PagedDataContainerDTO<?>> {
+
+        @Override
+        public void serialize(PagedDataContainerDTO<?> container, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(container);
+            generator.writeFieldName(DATA);
+            DataContainerJson.writeContent(container.data(), generator, provider);
+            generator.writeFieldName(NEXT);
+            generator.writeString(container.next());
+            generator.writeEndObject();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.clear.solutions.user_restful.serialization;
+
+import com.clear.solutions.user_restful.dto.UserInfoDTO;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+import java.time.LocalDate;
+
+import static com.clear.solutions.user_restful.serialization.UserJsonFields.*;
+
+/**
+ * JSON codec of {@link UserInfoDTO} that works on the token stream directly. Unknown fields are handled as
+ * configured on the object mapper, missing ones are left {@code null}.
+ */
+@JsonComponent
+public class UserInfoJson {
+
+    public static class Serializer extends JsonSerializer<UserInfoDTO> {
+
+        @Override
+        public void serialize(UserInfoDTO user, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(user);
+            generator.writeFieldName(EMAIL);
+            generator.writeString(user.email());
+            generator.writeFieldName(FIRST_NAME);
+            generator.writeString(user.firstName());
+            generator.writeFieldName(LAST_NAME);
+            generator.writeString(user.lastName());
+            generator.writeFieldName(BIRTH_DATE);
+            writeBirthDate(generator, user.birthDate());
+            generator.writeFieldName(ADDRESS);
+            generator.writeString(user.address());
+            generator.writeFieldName(PHONE_NUMBER);
+            generator.writeString(user.phoneNumber());
+            generator.writeEndObject();
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<UserInfoDTO> {
+
+        @Override
+        public UserInfoDTO deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartObjectToken())
+                return (UserInfoDTO) context.handleUnexpectedToken(UserInfoDTO.class, parser);
+
+            String email = null, firstName = null, lastName = null, address = null, phoneNumber = null;
+            LocalDate birthDate = null;
+            for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+                parser.nextToken();
+                switch (field) {
+                    case "email" -> email = readString(parser, context);
+                    case "firstName" -> firstName = readString(parser, context);
+                    case "lastName" -> lastName = readString(parser, context);
+                    case "birthDate" -> birthDate = readBirthDate(parser, context);
+                    case "address" -> address = readString(parser, context);
+                    case "phoneNumber" -> phoneNumber = readString(parser, context);
+                    default -> context.handleUnknownProperty(parser, this, UserInfoDTO.class, field);
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT)
+                return (UserInfoDTO) context.handleUnexpectedToken(UserInfoDTO.class, parser);
+            return new UserInfoDTO(email, firstName, lastName, birthDate, address, phoneNumber);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.clear.solutions.user_restful.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Field names and value codecs shared by the hand-written user serializers.
+ * <p>
+ * Values of the expected JSON type take a fast path; anything else is handed to the regular Jackson
+ * deserializer of the target type, so coercions and error messages stay the same as without these codecs.
+ */
+final class UserJsonFields {
+
+    static final SerializableString ID = new SerializedString("id");
+    static final SerializableString EMAIL = new SerializedString("email");
+    static final SerializableString FIRST_NAME = new SerializedString("firstName");
+    static final SerializableString LAST_NAME = new SerializedString("lastName");
+    static final SerializableString BIRTH_DATE = new SerializedString("birthDate");
+    static final SerializableString ADDRESS = new SerializedString("address");
+    static final SerializableString PHONE_NUMBER = new SerializedString("phoneNumber");
+    static final SerializableString DATA = new SerializedString("data");
+    static final SerializableString NEXT = new SerializedString("next");
+
+    // "yyyy-MM-dd" with the quotes, written as a raw value to JSON
+    private static final int QUOTED_DATE_LENGTH = 12;
+    private static final ThreadLocal<char[]> DATE_BUFFER = ThreadLocal.withInitial(() -> new char[QUOTED_DATE_LENGTH]);
+
+    private UserJsonFields() {
+    }
+
+    /**
+     * Writes the date as an ISO {@code yyyy-MM-dd} string. Years outside 0-9999 need a sign or more digits
+     * and go through {@link LocalDate#toString()}.
+     */
+    static void writeBirthDate(JsonGenerator generator, LocalDate birthDate) throws IOException {
+        if (birthDate == null) {
+            generator.writeNull();
+            return;
+        }
+        int year = birthDate.getYear();
+        if (year < 0 || year > 9999) {
+            generator.writeString(birthDate.toString());
+            return;
+        }
+
+        char[] buffer = DATE_BUFFER.get();
+        buffer[0] = '"';
+        writeDigits(buffer, 1, year, 4);
+        buffer[5] = '-';
+        writeDigits(buffer, 6, birthDate.getMonthValue(), 2);
+        buffer[8] = '-';
+        writeDigits(buffer, 9, birthDate.getDayOfMonth(), 2);
+        buffer[11] = '"';
+        // binary formats have no raw text values, they get the same chars as a regular string
+        if (generator.canWriteBinaryNatively())
+            generator.writeString(buffer, 1, QUOTED_DATE_LENGTH - 2);
+        else
+            generator.writeRawValue(buffer, 0, QUOTED_DATE_LENGTH);
+    }
+
+    private static void writeDigits(char[] buffer, int offset, int value, int digits) {
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+    }
+
+    /**
+     * Reads the value the parser has just advanced to as a date. A {@code yyyy-MM-dd} string is parsed from
+     * the parser buffer directly.
+     */
+    static LocalDate readBirthDate(JsonParser parser, DeserializationContext context) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL)
+            return null;
+        if (parser.currentToken() != JsonToken.VALUE_STRING || parser.getTextLength() != QUOTED_DATE_LENGTH - 2)
+            return context.readValue(parser, LocalDate.class);
+
+        char[] text = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        int year = readDigits(text, offset, 4);
+        int month = readDigits(text, offset + 5, 2);
+        int day = readDigits(text, offset + 8, 2);
+        if (year < 0 || month < 0 || day < 0 || text[offset + 4] != '-' || text[offset + 7] != '-')
+            return context.readValue(parser, LocalDate.class);
+
+        try {
+            return LocalDate.of(year, month, day);
+        } catch (DateTimeException e) {
+            throw context.weirdStringException(parser.getText(), LocalDate.class, e.getMessage());
+        }
+    }
+
+    private static int readDigits(char[] text, int offset, int digits) {
+        int value = 0;
+        for (int i = offset; i < offset + digits; i++) {
+            int digit = text[i] - '0';
+            if (digit < 0 || digit > 9)
+                return -1;
+            value = 10 * value + digit;
+        }
+        return value;
+    }
+
+    static String readString(JsonParser parser, DeserializationContext context) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NULL -> null;
+            default -> context.readValue(parser, String.class);
+        };
+    }
+
+    static Long readLong(JsonParser parser, DeserializationContext context) throws IOException {
+        return switch (parser.currentToken()) {
+            case VALUE_NUMBER_INT -> parser.getLongValue();
+            case VALUE_NULL -> null;
+            default -> context.readValue(parser, Long.class);
+        };
+    }
+}
@@ -0,0 +1,103 @@
+package com.clear.solutions.user_restful.serialization;
+
+import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorDescription;
+import com.clear.solutions.user_restful.exceptions.ValidationFailedException;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.BeanPropertyWriter;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.PropertyFilter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+
+import java.util.List;
+
+/**
+ * Subset of {@link com.clear.solutions.user_restful.entity.Users} fields a response is projected to, as asked
+ * by the {@code fields} query parameter.
+ * <p>
+ * The projection is a Jackson property filter: it reaches the serializers through the filter provider of the
+ * write, see {@link #asFilterProvider()}. The hand-written user serializers look it up once per response and
+ * skip the dropped fields while writing, entities are not copied.
+ */
+public final class UserProjection extends SimpleBeanPropertyFilter {
+
+    public static final String FILTER_ID = "userProjection";
+
+    private static final List<String> FIELD_NAMES =
+            List.of("id", "email", "firstName", "lastName", "birthDate", "address", "phoneNumber");
+
+    static final int ID = 1;
+    static final int EMAIL = 1 << 1;
+    static final int FIRST_NAME = 1 << 2;
+    static final int LAST_NAME = 1 << 3;
+    static final int BIRTH_DATE = 1 << 4;
+    static final int ADDRESS = 1 << 5;
+    static final int PHONE_NUMBER = 1 << 6;
+
+    public static final UserProjection ALL = new UserProjection((1 << FIELD_NAMES.size()) - 1);
+
+    private final int fields;
+
+    private UserProjection(int fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Parses a comma-separated list of field names; {@code null} stands for all fields.
+     *
+     * @throws ValidationFailedException if the list is empty or names a field users do not have
+     */
+    public static UserProjection parse(String fieldList) {
+        if (fieldList == null)
+            return ALL;
+
+        int fields = 0;
+        for (String name : fieldList.split(",")) {
+            int index = FIELD_NAMES.indexOf(name.strip());
+            if (index < 0)
+                throw new ValidationFailedException(List.of(new ErrorDescription(400,
+                        "'fields' parameter contains unknown field '%s', available fields are %s".formatted(name.strip(), FIELD_NAMES))));
+            fields |= 1 << index;
+        }
+        return fields == ALL.fields ? ALL : new UserProjection(fields);
+    }
+
+    /**
+     * Returns the projection of the write the provider serves, or {@link #ALL} if there is none.
+     */
+    public static UserProjection of(SerializerProvider provider) {
+        FilterProvider filters = provider.getConfig().getFilterProvider();
+        PropertyFilter filter = filters == null ? null : filters.findPropertyFilter(FILTER_ID, null);
+        return filter instanceof UserProjection projection ? projection : ALL;
+    }
+
+    public FilterProvider asFilterProvider() {
+        return new SimpleFilterProvider().addFilter(FILTER_ID, this);
+    }
+
+    boolean includes(int field) {
+        return (fields & field) != 0;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof UserProjection projection && projection.fields == fields;
+    }
+
+    @Override
+    public int hashCode() {
+        return fields;
+    }
+
+    @Override
+    protected boolean include(BeanPropertyWriter writer) {
+        return include((PropertyWriter) writer);
+    }
+
+    @Override
+    protected boolean include(PropertyWriter writer) {
+        int index = FIELD_NAMES.indexOf(writer.getName());
+        return index < 0 || includes(1 << index);
+    }
+}
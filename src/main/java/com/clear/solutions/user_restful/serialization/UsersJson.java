@@ -0,0 +1,98 @@
+package com.clear.solutions.user_restful.serialization;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import org.springframework.boot.jackson.JsonComponent;
+
+import java.io.IOException;
+
+import static com.clear.solutions.user_restful.serialization.UserJsonFields.*;
+
+/**
+ * JSON codec of {@link Users} that works on the token stream directly, with the same output as the bean
+ * serializer: every field in declaration order, nulls included. The serializer honours the
+ * {@link UserProjection} of the write.
+ */
+@JsonComponent
+public class UsersJson {
+
+    public static class Serializer extends JsonSerializer<Users> {
+
+        @Override
+        public void serialize(Users user, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            write(user, generator, UserProjection.of(provider));
+        }
+
+        /**
+         * Writes the fields of the user the projection includes.
+         */
+        static void write(Users user, JsonGenerator generator, UserProjection projection) throws IOException {
+            generator.writeStartObject(user);
+            if (projection.includes(UserProjection.ID)) {
+                generator.writeFieldName(ID);
+                if (user.getId() == null)
+                    generator.writeNull();
+                else
+                    generator.writeNumber(user.getId());
+            }
+            if (projection.includes(UserProjection.EMAIL)) {
+                generator.writeFieldName(EMAIL);
+                generator.writeString(user.getEmail());
+            }
+            if (projection.includes(UserProjection.FIRST_NAME)) {
+                generator.writeFieldName(FIRST_NAME);
+                generator.writeString(user.getFirstName());
+            }
+            if (projection.includes(UserProjection.LAST_NAME)) {
+                generator.writeFieldName(LAST_NAME);
+                generator.writeString(user.getLastName());
+            }
+            if (projection.includes(UserProjection.BIRTH_DATE)) {
+                generator.writeFieldName(BIRTH_DATE);
+                writeBirthDate(generator, user.getBirthDate());
+            }
+            if (projection.includes(UserProjection.ADDRESS)) {
+                generator.writeFieldName(ADDRESS);
+                generator.writeString(user.getAddress());
+            }
+            if (projection.includes(UserProjection.PHONE_NUMBER)) {
+                generator.writeFieldName(PHONE_NUMBER);
+                generator.writeString(user.getPhoneNumber());
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    public static class Deserializer extends JsonDeserializer<Users> {
+
+        @Override
+        public Users deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+            if (!parser.isExpectedStartObjectToken())
+                return (Users) context.handleUnexpectedToken(Users.class, parser);
+
+            Users user = new Users();
+            for (String field = parser.nextFieldName(); field != null; field = parser.nextFieldName()) {
+                parser.nextToken();
+                switch (field) {
+                    case "id" -> user.setId(readLong(parser, context));
+                    case "email" -> user.setEmail(readString(parser, context));
+                    case "firstName" -> user.setFirstName(readString(parser, context));
+                    case "lastName" -> user.setLastName(readString(parser, context));
+                    case "birthDate" -> user.setBirthDate(readBirthDate(parser, context));
+                    case "address" -> user.setAddress(readString(parser, context));
+                    case "phoneNumber" -> user.setPhoneNumber(readString(parser, context));
+                    default -> context.handleUnknownProperty(parser, this, Users.class, field);
+                }
+            }
+            if (parser.currentToken() != JsonToken.END_OBJECT)
+                return (Users) context.handleUnexpectedToken(Users.class, parser);
+            return user;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.clear.solutions.user_restful.serialization;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * Writes users as a sequence of top-level values, one per user, straight to the output stream.
+ * <p>
+ * Only the generator buffer is kept in memory, so streaming any number of users uses constant heap.
+ * The underlying stream is flushed on {@link #finish()} but never closed.
+ */
+public abstract class UsersStreamWriter implements Consumer<Users> {
+
+    protected final JsonGenerator generator;
+    private final UserProjection projection;
+
+    protected UsersStreamWriter(JsonFactory factory, OutputStream outputStream, UserProjection projection) throws IOException {
+        this.generator = factory.createGenerator(outputStream)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.projection = projection;
+    }
+
+    @Override
+    public void accept(Users user) {
+        try {
+            UsersJson.Serializer.write(user, generator, projection);
+            afterUser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes whatever the format puts between two users.
+     */
+    protected void afterUser() throws IOException {
+    }
+
+    public void finish() throws IOException {
+        generator.close();
+    }
+}
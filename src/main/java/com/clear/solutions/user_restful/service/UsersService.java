@@ -1,21 +1,76 @@
 package com.clear.solutions.user_restful.service;
 
+import com.clear.solutions.user_restful.dto.BatchItemResultDTO;
 import com.clear.solutions.user_restful.dto.DataContainerDTO;
+import com.clear.solutions.user_restful.dto.HistogramBucketDTO;
+import com.clear.solutions.user_restful.dto.HistogramGranularity;
+import com.clear.solutions.user_restful.dto.PageCursor;
+import com.clear.solutions.user_restful.dto.PagedDataContainerDTO;
 import com.clear.solutions.user_restful.dto.UserInfoDTO;
+import com.clear.solutions.user_restful.dto.UserPatchDTO;
 import com.clear.solutions.user_restful.entity.Users;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UsersService {
 
     DataContainerDTO<List<Users>> getAllByBirthDateRange(LocalDate startDate, LocalDate endDate);
 
+    void streamAllByBirthDateRange(LocalDate startDate, LocalDate endDate, Consumer<Users> consumer);
+
+    PagedDataContainerDTO<List<Users>> getPageByBirthDateRange(LocalDate startDate, LocalDate endDate, PageCursor cursor, int limit);
+
+    /**
+     * Returns the storage modification generation of the birth-date range; it changes whenever a user in
+     * the range is created, changed or deleted.
+     */
+    long getBirthDateRangeGeneration(LocalDate startDate, LocalDate endDate);
+
     Long createNewUser(UserInfoDTO userInfoDTO);
 
-    void updateAllUserData(Long userId, UserInfoDTO newUserInfo);
+    List<BatchItemResultDTO> createNewUsers(List<UserInfoDTO> userInfoDTOs);
+
+    Users getUserById(Long userId);
+
+    Users getUserByEmail(String email);
+
+    /**
+     * Returns up to {@code limit} users whose names match the query words, best matches first.
+     */
+    DataContainerDTO<List<Users>> searchByName(String query, int limit);
+
+    /**
+     * Returns users whose birthday falls within [startDate, endDate], turning {@code age} on it unless it is null.
+     */
+    DataContainerDTO<List<Users>> getAllByAnniversaryRange(LocalDate startDate, LocalDate endDate, Integer age);
 
-    void partialUpdateUserData(Long userId, UserInfoDTO partialUserInfo);
+    DataContainerDTO<Long> countByBirthDateRange(LocalDate startDate, LocalDate endDate);
+
+    /**
+     * Counts users born within [startDate, endDate] in every bucket of the granularity, ages taken as of today.
+     */
+    DataContainerDTO<List<HistogramBucketDTO>> getBirthDateHistogram(LocalDate startDate, LocalDate endDate,
+                                                                     HistogramGranularity granularity, int cohortYears);
+
+    /**
+     * @param expectedVersion version the user must still have for the update to apply, {@code null} for any
+     * @return the version of the user after the update
+     */
+    long updateAllUserData(Long userId, UserInfoDTO newUserInfo, Long expectedVersion);
+
+    /**
+     * @param expectedVersion version the user must still have for the update to apply, {@code null} for any
+     * @return the version of the user after the update
+     */
+    long partialUpdateUserData(Long userId, UserInfoDTO partialUserInfo, Long expectedVersion);
+
+    List<BatchItemResultDTO> partialUpdateUsers(List<UserPatchDTO> patches, boolean allOrNothing);
 
     void deleteUserById(Long id);
+
+    List<BatchItemResultDTO> deleteUsersByIds(List<Long> userIds, boolean allOrNothing);
+
+    List<BatchItemResultDTO> deleteAllByBirthDateRange(LocalDate startDate, LocalDate endDate);
 }
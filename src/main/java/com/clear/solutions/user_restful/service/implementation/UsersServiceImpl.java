@@ -1,65 +1,224 @@
 package com.clear.solutions.user_restful.service.implementation;
 
+import com.clear.solutions.user_restful.dto.BatchItemResultDTO;
 import com.clear.solutions.user_restful.dto.DataContainerDTO;
+import com.clear.solutions.user_restful.dto.HistogramBucketDTO;
+import com.clear.solutions.user_restful.dto.HistogramGranularity;
+import com.clear.solutions.user_restful.dto.PageCursor;
+import com.clear.solutions.user_restful.dto.PagedDataContainerDTO;
 import com.clear.solutions.user_restful.dto.UserInfoDTO;
+import com.clear.solutions.user_restful.dto.UserPatchDTO;
 import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorDescription;
+import com.clear.solutions.user_restful.exceptions.EmailAlreadyExistsException;
 import com.clear.solutions.user_restful.exceptions.NotSupportedAgeException;
 import com.clear.solutions.user_restful.exceptions.UserNotFoundException;
+import com.clear.solutions.user_restful.exceptions.UserVersionMismatchException;
 import com.clear.solutions.user_restful.mapper.UsersMapper;
 import com.clear.solutions.user_restful.service.UsersService;
+import com.clear.solutions.user_restful.storage.ConditionalUpdate;
+import com.clear.solutions.user_restful.storage.DuplicateEmailException;
+import com.clear.solutions.user_restful.storage.UsersPatch;
 import com.clear.solutions.user_restful.storage.UsersStorage;
+import com.clear.solutions.user_restful.util.UsersValidationUtil;
+import com.clear.solutions.user_restful.util.validation.RuleSet;
+import com.clear.solutions.user_restful.util.validation.UserRules;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 @Service
 public class UsersServiceImpl implements UsersService {
 
-    public UsersServiceImpl(UsersStorage userStorage, UsersMapper usersMapper) {
+    public UsersServiceImpl(UsersStorage userStorage, UsersMapper usersMapper,
+                            @Value("${user.minimal.age}") int minimumRegistrationAge) {
         this.userStorage = userStorage;
         this.usersMapper = usersMapper;
+        this.minimumAgeRules = new RuleSet(UserRules.minimumAge(minimumRegistrationAge));
     }
 
     private final UsersStorage userStorage;
     private final UsersMapper usersMapper;
-
-    @Value("${user.minimal.age}")
-    private int minimumRegistrationAge;
+    private final RuleSet minimumAgeRules;
 
     @Override
     public DataContainerDTO<List<Users>> getAllByBirthDateRange(LocalDate startDate, LocalDate endDate) {
         return new DataContainerDTO<>(userStorage.getAllByBirthDateRange(startDate, endDate));
     }
 
+    @Override
+    public void streamAllByBirthDateRange(LocalDate startDate, LocalDate endDate, Consumer<Users> consumer) {
+        userStorage.forEachByBirthDateRange(startDate, endDate, consumer);
+    }
+
+    @Override
+    public PagedDataContainerDTO<List<Users>> getPageByBirthDateRange(LocalDate startDate, LocalDate endDate, PageCursor cursor, int limit) {
+        // one extra user tells whether another page exists without a separate query
+        List<Users> users = cursor == null
+                ? userStorage.getPageByBirthDateRange(startDate, endDate, null, 0, limit + 1)
+                : userStorage.getPageByBirthDateRange(startDate, endDate, cursor.birthDate(), cursor.userId(), limit + 1);
+
+        if (users.size() <= limit)
+            return new PagedDataContainerDTO<>(users, null);
+
+        List<Users> page = users.subList(0, limit);
+        return new PagedDataContainerDTO<>(page, PageCursor.after(page.get(limit - 1)).encode());
+    }
+
+    @Override
+    public long getBirthDateRangeGeneration(LocalDate startDate, LocalDate endDate) {
+        return userStorage.getModificationGeneration(startDate, endDate);
+    }
+
     @Override
     public Long createNewUser(UserInfoDTO userInfoDTO) {
-        checkUserBirthDateValidity(userInfoDTO.birthDate());
+        checkUserBirthDateValidity(userInfoDTO);
 
-        return userStorage.addNewUser(
-                usersMapper.usersDtoToEntity(userInfoDTO)
-        );
+        try {
+            return userStorage.addNewUser(
+                    usersMapper.usersDtoToEntity(userInfoDTO)
+            );
+        } catch (DuplicateEmailException e) {
+            throw new EmailAlreadyExistsException(userInfoDTO.email());
+        }
     }
 
     @Override
-    public void updateAllUserData(Long userId, UserInfoDTO newUserInfo) {
-        Users user = getUserFromStorage(userId);
-        checkUserBirthDateValidity(newUserInfo.birthDate());
+    public List<BatchItemResultDTO> createNewUsers(List<UserInfoDTO> userInfoDTOs) {
+        List<BatchItemResultDTO> results = new ArrayList<>(userInfoDTOs.size());
+        List<Users> usersToAdd = new ArrayList<>(userInfoDTOs.size());
+        List<Integer> positionsToAdd = new ArrayList<>(userInfoDTOs.size());
+
+        for (int i = 0; i < userInfoDTOs.size(); i++) {
+            UserInfoDTO userInfoDTO = userInfoDTOs.get(i);
+            List<ErrorDescription> errors = collectUserDataErrors(userInfoDTO);
+            if (errors.isEmpty()) {
+                usersToAdd.add(usersMapper.usersDtoToEntity(userInfoDTO));
+                positionsToAdd.add(i);
+                results.add(null);
+            } else {
+                results.add(BatchItemResultDTO.invalid(errors));
+            }
+        }
 
-        userStorage.updateUserData(user, newUserInfo.email(), newUserInfo.firstName(), newUserInfo.lastName(),
-                newUserInfo.birthDate(), newUserInfo.address(), newUserInfo.phoneNumber());
+        // a rejected add changes nothing, so the users with duplicate emails are reported and the rest retried
+        while (true) {
+            try {
+                Iterator<Long> createdIds = userStorage.addNewUsers(usersToAdd).iterator();
+                positionsToAdd.forEach(position -> results.set(position, BatchItemResultDTO.created(createdIds.next())));
+                return results;
+            } catch (DuplicateEmailException e) {
+                for (int i = e.getPositions().size() - 1; i >= 0; i--) {
+                    int conflict = e.getPositions().get(i);
+                    results.set(positionsToAdd.remove(conflict), emailConflict(null, usersToAdd.remove(conflict).getEmail()));
+                }
+            }
+        }
     }
 
     @Override
-    public void partialUpdateUserData(Long userId, UserInfoDTO partialUserInfo) {
-        Users user = getUserFromStorage(userId);
-        if (partialUserInfo.birthDate() != null)
-            checkUserBirthDateValidity(partialUserInfo.birthDate());
+    public Users getUserById(Long userId) {
+        return getUserFromStorage(userId);
+    }
 
-        userStorage.updateUserData(user, partialUserInfo.email(), partialUserInfo.firstName(), partialUserInfo.lastName(),
-                partialUserInfo.birthDate(), partialUserInfo.address(), partialUserInfo.phoneNumber());
+    @Override
+    public Users getUserByEmail(String email) {
+        return userStorage.getUserByEmail(email)
+                .orElseThrow(() -> new UserNotFoundException(email));
+    }
+
+    @Override
+    public DataContainerDTO<List<Users>> searchByName(String query, int limit) {
+        return new DataContainerDTO<>(userStorage.searchByName(query, limit));
+    }
+
+    @Override
+    public DataContainerDTO<List<Users>> getAllByAnniversaryRange(LocalDate startDate, LocalDate endDate, Integer age) {
+        return new DataContainerDTO<>(userStorage.getAllByAnniversaryRange(startDate, endDate, age));
+    }
+
+    @Override
+    public DataContainerDTO<Long> countByBirthDateRange(LocalDate startDate, LocalDate endDate) {
+        return new DataContainerDTO<>(userStorage.countByBirthDateRange(startDate, endDate));
+    }
+
+    @Override
+    public DataContainerDTO<List<HistogramBucketDTO>> getBirthDateHistogram(LocalDate startDate, LocalDate endDate,
+                                                                            HistogramGranularity granularity, int cohortYears) {
+        return new DataContainerDTO<>(granularity.split(startDate, endDate, cohortYears, LocalDate.now()).stream()
+                .map(bucket -> bucket.withCount(userStorage.countByBirthDateRange(bucket.startDate(), bucket.endDate())))
+                .toList());
+    }
+
+    @Override
+    public long updateAllUserData(Long userId, UserInfoDTO newUserInfo, Long expectedVersion) {
+        checkUserBirthDateValidity(newUserInfo);
+
+        return updateUserData(userId, newUserInfo, expectedVersion);
+    }
+
+    @Override
+    public long partialUpdateUserData(Long userId, UserInfoDTO partialUserInfo, Long expectedVersion) {
+        checkUserBirthDateValidity(partialUserInfo);
+
+        return updateUserData(userId, partialUserInfo, expectedVersion);
+    }
+
+    @Override
+    public List<BatchItemResultDTO> partialUpdateUsers(List<UserPatchDTO> patches, boolean allOrNothing) {
+        BatchItemResultDTO[] results = new BatchItemResultDTO[patches.size()];
+        List<UsersPatch> validPatches = new ArrayList<>(patches.size());
+        List<Integer> validPositions = new ArrayList<>(patches.size());
+
+        for (int i = 0; i < patches.size(); i++) {
+            UserPatchDTO patch = patches.get(i);
+            List<ErrorDescription> errors = collectPatchErrors(patch);
+            if (errors.isEmpty()) {
+                validPatches.add(toStoragePatch(patch));
+                validPositions.add(i);
+            } else {
+                results[i] = BatchItemResultDTO.invalid(patch == null ? null : patch.id(), errors);
+            }
+        }
+
+        if (allOrNothing && validPatches.size() < patches.size()) {
+            validPositions.forEach(position -> results[position] = BatchItemResultDTO.notApplied(patches.get(position).id()));
+            return Arrays.asList(results);
+        }
+
+        List<Users> updatedUsers;
+        while (true) {
+            try {
+                updatedUsers = userStorage.updateUsersData(validPatches, allOrNothing);
+                break;
+            } catch (DuplicateEmailException e) {
+                for (int i = e.getPositions().size() - 1; i >= 0; i--) {
+                    int conflict = e.getPositions().get(i);
+                    UsersPatch patch = validPatches.remove(conflict);
+                    results[validPositions.remove(conflict)] = emailConflict(patch.userId(), patch.email());
+                }
+                if (allOrNothing) {
+                    validPositions.forEach(position -> results[position] = BatchItemResultDTO.notApplied(patches.get(position).id()));
+                    return Arrays.asList(results);
+                }
+                // nothing was applied, the patches without duplicate emails are retried
+            }
+        }
+        boolean applied = !allOrNothing || updatedUsers.stream().allMatch(Objects::nonNull);
+        for (int i = 0; i < validPatches.size(); i++) {
+            Long userId = validPatches.get(i).userId();
+            results[validPositions.get(i)] = updatedUsers.get(i) == null
+                    ? BatchItemResultDTO.notFound(userId)
+                    : applied ? BatchItemResultDTO.updated(userId) : BatchItemResultDTO.notApplied(userId);
+        }
+        return Arrays.asList(results);
     }
 
     @Override
@@ -67,13 +226,105 @@ public class UsersServiceImpl implements UsersService {
         userStorage.removeUser(userId);
     }
 
-    private void checkUserBirthDateValidity(LocalDate userBirthDate) {
-        if (ChronoUnit.YEARS.between(userBirthDate, LocalDate.now()) < minimumRegistrationAge)
-            throw new NotSupportedAgeException("Application works with users whose age is %s+".formatted(minimumRegistrationAge));
+    @Override
+    public List<BatchItemResultDTO> deleteUsersByIds(List<Long> userIds, boolean allOrNothing) {
+        BatchItemResultDTO[] results = new BatchItemResultDTO[userIds.size()];
+        List<Long> validIds = new ArrayList<>(userIds.size());
+        List<Integer> validPositions = new ArrayList<>(userIds.size());
+
+        for (int i = 0; i < userIds.size(); i++) {
+            if (userIds.get(i) == null) {
+                results[i] = BatchItemResultDTO.invalid(List.of(new ErrorDescription(400, "Batch item should be a user identifier")));
+            } else {
+                validIds.add(userIds.get(i));
+                validPositions.add(i);
+            }
+        }
+
+        if (allOrNothing && validIds.size() < userIds.size()) {
+            validPositions.forEach(position -> results[position] = BatchItemResultDTO.notApplied(userIds.get(position)));
+            return Arrays.asList(results);
+        }
+
+        List<Users> removedUsers = userStorage.removeUsers(validIds, allOrNothing);
+        boolean applied = !allOrNothing || removedUsers.stream().allMatch(Objects::nonNull);
+        for (int i = 0; i < validIds.size(); i++) {
+            Long userId = validIds.get(i);
+            results[validPositions.get(i)] = removedUsers.get(i) == null
+                    ? BatchItemResultDTO.notFound(userId)
+                    : applied ? BatchItemResultDTO.deleted(userId) : BatchItemResultDTO.notApplied(userId);
+        }
+        return Arrays.asList(results);
+    }
+
+    @Override
+    public List<BatchItemResultDTO> deleteAllByBirthDateRange(LocalDate startDate, LocalDate endDate) {
+        return userStorage.removeAllByBirthDateRange(startDate, endDate).stream()
+                .map(user -> BatchItemResultDTO.deleted(user.getId()))
+                .toList();
+    }
+
+    /**
+     * Passes users without a birth date, which only happens in partial updates.
+     */
+    private void checkUserBirthDateValidity(UserInfoDTO userInfoDTO) {
+        List<ErrorDescription> errors = minimumAgeRules.collectErrors(userInfoDTO);
+        if (!errors.isEmpty())
+            throw new NotSupportedAgeException(errors.get(0).detail());
+    }
+
+    private static BatchItemResultDTO emailConflict(Long userId, String email) {
+        return BatchItemResultDTO.conflict(userId, List.of(new ErrorDescription(409, new EmailAlreadyExistsException(email).getMessage())));
+    }
+
+    private List<ErrorDescription> collectUserDataErrors(UserInfoDTO userInfoDTO) {
+        if (userInfoDTO == null)
+            return List.of(new ErrorDescription(400, "Batch item should contain user data"));
+
+        List<ErrorDescription> errors = UsersValidationUtil.collectUserDataErrors(userInfoDTO);
+        return errors.isEmpty() ? minimumAgeRules.collectErrors(userInfoDTO) : errors;
+    }
+
+    private List<ErrorDescription> collectPatchErrors(UserPatchDTO patch) {
+        if (patch == null || patch.id() == null || patch.data() == null)
+            return List.of(new ErrorDescription(400, "Batch item should contain 'id' and 'data' arguments"));
+
+        List<ErrorDescription> errors = UsersValidationUtil.collectPartialUserDataErrors(patch.data());
+        return errors.isEmpty() ? minimumAgeRules.collectErrors(patch.data()) : errors;
+    }
+
+    private static UsersPatch toStoragePatch(UserPatchDTO patch) {
+        return toStoragePatch(patch.id(), patch.data());
+    }
+
+    private static UsersPatch toStoragePatch(Long userId, UserInfoDTO data) {
+        return new UsersPatch(userId, data.email(), data.firstName(), data.lastName(),
+                data.birthDate(), data.address(), data.phoneNumber());
+    }
+
+    /**
+     * Updates the user in a single compare-and-set of the storage, without reading it first.
+     */
+    private long updateUserData(Long userId, UserInfoDTO userInfo, Long expectedVersion) {
+        try {
+            if (expectedVersion == null)
+                return userStorage.updateUserData(userId, userInfo.email(), userInfo.firstName(), userInfo.lastName(),
+                                userInfo.birthDate(), userInfo.address(), userInfo.phoneNumber())
+                        .orElseThrow(() -> new UserNotFoundException(userId))
+                        .getVersion();
+
+            ConditionalUpdate update = userStorage.updateUserData(toStoragePatch(userId, userInfo), expectedVersion)
+                    .orElseThrow(() -> new UserNotFoundException(userId));
+            if (!update.applied())
+                throw new UserVersionMismatchException(userId);
+            return update.user().getVersion();
+        } catch (DuplicateEmailException e) {
+            throw new EmailAlreadyExistsException(userInfo.email());
+        }
     }
 
     private Users getUserFromStorage(Long userId) {
         return userStorage.getUserById(userId)
-                .orElseThrow(() -> new UserNotFoundException("User with identifier %s wasn't found".formatted(userId)));
+                .orElseThrow(() -> new UserNotFoundException(userId));
     }
 }
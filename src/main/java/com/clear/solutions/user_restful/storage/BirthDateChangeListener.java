@@ -0,0 +1,18 @@
+package com.clear.solutions.user_restful.storage;
+
+/**
+ * Told which birth dates a write touched, once the write is visible to readers.
+ */
+public interface BirthDateChangeListener {
+
+    BirthDateChangeListener NONE = (epochDays, count) -> {
+    };
+
+    /**
+     * Called after a commit that created, changed or removed users. The first {@code count} elements of the
+     * array are the epoch days of the affected birth dates; an update reports both the old and the new one.
+     * Days may repeat and come in no particular order. The array is still used by the storage afterwards and
+     * must be neither modified nor kept.
+     */
+    void birthDatesChanged(long[] epochDays, int count);
+}
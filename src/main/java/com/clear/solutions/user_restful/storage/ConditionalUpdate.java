@@ -0,0 +1,10 @@
+package com.clear.solutions.user_restful.storage;
+
+import com.clear.solutions.user_restful.entity.Users;
+
+/**
+ * Outcome of an update conditioned on the version of the user: the new version of the user if the update
+ * was applied, otherwise the current one.
+ */
+public record ConditionalUpdate(Users user, boolean applied) {
+}
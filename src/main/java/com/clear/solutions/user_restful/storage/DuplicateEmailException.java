@@ -0,0 +1,24 @@
+package com.clear.solutions.user_restful.storage;
+
+import java.util.List;
+
+/**
+ * Thrown by writes that would give a user the email another user already has. Nothing of such a write is
+ * applied.
+ */
+public class DuplicateEmailException extends RuntimeException {
+
+    private final List<Integer> positions;
+
+    /**
+     * @param positions positions of the offending users or patches in the list given to the write, ascending
+     */
+    public DuplicateEmailException(List<Integer> positions) {
+        super(null, null, false, false);
+        this.positions = positions;
+    }
+
+    public List<Integer> getPositions() {
+        return positions;
+    }
+}
@@ -0,0 +1,46 @@
+package com.clear.solutions.user_restful.storage;
+
+import com.clear.solutions.user_restful.entity.Users;
+
+import java.time.LocalDate;
+
+/**
+ * Changes to apply to one stored user. Null fields keep their current value.
+ */
+public record UsersPatch(
+        long userId,
+        String email,
+        String firstName,
+        String lastName,
+        LocalDate birthDate,
+        String address,
+        String phoneNumber
+) {
+
+    /**
+     * Returns a copy of the user with every non-null field of the patch applied and the next version.
+     */
+    public Users applyTo(Users currentUser) {
+        Users updatedUser = new Users(currentUser);
+        updatedUser.setVersion(currentUser.getVersion() + 1);
+        if (email != null)
+            updatedUser.setEmail(email);
+
+        if (firstName != null)
+            updatedUser.setFirstName(firstName);
+
+        if (lastName != null)
+            updatedUser.setLastName(lastName);
+
+        if (birthDate != null)
+            updatedUser.setBirthDate(birthDate);
+
+        if (address != null)
+            updatedUser.setAddress(address);
+
+        if (phoneNumber != null)
+            updatedUser.setPhoneNumber(phoneNumber);
+
+        return updatedUser;
+    }
+}
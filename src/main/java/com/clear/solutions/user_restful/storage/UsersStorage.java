@@ -1,63 +1,138 @@
 package com.clear.solutions.user_restful.storage;
 
 import com.clear.solutions.user_restful.entity.Users;
-import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
-@Component
-public class UsersStorage {
+/**
+ * In-memory store of {@link Users}.
+ * <p>
+ * Implementations must be safe for concurrent use. Instances returned by the storage are published
+ * versions of a user and must not be modified by callers; changes go through {@link #updateUserData}.
+ * <p>
+ * Emails are unique, compared without surrounding whitespace and ignoring case. Writes that would give a user
+ * the email of another one, or the same email to two users, throw a {@link DuplicateEmailException} and
+ * change nothing.
+ */
+public interface UsersStorage {
 
-    private final List<Users> userList = new ArrayList<>();
-    private Long userIdCounter = 1L;
+    Optional<Users> getUserById(Long userId);
 
-    public Optional<Users> getUserById(Long userId) {
-        int userIndexInList = userList.indexOf(new Users(userId));
-        if (userIndexInList < 0)
-            return Optional.empty();
+    /**
+     * Looks the user up by email in constant time, ignoring surrounding whitespace and case.
+     */
+    Optional<Users> getUserByEmail(String email);
 
-        return Optional.of(userList.get(userIndexInList));
-    }
+    /**
+     * Finds up to {@code limit} users whose first or last name has a word matching the query. The longest
+     * query word ranks the results: users with a word equal to it come first, then users with a word starting
+     * with it, then users with a word one edit away, two for words of eight or more letters, the first letter
+     * included. Every other query word must match some name word of the user the same way. Results reflect the
+     * latest state of every user, not a single snapshot.
+     */
+    List<Users> searchByName(String query, int limit);
 
-    public List<Users> getAllByBirthDateRange(LocalDate startDate, LocalDate endDate) {
-        return userList.stream()
-                .filter(user -> (user.getBirthDate().isAfter(startDate) || user.getBirthDate().isEqual(startDate)) &&
-                        (user.getBirthDate().isBefore(endDate) || user.getBirthDate().isEqual(endDate)))
-                .toList();
-    }
+    List<Users> getAllByBirthDateRange(LocalDate startDate, LocalDate endDate);
 
-    public Long addNewUser(Users userToAdd) {
-        userToAdd.setId(userIdCounter);
-        userIdCounter++;
-        userList.add(userToAdd);
-        return userIdCounter;
-    }
+    /**
+     * Passes users born within [startDate, endDate] to the consumer one at a time, ordered by (birth date, id),
+     * without collecting them all in between. No user is passed twice. How writes made meanwhile show depends on
+     * the engine: the default one reads every user from a single point-in-time snapshot, the columnar one reads
+     * chunks that are each consistent on their own, so a user written during the read may be passed in its new
+     * state, or left out if its birth date moved to one already passed.
+     */
+    void forEachByBirthDateRange(LocalDate startDate, LocalDate endDate, Consumer<Users> consumer);
 
-    public void updateUserData(Users userToUpdate, String email, String firstName, String lastName,
-                                  LocalDate birthDate, String address, String phoneNumber) {
-        if (email != null)
-            userToUpdate.setEmail(email);
+    /**
+     * Returns up to {@code limit} users born within [startDate, endDate] ordered by (birth date, id),
+     * starting right after the (afterBirthDate, afterUserId) key or from the range start if afterBirthDate is null.
+     */
+    List<Users> getPageByBirthDateRange(LocalDate startDate, LocalDate endDate,
+                                        LocalDate afterBirthDate, long afterUserId, int limit);
 
-        if (firstName != null)
-            userToUpdate.setFirstName(firstName);
+    /**
+     * Returns users whose birthday falls within [startDate, endDate], a window shorter than a year that may
+     * span the turn of a year, ordered by birthday. Users born on February 29 have their birthday on March 1 in
+     * other years. If {@code age} is not null, only users turning that age on their birthday are returned. Users
+     * are read from a single point-in-time snapshot.
+     */
+    List<Users> getAllByAnniversaryRange(LocalDate startDate, LocalDate endDate, Integer age);
 
-        if(lastName != null)
-            userToUpdate.setLastName(lastName);
+    /**
+     * Counts users born within [startDate, endDate] in time logarithmic in the range length, without reading
+     * them. The count reflects the latest state of every user, not a single snapshot.
+     */
+    long countByBirthDateRange(LocalDate startDate, LocalDate endDate);
 
-        if (birthDate != null)
-            userToUpdate.setBirthDate(birthDate);
+    /**
+     * Returns the generation of the latest write, {@code 0} if nothing was written since the storage was created.
+     * Every write that changes a user takes a greater generation than all writes committed before it.
+     */
+    long getModificationGeneration();
 
-        if (address != null)
-            userToUpdate.setAddress(address);
+    /**
+     * Returns the generation of the latest write that changed a user born within [startDate, endDate], before
+     * or after the change, {@code 0} if there was none since the storage was created. A write gets its
+     * generation only once it is visible, so whatever is read from the range after this call is at least
+     * as new as the returned generation.
+     */
+    long getModificationGeneration(LocalDate startDate, LocalDate endDate);
 
-        if (phoneNumber != null)
-            userToUpdate.setPhoneNumber(phoneNumber);
-    }
+    Long addNewUser(Users userToAdd);
 
-    public void removeUser(Long userId) {
-        userList.remove(new Users(userId));
-    }
+    /**
+     * Adds all users in one step: they get a contiguous block of identifiers and become visible to readers
+     * at the same moment.
+     *
+     * @return identifiers assigned to the users, in the order of the list
+     */
+    List<Long> addNewUsers(List<Users> usersToAdd);
+
+    /**
+     * Atomically replaces the user with a copy that has every non-null argument applied.
+     *
+     * @return the new version of the user or an empty optional if there is no user with such identifier
+     */
+    Optional<Users> updateUserData(Long userId, String email, String firstName, String lastName,
+                                   LocalDate birthDate, String address, String phoneNumber);
+
+    /**
+     * Atomically replaces the user with a copy that has every non-null patch field applied, provided that the
+     * user is still at {@code expectedVersion}. Users start at version 1 and every update increments it.
+     *
+     * @return the outcome or an empty optional if there is no user with such identifier
+     */
+    Optional<ConditionalUpdate> updateUserData(UsersPatch patch, long expectedVersion);
+
+    /**
+     * Applies all patches under a single commit, so readers see either none or all of them. Patches of the
+     * same user are applied in list order.
+     *
+     * @param allOrNothing if set, nothing is changed unless every patched user exists
+     * @return for every patch the new version of its user or {@code null} if there is no such user;
+     * when nothing was applied in all-or-nothing mode, existing users are returned unchanged
+     */
+    List<Users> updateUsersData(List<UsersPatch> patches, boolean allOrNothing);
+
+    void removeUser(Long userId);
+
+    /**
+     * Removes all users under a single commit.
+     *
+     * @param allOrNothing if set, nothing is removed unless every user exists
+     * @return for every identifier the removed user or {@code null} if there is no such user
+     * (an identifier listed twice reports the same removed user);
+     * when nothing was removed in all-or-nothing mode, existing users are returned as well
+     */
+    List<Users> removeUsers(List<Long> userIds, boolean allOrNothing);
+
+    /**
+     * Removes every user born within [startDate, endDate] under a single commit.
+     *
+     * @return removed users ordered by (birth date, id)
+     */
+    List<Users> removeAllByBirthDateRange(LocalDate startDate, LocalDate endDate);
 }
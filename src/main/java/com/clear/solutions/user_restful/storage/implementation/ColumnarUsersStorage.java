@@ -0,0 +1,699 @@
+package com.clear.solutions.user_restful.storage.implementation;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.storage.BirthDateChangeListener;
+import com.clear.solutions.user_restful.storage.ConditionalUpdate;
+import com.clear.solutions.user_restful.storage.DuplicateEmailException;
+import com.clear.solutions.user_restful.storage.UsersPatch;
+import com.clear.solutions.user_restful.storage.UsersStorage;
+import com.clear.solutions.user_restful.storage.index.AnniversaryIndex;
+import com.clear.solutions.user_restful.storage.index.BirthDateCounts;
+import com.clear.solutions.user_restful.storage.index.BirthDateIndex;
+import com.clear.solutions.user_restful.storage.index.ChangeGenerations;
+import com.clear.solutions.user_restful.storage.index.EmailIndex;
+import com.clear.solutions.user_restful.storage.index.NameIndex;
+import com.clear.solutions.user_restful.storage.snapshot.SnapshotStore;
+import com.clear.solutions.user_restful.storage.wal.WriteAheadLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Compact {@link UsersStorage} keeping users in columns of primitives rather than in objects, for tens of
+ * millions of users.
+ * <p>
+ * Identifiers are dense, so the row of a user is its identifier minus one and takes no column of its own.
+ * Birth dates are an {@code int} column of epoch days and versions another one, {@code 0} marking a row without
+ * a user. The strings of a user are one record of a {@link Utf8Arena}, on the heap or off it, whose address
+ * is a {@code long} column. {@link Users} are materialized only when they are read. Emails are found through
+ * an open-addressing table of rows tagged with the email hash; range, anniversary, count and name lookups use
+ * the same indexes as {@link ConcurrentUsersStorage}.
+ * <p>
+ * All access goes through one read-write lock: readers share it and see a consistent state while they hold
+ * it, writers are serialized. There is a single version of every user, so a streamed range read materializes
+ * users in chunks of {@value #STREAM_CHUNK_SIZE} under the lock and passes them on to its consumer once the lock
+ * is released: a slow consumer never holds writers up, but the stream is no single snapshot. A user changed
+ * between two chunks is passed as it is when its chunk is read, once at most: not again if it moved to a
+ * later date after it was passed, and not at all if it moved to a date already passed. Records of changed and removed users stay in the
+ * arena as garbage until it outweighs the live records, then the live ones are copied to a new arena.
+ * <p>
+ * Birth dates must have an epoch day that fits an {@code int}, some five million years around 1970. The
+ * storage keeps no write-ahead log or snapshots.
+ */
+@Component
+@ConditionalOnProperty(name = "user.storage.engine", havingValue = "columnar")
+public class ColumnarUsersStorage implements UsersStorage {
+
+    private static final int EMAIL = 0;
+    private static final int FIRST_NAME = 1;
+    private static final int LAST_NAME = 2;
+    private static final int ADDRESS = 3;
+    private static final int PHONE_NUMBER = 4;
+    private static final int FIELD_COUNT = 5;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int STREAM_CHUNK_SIZE = 256;
+    private static final int NO_ROW = -1;
+    private static final long NO_RECORD = -1;
+    // garbage below one segment is never worth a copy of the whole arena
+    private static final long MIN_COMPACTED_GARBAGE = Utf8Arena.SEGMENT_SIZE;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AnniversaryIndex anniversaryIndex = new AnniversaryIndex();
+    private final BirthDateCounts birthDateCounts = new BirthDateCounts();
+    private final BirthDateIndex birthDateIndex = new BirthDateIndex();
+    private final ChangeGenerations changeGenerations = new ChangeGenerations();
+    private final NameIndex nameIndex = new NameIndex();
+    private final BirthDateChangeListener changeListener;
+    private Utf8Arena arena;
+    private long liveRecordBytes;
+    private int rowCount;
+    private int[] epochDays = new int[INITIAL_CAPACITY];
+    private int[] versions = new int[INITIAL_CAPACITY];
+    private long[] records = new long[INITIAL_CAPACITY];
+    // email hash in the high half, row plus one in the low half, 0 for a free slot; at most half full
+    private long[] emailSlots = new long[INITIAL_CAPACITY];
+    private int emailCount;
+
+    public ColumnarUsersStorage() {
+        this(BirthDateChangeListener.NONE, false);
+    }
+
+    /**
+     * @param offHeap whether strings are kept in direct buffers outside the heap
+     */
+    public ColumnarUsersStorage(BirthDateChangeListener changeListener, boolean offHeap) {
+        this.changeListener = changeListener;
+        this.arena = new Utf8Arena(offHeap);
+    }
+
+    @Autowired
+    public ColumnarUsersStorage(WriteAheadLog writeAheadLog, SnapshotStore snapshotStore, BirthDateChangeListener changeListener,
+                                @Value("${user.storage.columnar.off-heap}") boolean offHeap) {
+        if (writeAheadLog != WriteAheadLog.DISABLED || snapshotStore != SnapshotStore.DISABLED)
+            throw new IllegalStateException("The columnar storage keeps no write-ahead log or snapshots, disable them");
+        this.changeListener = changeListener;
+        this.arena = new Utf8Arena(offHeap);
+    }
+
+    @Override
+    public Optional<Users> getUserById(Long userId) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(userAt(rowOf(userId)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Users> getUserByEmail(String email) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(userAt(rowOfEmail(EmailIndex.normalize(email))));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Users> searchByName(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return NameSearch.search(nameIndex, query, limit, userId -> userAt(rowOf(userId)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Users> getAllByBirthDateRange(LocalDate startDate, LocalDate endDate) {
+        List<Users> usersInRange = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            birthDateIndex.forEachIdInRange(startDate, endDate, (epochDay, userId) -> usersInRange.add(userAt(rowOf(userId))));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return usersInRange;
+    }
+
+    @Override
+    public void forEachByBirthDateRange(LocalDate startDate, LocalDate endDate, Consumer<Users> consumer) {
+        long toEpochDay = endDate.toEpochDay();
+        // epoch day and identifier of the last user streamed, the next chunk starts right after it
+        long[] position = {startDate.toEpochDay(), Long.MIN_VALUE};
+        // a user moved to a later date between two chunks is met again there, identifiers are dense so a bit
+        // per row tells who was streamed already
+        BitSet streamedRows = new BitSet();
+        List<Users> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+        do {
+            chunk.clear();
+            lock.readLock().lock();
+            try {
+                birthDateIndex.forEachIdInRange(position[0], position[1], toEpochDay, (epochDay, userId) -> {
+                    position[0] = epochDay;
+                    position[1] = userId;
+                    int row = rowOf(userId);
+                    if (streamedRows.get(row))
+                        return true;
+                    streamedRows.set(row);
+                    chunk.add(userAt(row));
+                    return chunk.size() < STREAM_CHUNK_SIZE;
+                });
+            } finally {
+                lock.readLock().unlock();
+            }
+            chunk.forEach(consumer);
+        } while (chunk.size() == STREAM_CHUNK_SIZE);
+    }
+
+    @Override
+    public List<Users> getPageByBirthDateRange(LocalDate startDate, LocalDate endDate,
+                                               LocalDate afterBirthDate, long afterUserId, int limit) {
+        long fromEpochDay = startDate.toEpochDay();
+        long afterId = Long.MIN_VALUE;
+        if (afterBirthDate != null && afterBirthDate.toEpochDay() >= fromEpochDay) {
+            fromEpochDay = afterBirthDate.toEpochDay();
+            afterId = afterUserId;
+        }
+
+        List<Users> page = new ArrayList<>(limit);
+        lock.readLock().lock();
+        try {
+            birthDateIndex.forEachIdInRange(fromEpochDay, afterId, endDate.toEpochDay(), (epochDay, userId) -> {
+                page.add(userAt(rowOf(userId)));
+                return page.size() < limit;
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        return page;
+    }
+
+    @Override
+    public List<Users> getAllByAnniversaryRange(LocalDate startDate, LocalDate endDate, Integer age) {
+        List<Users> users = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            // the window spans at most two calendar years, each read on its own
+            for (int year = startDate.getYear(); year <= endDate.getYear(); year++) {
+                LocalDate from = year == startDate.getYear() ? startDate : LocalDate.of(year, 1, 1);
+                LocalDate to = year == endDate.getYear() ? endDate : LocalDate.of(year, 12, 31);
+                int anniversaryYear = year;
+                if (age == null) {
+                    anniversaryIndex.forEachIdByAnniversary(year, from, to, (day, userId) -> {
+                        // users born in that year or later have no birthday in it yet
+                        if (birthDateOf(rowOf(userId)).getYear() < anniversaryYear)
+                            users.add(userAt(rowOf(userId)));
+                    });
+                } else {
+                    // a birthday on March 1 of a year that is not a leap year may belong to a February 29 birth date
+                    birthDateIndex.forEachIdInRange(from.minusYears(age).minusDays(1), to.minusYears(age), (epochDay, userId) -> {
+                        LocalDate birthDate = LocalDate.ofEpochDay(epochDay);
+                        LocalDate birthday = AnniversaryIndex.anniversary(birthDate, anniversaryYear);
+                        if (birthDate.getYear() == anniversaryYear - age && !birthday.isBefore(from) && !birthday.isAfter(to))
+                            users.add(userAt(rowOf(userId)));
+                    });
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return users;
+    }
+
+    @Override
+    public long countByBirthDateRange(LocalDate startDate, LocalDate endDate) {
+        lock.readLock().lock();
+        try {
+            return birthDateCounts.count(startDate.toEpochDay(), endDate.toEpochDay());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long getModificationGeneration() {
+        return changeGenerations.current();
+    }
+
+    @Override
+    public long getModificationGeneration(LocalDate startDate, LocalDate endDate) {
+        return changeGenerations.max(startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    @Override
+    public Long addNewUser(Users userToAdd) {
+        return addNewUsers(List.of(userToAdd)).get(0);
+    }
+
+    @Override
+    public List<Long> addNewUsers(List<Users> usersToAdd) {
+        if (usersToAdd.isEmpty())
+            return List.of();
+
+        List<Long> userIds = new ArrayList<>(usersToAdd.size());
+        long[] changedDays = new long[usersToAdd.size()];
+        int changedDayCount = 0;
+        lock.writeLock().lock();
+        try {
+            checkNewEmails(usersToAdd);
+            for (Users user : usersToAdd)
+                checkBirthDate(user.getBirthDate());
+
+            for (Users user : usersToAdd) {
+                int row = rowCount;
+                ensureCapacity(row + 1);
+                rowCount++;
+                user.setId(row + 1L);
+                user.setVersion(1);
+                writeRow(row, user);
+                putEmail(EmailIndex.normalize(user.getEmail()), row);
+                index(null, user);
+                changedDays[changedDayCount++] = user.getBirthDate().toEpochDay();
+                userIds.add(user.getId());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        changeListener.birthDatesChanged(changedDays, changedDayCount);
+        changeGenerations.advance(changedDays, changedDayCount);
+        return userIds;
+    }
+
+    @Override
+    public Optional<Users> updateUserData(Long userId, String email, String firstName, String lastName,
+                                          LocalDate birthDate, String address, String phoneNumber) {
+        UsersPatch patch = new UsersPatch(userId, email, firstName, lastName, birthDate, address, phoneNumber);
+        return Optional.ofNullable(updateUsersData(List.of(patch), false).get(0));
+    }
+
+    @Override
+    public Optional<ConditionalUpdate> updateUserData(UsersPatch patch, long expectedVersion) {
+        List<Users> results = new ArrayList<>(1);
+        boolean applied = updateUsersData(List.of(patch), () -> {
+            Users currentUser = userAt(rowOf(patch.userId()));
+            return currentUser != null && currentUser.getVersion() == expectedVersion;
+        }, results);
+        return Optional.ofNullable(results.get(0)).map(user -> new ConditionalUpdate(user, applied));
+    }
+
+    @Override
+    public List<Users> updateUsersData(List<UsersPatch> patches, boolean allOrNothing) {
+        List<Users> results = new ArrayList<>(patches.size());
+        BooleanSupplier precondition = allOrNothing
+                ? () -> patches.stream().allMatch(patch -> userAt(rowOf(patch.userId())) != null)
+                : () -> true;
+        updateUsersData(patches, precondition, results);
+        return results;
+    }
+
+    /**
+     * Applies the patches if the precondition, checked with the write lock held, holds. Otherwise the current
+     * users are reported.
+     *
+     * @return whether the patches were applied
+     */
+    private boolean updateUsersData(List<UsersPatch> patches, BooleanSupplier precondition, List<Users> results) {
+        long[] changedDays = new long[2 * patches.size()];
+        int changedDayCount = 0;
+        lock.writeLock().lock();
+        try {
+            if (!precondition.getAsBoolean()) {
+                for (UsersPatch patch : patches)
+                    results.add(userAt(rowOf(patch.userId())));
+                return false;
+            }
+
+            checkPatchedEmails(patches);
+            for (UsersPatch patch : patches) {
+                if (patch.birthDate() != null)
+                    checkBirthDate(patch.birthDate());
+            }
+
+            for (UsersPatch patch : patches) {
+                int row = rowOf(patch.userId());
+                Users currentUser = userAt(row);
+                if (currentUser == null) {
+                    results.add(null);
+                    continue;
+                }
+
+                Users updatedUser = patch.applyTo(currentUser);
+                String previousEmail = EmailIndex.normalize(currentUser.getEmail());
+                String email = EmailIndex.normalize(updatedUser.getEmail());
+                if (!Objects.equals(previousEmail, email))
+                    removeEmail(previousEmail, row);
+                liveRecordBytes -= arena.recordSize(records[row], FIELD_COUNT);
+                writeRow(row, updatedUser);
+                if (!Objects.equals(previousEmail, email))
+                    putEmail(email, row);
+                index(currentUser, updatedUser);
+
+                changedDays[changedDayCount++] = currentUser.getBirthDate().toEpochDay();
+                changedDays[changedDayCount++] = updatedUser.getBirthDate().toEpochDay();
+                results.add(updatedUser);
+            }
+            compactIfWasteful();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        changeListener.birthDatesChanged(changedDays, changedDayCount);
+        changeGenerations.advance(changedDays, changedDayCount);
+        return true;
+    }
+
+    @Override
+    public void removeUser(Long userId) {
+        removeUsers(List.of(userId), false);
+    }
+
+    @Override
+    public List<Users> removeUsers(List<Long> userIds, boolean allOrNothing) {
+        List<Users> results = new ArrayList<>(userIds.size());
+        long[] changedDays = new long[userIds.size()];
+        int changedDayCount = 0;
+        lock.writeLock().lock();
+        try {
+            if (allOrNothing && !userIds.stream().allMatch(userId -> userAt(rowOf(userId)) != null)) {
+                for (Long userId : userIds)
+                    results.add(userAt(rowOf(userId)));
+                return results;
+            }
+
+            // the same identifier listed twice reports the same removed user
+            Map<Long, Users> removedUsers = new HashMap<>();
+            for (Long userId : userIds) {
+                Users removedUser = removedUsers.get(userId);
+                if (removedUser == null) {
+                    removedUser = removeRow(rowOf(userId));
+                    if (removedUser != null) {
+                        removedUsers.put(userId, removedUser);
+                        changedDays[changedDayCount++] = removedUser.getBirthDate().toEpochDay();
+                    }
+                }
+                results.add(removedUser);
+            }
+            compactIfWasteful();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        changeListener.birthDatesChanged(changedDays, changedDayCount);
+        changeGenerations.advance(changedDays, changedDayCount);
+        return results;
+    }
+
+    @Override
+    public List<Users> removeAllByBirthDateRange(LocalDate startDate, LocalDate endDate) {
+        List<Users> removedUsers = new ArrayList<>();
+        long[] changedDays;
+        lock.writeLock().lock();
+        try {
+            List<Long> userIds = new ArrayList<>();
+            birthDateIndex.forEachIdInRange(startDate, endDate, (epochDay, userId) -> userIds.add(userId));
+            changedDays = new long[userIds.size()];
+            for (Long userId : userIds) {
+                Users removedUser = removeRow(rowOf(userId));
+                changedDays[removedUsers.size()] = removedUser.getBirthDate().toEpochDay();
+                removedUsers.add(removedUser);
+            }
+            compactIfWasteful();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        changeListener.birthDatesChanged(changedDays, removedUsers.size());
+        changeGenerations.advance(changedDays, removedUsers.size());
+        return removedUsers;
+    }
+
+    /**
+     * Materializes the user of the row, {@code null} if the row is {@link #NO_ROW} or has no user.
+     */
+    private Users userAt(int row) {
+        if (row == NO_ROW || versions[row] == 0)
+            return null;
+
+        String[] fields = new String[FIELD_COUNT];
+        arena.read(records[row], fields);
+        Users user = new Users();
+        user.setId(row + 1L);
+        user.setEmail(fields[EMAIL]);
+        user.setFirstName(fields[FIRST_NAME]);
+        user.setLastName(fields[LAST_NAME]);
+        user.setBirthDate(birthDateOf(row));
+        user.setAddress(fields[ADDRESS]);
+        user.setPhoneNumber(fields[PHONE_NUMBER]);
+        user.setVersion(versions[row]);
+        return user;
+    }
+
+    private LocalDate birthDateOf(int row) {
+        return LocalDate.ofEpochDay(epochDays[row]);
+    }
+
+    private int rowOf(Long userId) {
+        return userId == null || userId < 1 || userId > rowCount ? NO_ROW : (int) (userId - 1);
+    }
+
+    private void writeRow(int row, Users user) {
+        long usedBytes = arena.usedBytes();
+        records[row] = arena.append(new String[]{
+                user.getEmail(), user.getFirstName(), user.getLastName(), user.getAddress(), user.getPhoneNumber()
+        });
+        liveRecordBytes += arena.usedBytes() - usedBytes;
+        epochDays[row] = (int) user.getBirthDate().toEpochDay();
+        versions[row] = (int) user.getVersion();
+    }
+
+    /**
+     * @return the removed user or {@code null} if the row has no user
+     */
+    private Users removeRow(int row) {
+        Users user = userAt(row);
+        if (user == null)
+            return null;
+
+        removeEmail(EmailIndex.normalize(user.getEmail()), row);
+        liveRecordBytes -= arena.recordSize(records[row], FIELD_COUNT);
+        records[row] = NO_RECORD;
+        versions[row] = 0;
+        index(user, null);
+        return user;
+    }
+
+    /**
+     * Moves the user from the index entries of its previous state to those of the new one, either of them
+     * {@code null} when the user is added or removed.
+     */
+    private void index(Users previousUser, Users user) {
+        long userId = user == null ? previousUser.getId() : user.getId();
+        LocalDate previousBirthDate = previousUser == null ? null : previousUser.getBirthDate();
+        LocalDate birthDate = user == null ? null : user.getBirthDate();
+        if (!Objects.equals(previousBirthDate, birthDate)) {
+            if (previousBirthDate != null) {
+                birthDateIndex.remove(previousBirthDate, userId);
+                anniversaryIndex.remove(previousBirthDate, userId);
+                birthDateCounts.decrement(previousBirthDate);
+            }
+            if (birthDate != null) {
+                birthDateIndex.add(birthDate, userId);
+                anniversaryIndex.add(birthDate, userId);
+                birthDateCounts.increment(birthDate);
+            }
+        }
+
+        List<String> previousTokens = previousUser == null
+                ? List.of() : NameIndex.tokenize(previousUser.getFirstName(), previousUser.getLastName());
+        List<String> tokens = user == null
+                ? List.of() : NameIndex.tokenize(user.getFirstName(), user.getLastName());
+        for (String token : previousTokens) {
+            if (!tokens.contains(token))
+                nameIndex.remove(token, userId);
+        }
+        for (String token : tokens) {
+            if (!previousTokens.contains(token))
+                nameIndex.add(token, userId);
+        }
+    }
+
+    /**
+     * @throws DuplicateEmailException if a new user has the email of an existing one or of an earlier new one
+     */
+    private void checkNewEmails(List<Users> newUsers) {
+        List<Integer> conflicts = null;
+        Map<String, Integer> newEmails = new HashMap<>();
+        for (int i = 0; i < newUsers.size(); i++) {
+            String email = EmailIndex.normalize(newUsers.get(i).getEmail());
+            if (email != null && (rowOfEmail(email) != NO_ROW || newEmails.putIfAbsent(email, i) != null)) {
+                if (conflicts == null)
+                    conflicts = new ArrayList<>();
+                conflicts.add(i);
+            }
+        }
+        if (conflicts != null)
+            throw new DuplicateEmailException(conflicts);
+    }
+
+    /**
+     * Checks the emails the patches leave their users with, as {@link ConcurrentUsersStorage} claims them: an
+     * email is taken while its owner keeps it until the end of the write, even if the same write changes it.
+     *
+     * @throws DuplicateEmailException if another user has an email or it is given to two users
+     */
+    private void checkPatchedEmails(List<UsersPatch> patches) {
+        // position of the last patch setting the email of each existing user, the one that decides it
+        Map<Long, Integer> lastEmailPatches = new LinkedHashMap<>();
+        for (int i = 0; i < patches.size(); i++) {
+            UsersPatch patch = patches.get(i);
+            if (patch.email() != null && userAt(rowOf(patch.userId())) != null)
+                lastEmailPatches.put(patch.userId(), i);
+        }
+
+        List<Integer> conflicts = null;
+        Map<String, Long> newEmails = new HashMap<>();
+        for (Map.Entry<Long, Integer> lastEmailPatch : lastEmailPatches.entrySet()) {
+            long userId = lastEmailPatch.getKey();
+            int row = rowOf(userId);
+            String newEmail = EmailIndex.normalize(patches.get(lastEmailPatch.getValue()).email());
+            if (newEmail.equals(EmailIndex.normalize(arena.read(records[row], EMAIL))))
+                continue;
+
+            if (rowOfEmail(newEmail) != NO_ROW || newEmails.putIfAbsent(newEmail, userId) != null) {
+                if (conflicts == null)
+                    conflicts = new ArrayList<>();
+                conflicts.add(lastEmailPatch.getValue());
+            }
+        }
+        if (conflicts != null) {
+            conflicts.sort(null);
+            throw new DuplicateEmailException(conflicts);
+        }
+    }
+
+    private static void checkBirthDate(LocalDate birthDate) {
+        if (birthDate.toEpochDay() != (int) birthDate.toEpochDay())
+            throw new IllegalArgumentException("Birth date %s is out of the supported range".formatted(birthDate));
+    }
+
+    /**
+     * @param email normalized email or {@code null}
+     * @return row of the user with the email, {@link #NO_ROW} if there is none
+     */
+    private int rowOfEmail(String email) {
+        if (email == null)
+            return NO_ROW;
+
+        int hash = emailHash(email);
+        int mask = emailSlots.length - 1;
+        for (int slot = hash & mask; emailSlots[slot] != 0; slot = (slot + 1) & mask) {
+            long entry = emailSlots[slot];
+            int row = (int) entry - 1;
+            if ((int) (entry >>> 32) == hash && email.equals(EmailIndex.normalize(arena.read(records[row], EMAIL))))
+                return row;
+        }
+        return NO_ROW;
+    }
+
+    private void putEmail(String email, int row) {
+        if (email == null)
+            return;
+        if (2 * (emailCount + 1) > emailSlots.length)
+            resizeEmailSlots(2 * emailSlots.length);
+
+        int hash = emailHash(email);
+        int mask = emailSlots.length - 1;
+        int slot = hash & mask;
+        while (emailSlots[slot] != 0)
+            slot = (slot + 1) & mask;
+        emailSlots[slot] = (long) hash << 32 | (row + 1L);
+        emailCount++;
+    }
+
+    private void removeEmail(String email, int row) {
+        if (email == null)
+            return;
+
+        int mask = emailSlots.length - 1;
+        int slot = emailHash(email) & mask;
+        while ((int) emailSlots[slot] != row + 1)
+            slot = (slot + 1) & mask;
+        emailSlots[slot] = 0;
+        emailCount--;
+
+        // entries after the freed slot move back into it unless that would put them before their home slot
+        for (int next = (slot + 1) & mask; emailSlots[next] != 0; next = (next + 1) & mask) {
+            int home = (int) (emailSlots[next] >>> 32) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                emailSlots[slot] = emailSlots[next];
+                emailSlots[next] = 0;
+                slot = next;
+            }
+        }
+    }
+
+    private void resizeEmailSlots(int capacity) {
+        long[] previousSlots = emailSlots;
+        emailSlots = new long[capacity];
+        int mask = capacity - 1;
+        for (long entry : previousSlots) {
+            if (entry == 0)
+                continue;
+            int slot = (int) (entry >>> 32) & mask;
+            while (emailSlots[slot] != 0)
+                slot = (slot + 1) & mask;
+            emailSlots[slot] = entry;
+        }
+    }
+
+    private static int emailHash(String email) {
+        // the multiply carries the low bits of the string hash into the high ones, the shift brings the high
+        // bits back down to the low ones the slots are taken from
+        int hash = email.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private void ensureCapacity(int rows) {
+        if (rows <= epochDays.length)
+            return;
+        int capacity = Math.max(rows, 2 * epochDays.length);
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        versions = Arrays.copyOf(versions, capacity);
+        records = Arrays.copyOf(records, capacity);
+    }
+
+    /**
+     * Copies the live records to a new arena once the records of changed and removed users take more space
+     * than them.
+     */
+    private void compactIfWasteful() {
+        long garbage = arena.usedBytes() - liveRecordBytes;
+        if (garbage <= liveRecordBytes || garbage < MIN_COMPACTED_GARBAGE)
+            return;
+
+        Utf8Arena compacted = new Utf8Arena(arena.isOffHeap());
+        for (int row = 0; row < rowCount; row++) {
+            if (versions[row] != 0)
+                records[row] = compacted.copy(arena, records[row], FIELD_COUNT);
+        }
+        arena = compacted;
+    }
+}
@@ -0,0 +1,974 @@
+package com.clear.solutions.user_restful.storage.implementation;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.storage.BirthDateChangeListener;
+import com.clear.solutions.user_restful.storage.ConditionalUpdate;
+import com.clear.solutions.user_restful.storage.DuplicateEmailException;
+import com.clear.solutions.user_restful.storage.UsersPatch;
+import com.clear.solutions.user_restful.storage.UsersStorage;
+import com.clear.solutions.user_restful.storage.index.AnniversaryIndex;
+import com.clear.solutions.user_restful.storage.index.BirthDateCounts;
+import com.clear.solutions.user_restful.storage.index.BirthDateIndex;
+import com.clear.solutions.user_restful.storage.index.ChangeGenerations;
+import com.clear.solutions.user_restful.storage.index.EmailIndex;
+import com.clear.solutions.user_restful.storage.index.LongObjectHashMap;
+import com.clear.solutions.user_restful.storage.index.NameIndex;
+import com.clear.solutions.user_restful.storage.index.ShardedBirthDateIndex;
+import com.clear.solutions.user_restful.storage.mvcc.ReadSnapshot;
+import com.clear.solutions.user_restful.storage.mvcc.UserVersion;
+import com.clear.solutions.user_restful.storage.mvcc.VersionClock;
+import com.clear.solutions.user_restful.storage.snapshot.SnapshotStore;
+import com.clear.solutions.user_restful.storage.wal.WriteAheadLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe multi-version {@link UsersStorage}.
+ * <p>
+ * Users are spread over a fixed number of stripes by identifier, each stripe owning its part of the primary
+ * index and a {@link StampedLock}. Writers lock only the stripe of the user they change and never modify a
+ * published {@link Users} instance: every write links a new {@link UserVersion} in front of the previous one
+ * and publishes it through the {@link VersionClock}. Readers never acquire a lock nor wait for writers: the
+ * primary index publishes every head as it is written, so a reader gets either the previous head or the new
+ * one. Identifiers come from an {@link AtomicLong}.
+ * <p>
+ * Range queries read a {@link ReadSnapshot}, so a long scan sees the storage exactly as it was when the scan
+ * started, no matter how many writes happen meanwhile. Versions that no snapshot can reach anymore, together
+ * with their birth-date and {@link AnniversaryIndex anniversary} index entries, are reclaimed by subsequent
+ * writers.
+ * <p>
+ * Every change is appended to the {@link WriteAheadLog} while the stripes of the changed users are locked, so
+ * the records of a user are logged in commit order. The records are appended before the commit version is
+ * reserved and anything is changed: a log that can no longer be written rejects the write, which then leaves
+ * nothing behind. The log is committed after the stripes are released; if that fails, the write is visible
+ * already and only the caller learns that it may not survive a restart.
+ * When the storage is created, it loads the latest {@link SnapshotStore snapshot} and replays the log segments
+ * written after it.
+ * <p>
+ * Once a commit is visible to readers, the {@link BirthDateChangeListener} is told which birth dates changed
+ * and then the dates get the next modification generation in {@link ChangeGenerations}. Whatever is read from
+ * a range after its generation was taken, including data the listener derives from the storage, is at least
+ * as new as that generation.
+ * <p>
+ * Users are also split into shards, each owning an equal share of the stripes and its own
+ * {@link ShardedBirthDateIndex shard} of the birth-date index. Full range queries scan the shards in parallel
+ * on the fork/join pool of the calling thread, the common pool unless called from another one, and merge them
+ * in (birth date, id) order; streaming and paged queries merge the shards as they go. Shards share the version
+ * clock, the write-ahead log and the other indexes, so commits spanning shards stay atomic and emails unique.
+ * <p>
+ * Emails are unique: writers claim them in the {@link EmailIndex} before their changes become visible and
+ * reject the whole write with a {@link DuplicateEmailException} if another user has one of them.
+ * <p>
+ * Name words are kept in the {@link NameIndex} by writers, with the stripes of the changed users locked. The
+ * index follows the latest state rather than snapshots, so a name search reads the latest version of every
+ * candidate and checks it still has the matched name. {@link BirthDateCounts} follow the latest state the same
+ * way and are changed by writers along with the users they count.
+ */
+@Component
+@ConditionalOnProperty(name = "user.storage.engine", havingValue = "concurrent", matchIfMissing = true)
+public class ConcurrentUsersStorage implements UsersStorage {
+
+    // stripes touched by a multi-user write are tracked in a long bit mask
+    private static final int STRIPE_COUNT = Long.SIZE;
+    private static final int RECLAIM_BATCH_SIZE = 64;
+    private static final long NOT_RESERVED = 0;
+    // restored users are visible to every snapshot
+    private static final long RESTORED_VERSION = 0;
+
+    private final Stripe[] stripes = new Stripe[STRIPE_COUNT];
+    private final AnniversaryIndex anniversaryIndex = new AnniversaryIndex();
+    private final BirthDateCounts birthDateCounts = new BirthDateCounts();
+    private final ShardedBirthDateIndex birthDateIndex;
+    private final ChangeGenerations changeGenerations = new ChangeGenerations();
+    private final EmailIndex emailIndex = new EmailIndex();
+    private final NameIndex nameIndex = new NameIndex();
+    private final AtomicLong userIdCounter = new AtomicLong(1L);
+    private final VersionClock versionClock = new VersionClock();
+    private final Queue<PendingReclaim> reclaimQueue = new ConcurrentLinkedQueue<>();
+    private final WriteAheadLog writeAheadLog;
+    private final SnapshotStore snapshotStore;
+    private final BirthDateChangeListener changeListener;
+
+    public ConcurrentUsersStorage() {
+        this(WriteAheadLog.DISABLED, SnapshotStore.DISABLED);
+    }
+
+    public ConcurrentUsersStorage(WriteAheadLog writeAheadLog, SnapshotStore snapshotStore) {
+        this(writeAheadLog, snapshotStore, BirthDateChangeListener.NONE);
+    }
+
+    public ConcurrentUsersStorage(WriteAheadLog writeAheadLog, SnapshotStore snapshotStore, BirthDateChangeListener changeListener) {
+        this(writeAheadLog, snapshotStore, changeListener, 1);
+    }
+
+    /**
+     * @param shardCount number of shards, a power of two up to the number of stripes
+     */
+    @Autowired
+    public ConcurrentUsersStorage(WriteAheadLog writeAheadLog, SnapshotStore snapshotStore, BirthDateChangeListener changeListener,
+                                  @Value("${user.storage.shards}") int shardCount) {
+        if (shardCount < 1 || shardCount > STRIPE_COUNT || Integer.bitCount(shardCount) != 1)
+            throw new IllegalArgumentException(
+                    "Shard count should be a power of two from 1 to %s, was %s".formatted(STRIPE_COUNT, shardCount));
+        for (int i = 0; i < STRIPE_COUNT; i++)
+            stripes[i] = new Stripe();
+        birthDateIndex = new ShardedBirthDateIndex(shardCount);
+
+        this.writeAheadLog = writeAheadLog;
+        this.snapshotStore = snapshotStore;
+        this.changeListener = changeListener;
+        long firstLogSegment;
+        try {
+            firstLogSegment = snapshotStore.load(this::restore)
+                    .map(header -> {
+                        userIdCounter.accumulateAndGet(header.userIdCounter(), Math::max);
+                        return header.logSegment();
+                    })
+                    .orElse(0L);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load the storage snapshot", e);
+        }
+        writeAheadLog.replay(firstLogSegment, this::restore, this::forget);
+        buildIndexes();
+    }
+
+    @Override
+    public Optional<Users> getUserById(Long userId) {
+        UserVersion head = readHead(userId);
+        return head == null ? Optional.empty() : Optional.ofNullable(head.getUser());
+    }
+
+    @Override
+    public Optional<Users> getUserByEmail(String email) {
+        String normalizedEmail = EmailIndex.normalize(email);
+        Long ownerId = emailIndex.ownerOf(normalizedEmail);
+        if (ownerId == null)
+            return Optional.empty();
+        // the owner may not be visible yet or may have just moved to another email
+        return getUserById(ownerId).filter(user -> normalizedEmail.equals(EmailIndex.normalize(user.getEmail())));
+    }
+
+    @Override
+    public List<Users> searchByName(String query, int limit) {
+        return NameSearch.search(nameIndex, query, limit, userId -> getUserById(userId).orElse(null));
+    }
+
+    @Override
+    public List<Users> getAllByBirthDateRange(LocalDate startDate, LocalDate endDate) {
+        try (ReadSnapshot snapshot = versionClock.openSnapshot()) {
+            return new ShardScan(snapshot, startDate, endDate, 0, birthDateIndex.shardCount()).invoke();
+        }
+    }
+
+    @Override
+    public void forEachByBirthDateRange(LocalDate startDate, LocalDate endDate, Consumer<Users> consumer) {
+        try (ReadSnapshot snapshot = versionClock.openSnapshot()) {
+            forEachVisible(snapshot, startDate, endDate, consumer);
+        }
+    }
+
+    @Override
+    public List<Users> getPageByBirthDateRange(LocalDate startDate, LocalDate endDate,
+                                               LocalDate afterBirthDate, long afterUserId, int limit) {
+        long fromEpochDay = startDate.toEpochDay();
+        long afterId = Long.MIN_VALUE;
+        if (afterBirthDate != null && afterBirthDate.toEpochDay() >= fromEpochDay) {
+            fromEpochDay = afterBirthDate.toEpochDay();
+            afterId = afterUserId;
+        }
+
+        List<Users> page = new ArrayList<>(limit);
+        try (ReadSnapshot snapshot = versionClock.openSnapshot()) {
+            birthDateIndex.forEachIdInRange(fromEpochDay, afterId, endDate.toEpochDay(), (epochDay, userId) -> {
+                Users user = readAt(snapshot, userId);
+                if (user != null && user.getBirthDate().toEpochDay() == epochDay)
+                    page.add(user);
+                return page.size() < limit;
+            });
+        }
+        return page;
+    }
+
+    @Override
+    public List<Users> getAllByAnniversaryRange(LocalDate startDate, LocalDate endDate, Integer age) {
+        List<Users> users = new ArrayList<>();
+        try (ReadSnapshot snapshot = versionClock.openSnapshot()) {
+            // the window spans at most two calendar years, each read on its own
+            for (int year = startDate.getYear(); year <= endDate.getYear(); year++) {
+                LocalDate from = year == startDate.getYear() ? startDate : LocalDate.of(year, 1, 1);
+                LocalDate to = year == endDate.getYear() ? endDate : LocalDate.of(year, 12, 31);
+                if (age == null)
+                    forEachVisibleByAnniversary(snapshot, year, from, to, users::add);
+                else
+                    forEachVisibleByAnniversary(snapshot, year, from, to, age, users::add);
+            }
+        }
+        return users;
+    }
+
+    @Override
+    public long countByBirthDateRange(LocalDate startDate, LocalDate endDate) {
+        return birthDateCounts.count(startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    @Override
+    public long getModificationGeneration() {
+        return changeGenerations.current();
+    }
+
+    @Override
+    public long getModificationGeneration(LocalDate startDate, LocalDate endDate) {
+        return changeGenerations.max(startDate.toEpochDay(), endDate.toEpochDay());
+    }
+
+    @Override
+    public Long addNewUser(Users userToAdd) {
+        return addNewUsers(List.of(userToAdd)).get(0);
+    }
+
+    @Override
+    public List<Long> addNewUsers(List<Users> usersToAdd) {
+        if (usersToAdd.isEmpty())
+            return List.of();
+
+        long firstUserId = userIdCounter.getAndAdd(usersToAdd.size());
+        List<Long> userIds = new ArrayList<>(usersToAdd.size());
+        long touchedStripes = 0;
+        for (int i = 0; i < usersToAdd.size(); i++) {
+            long userId = firstUserId + i;
+            usersToAdd.get(i).setId(userId);
+            userIds.add(userId);
+            touchedStripes |= stripeBitOf(userId);
+        }
+        // nobody can see the new identifiers yet, so the claims need no lock
+        claimEmails(usersToAdd);
+
+        long[] changedDays = new long[usersToAdd.size()];
+        int changedDayCount = 0;
+        long commitVersion = NOT_RESERVED;
+        long logSequence = 0;
+        long[] stamps = lockStripes(touchedStripes);
+        try {
+            try {
+                logSequence = writeAheadLog.appendPuts(usersToAdd);
+            } catch (RuntimeException e) {
+                releaseEmails(usersToAdd);
+                throw e;
+            }
+            commitVersion = versionClock.reserve();
+            for (Users user : usersToAdd) {
+                user.setVersion(1);
+                changedDays[changedDayCount++] = user.getBirthDate().toEpochDay();
+                stripeOf(user.getId()).users.put(user.getId(), new UserVersion(user, commitVersion, null));
+                birthDateIndexOf(user.getId()).add(user.getBirthDate(), user.getId());
+                anniversaryIndex.add(user.getBirthDate(), user.getId());
+                birthDateCounts.increment(user.getBirthDate());
+                reindexNames(null, user);
+            }
+        } finally {
+            unlockAndPublish(touchedStripes, stamps, commitVersion);
+        }
+
+        commitLog(logSequence, changedDays, changedDayCount);
+        return userIds;
+    }
+
+    @Override
+    public Optional<Users> updateUserData(Long userId, String email, String firstName, String lastName,
+                                          LocalDate birthDate, String address, String phoneNumber) {
+        UsersPatch patch = new UsersPatch(userId, email, firstName, lastName, birthDate, address, phoneNumber);
+        return Optional.ofNullable(updateUsersData(List.of(patch), false).get(0));
+    }
+
+    @Override
+    public Optional<ConditionalUpdate> updateUserData(UsersPatch patch, long expectedVersion) {
+        List<Users> results = new ArrayList<>(1);
+        boolean applied = updateUsersData(List.of(patch), () -> {
+            Users currentUser = currentUser(patch.userId());
+            return currentUser != null && currentUser.getVersion() == expectedVersion;
+        }, results);
+        return Optional.ofNullable(results.get(0)).map(user -> new ConditionalUpdate(user, applied));
+    }
+
+    @Override
+    public List<Users> updateUsersData(List<UsersPatch> patches, boolean allOrNothing) {
+        List<Users> results = new ArrayList<>(patches.size());
+        BooleanSupplier precondition = allOrNothing
+                ? () -> allExist(patches.stream().map(UsersPatch::userId).toList())
+                : () -> true;
+        updateUsersData(patches, precondition, results);
+        return results;
+    }
+
+    /**
+     * Applies the patches if the precondition, checked with the stripes locked, holds. Otherwise the current
+     * users are reported.
+     *
+     * @return whether the patches were applied
+     */
+    private boolean updateUsersData(List<UsersPatch> patches, BooleanSupplier precondition, List<Users> results) {
+        long touchedStripes = 0;
+        for (UsersPatch patch : patches)
+            touchedStripes |= stripeBitOf(patch.userId());
+
+        long[] changedDays = new long[2 * patches.size()];
+        int changedDayCount = 0;
+        long commitVersion = NOT_RESERVED;
+        long logSequence = 0;
+        long[] stamps = lockStripes(touchedStripes);
+        try {
+            if (!precondition.getAsBoolean()) {
+                for (UsersPatch patch : patches)
+                    results.add(currentUser(patch.userId()));
+                return false;
+            }
+
+            Map<Long, String> replacedEmails = claimPatchedEmails(patches);
+            List<Users> updatedUsers = applyPatches(patches);
+            try {
+                logSequence = appendPuts(updatedUsers.stream().filter(Objects::nonNull).toList());
+            } catch (RuntimeException e) {
+                releaseClaimedEmails(replacedEmails, updatedUsers);
+                throw e;
+            }
+            commitVersion = versionClock.reserve();
+            for (int i = 0; i < patches.size(); i++) {
+                UsersPatch patch = patches.get(i);
+                Users updatedUser = updatedUsers.get(i);
+                results.add(updatedUser);
+                if (updatedUser == null)
+                    continue;
+
+                UserVersion head = stripeOf(patch.userId()).users.get(patch.userId());
+                changedDays[changedDayCount++] = head.getUser().getBirthDate().toEpochDay();
+                changedDays[changedDayCount++] = updatedUser.getBirthDate().toEpochDay();
+                stripeOf(patch.userId()).users.put(patch.userId(), new UserVersion(updatedUser, commitVersion, head));
+                // the previous bucket is left for readers of older snapshots and cleaned up on reclaim
+                birthDateIndexOf(patch.userId()).add(updatedUser.getBirthDate(), patch.userId());
+                anniversaryIndex.add(updatedUser.getBirthDate(), patch.userId());
+                if (!updatedUser.getBirthDate().isEqual(head.getUser().getBirthDate())) {
+                    birthDateCounts.decrement(head.getUser().getBirthDate());
+                    birthDateCounts.increment(updatedUser.getBirthDate());
+                }
+                reindexNames(head.getUser(), updatedUser);
+                reclaimQueue.add(new PendingReclaim(patch.userId(), commitVersion));
+            }
+            replacedEmails.forEach((userId, email) -> emailIndex.release(email, userId));
+        } finally {
+            unlockAndPublish(touchedStripes, stamps, commitVersion);
+        }
+
+        commitLog(logSequence, changedDays, changedDayCount);
+        return true;
+    }
+
+    @Override
+    public void removeUser(Long userId) {
+        removeUsers(List.of(userId), false);
+    }
+
+    @Override
+    public List<Users> removeUsers(List<Long> userIds, boolean allOrNothing) {
+        long touchedStripes = 0;
+        for (Long userId : userIds)
+            touchedStripes |= stripeBitOf(userId);
+
+        List<Users> results = new ArrayList<>(userIds.size());
+        long[] changedDays = new long[userIds.size()];
+        int changedDayCount = 0;
+        long commitVersion = NOT_RESERVED;
+        long logSequence = 0;
+        long[] stamps = lockStripes(touchedStripes);
+        try {
+            if (allOrNothing && !allExist(userIds)) {
+                for (Long userId : userIds)
+                    results.add(currentUser(userId));
+                return results;
+            }
+
+            // the same identifier listed twice reports the same removed user, but is removed only once
+            Map<Long, Users> removedUsers = new LinkedHashMap<>();
+            for (Long userId : userIds) {
+                Users currentUser = currentUser(userId);
+                if (currentUser != null)
+                    removedUsers.put(userId, currentUser);
+            }
+            logSequence = appendDeletes(removedUsers.keySet());
+            commitVersion = versionClock.reserve();
+            for (Users removedUser : removedUsers.values()) {
+                markDeleted(removedUser.getId(), commitVersion);
+                emailIndex.release(EmailIndex.normalize(removedUser.getEmail()), removedUser.getId());
+                reindexNames(removedUser, null);
+                birthDateCounts.decrement(removedUser.getBirthDate());
+                changedDays[changedDayCount++] = removedUser.getBirthDate().toEpochDay();
+            }
+            for (Long userId : userIds)
+                results.add(removedUsers.get(userId));
+        } finally {
+            unlockAndPublish(touchedStripes, stamps, commitVersion);
+        }
+
+        commitLog(logSequence, changedDays, changedDayCount);
+        return results;
+    }
+
+    @Override
+    public List<Users> removeAllByBirthDateRange(LocalDate startDate, LocalDate endDate) {
+        List<Long> candidateIds = new ArrayList<>();
+        long touchedStripes = 0;
+        try (ReadSnapshot snapshot = versionClock.openSnapshot()) {
+            forEachVisible(snapshot, startDate, endDate, user -> candidateIds.add(user.getId()));
+        }
+        for (Long userId : candidateIds)
+            touchedStripes |= stripeBitOf(userId);
+
+        List<Users> removedUsers = new ArrayList<>(candidateIds.size());
+        long[] changedDays = new long[candidateIds.size()];
+        int changedDayCount = 0;
+        long commitVersion = NOT_RESERVED;
+        long logSequence = 0;
+        long[] stamps = lockStripes(touchedStripes);
+        try {
+            for (Long userId : candidateIds) {
+                // a user may have been moved out of the range after the index pass
+                Users currentUser = currentUser(userId);
+                if (currentUser != null && !currentUser.getBirthDate().isBefore(startDate) && !currentUser.getBirthDate().isAfter(endDate))
+                    removedUsers.add(currentUser);
+            }
+            logSequence = appendDeletes(removedUsers.stream().map(Users::getId).toList());
+            commitVersion = versionClock.reserve();
+            for (Users removedUser : removedUsers) {
+                markDeleted(removedUser.getId(), commitVersion);
+                emailIndex.release(EmailIndex.normalize(removedUser.getEmail()), removedUser.getId());
+                reindexNames(removedUser, null);
+                birthDateCounts.decrement(removedUser.getBirthDate());
+                changedDays[changedDayCount++] = removedUser.getBirthDate().toEpochDay();
+            }
+        } finally {
+            unlockAndPublish(touchedStripes, stamps, commitVersion);
+        }
+
+        commitLog(logSequence, changedDays, changedDayCount);
+        return removedUsers;
+    }
+
+    /**
+     * Writes every user to a new snapshot while writers keep going, then drops the log segments it covers.
+     * <p>
+     * The log is rotated first. Every record of the earlier segments was appended by a writer that had already
+     * reserved its commit version, so once those versions are published, a snapshot opened afterwards contains
+     * all of their changes.
+     */
+    public void writeSnapshot() throws IOException {
+        long logSegment = writeAheadLog.rotate();
+        versionClock.awaitCommitted(versionClock.reservedVersion());
+
+        try (ReadSnapshot snapshot = versionClock.openSnapshot()) {
+            // read after the snapshot is opened, so it is above every identifier the snapshot contains
+            long nextUserId = userIdCounter.get();
+            snapshotStore.write(logSegment, nextUserId,
+                    consumer -> forEachVisible(snapshot, LocalDate.MIN, LocalDate.MAX, consumer));
+        }
+        writeAheadLog.dropSegmentsBefore(logSegment);
+    }
+
+    /**
+     * Applies a snapshotted or logged user state during startup, before the storage is shared with other
+     * threads. The indexes are built once everything is restored.
+     */
+    private void restore(Users user) {
+        // versions are not persisted, they start over with the process
+        user.setVersion(1);
+        stripeOf(user.getId()).users.put(user.getId(), new UserVersion(user, RESTORED_VERSION, null));
+        userIdCounter.accumulateAndGet(user.getId() + 1, Math::max);
+    }
+
+    /**
+     * Applies a logged removal during startup, before the storage is shared with other threads.
+     */
+    private void forget(long userId) {
+        stripeOf(userId).users.remove(userId);
+        userIdCounter.accumulateAndGet(userId + 1, Math::max);
+    }
+
+    /**
+     * Indexes the restored users. Emails were not unique before the email index existed: if restored users
+     * share one, the first user indexed owns it and the others keep it without being found by it.
+     */
+    private void buildIndexes() {
+        int userCount = 0;
+        for (Stripe stripe : stripes)
+            userCount += stripe.users.size();
+
+        long[] epochDays = new long[userCount];
+        long[] userIds = new long[userCount];
+        List<String> nameTokens = new ArrayList<>(2 * userCount);
+        List<Long> nameTokenUserIds = new ArrayList<>(2 * userCount);
+        int shardCount = birthDateIndex.shardCount();
+        int[] shardEnds = new int[shardCount];
+        int[] position = new int[1];
+        // users are collected shard by shard, the stripes of a shard are the ones equal to it modulo the count
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int stripe = shard; stripe < STRIPE_COUNT; stripe += shardCount) {
+                stripes[stripe].users.forEachValue(version -> {
+                    Users user = version.getUser();
+                    epochDays[position[0]] = user.getBirthDate().toEpochDay();
+                    userIds[position[0]++] = user.getId();
+                    emailIndex.claim(EmailIndex.normalize(user.getEmail()), user.getId());
+                    for (String token : NameIndex.tokenize(user.getFirstName(), user.getLastName())) {
+                        nameTokens.add(token);
+                        nameTokenUserIds.add(user.getId());
+                    }
+                });
+            }
+            shardEnds[shard] = position[0];
+        }
+        for (int shard = 0; shard < shardCount; shard++) {
+            int shardStart = shard == 0 ? 0 : shardEnds[shard - 1];
+            birthDateIndex.shard(shard).addAll(Arrays.copyOfRange(epochDays, shardStart, shardEnds[shard]),
+                    Arrays.copyOfRange(userIds, shardStart, shardEnds[shard]), shardEnds[shard] - shardStart);
+        }
+        anniversaryIndex.addAll(epochDays, userIds, userCount);
+        birthDateCounts.addAll(epochDays, userCount);
+        nameIndex.addAll(nameTokens.toArray(String[]::new),
+                nameTokenUserIds.stream().mapToLong(Long::longValue).toArray(), nameTokens.size());
+    }
+
+    /**
+     * Claims the emails of users about to be added, all of them or none.
+     *
+     * @throws DuplicateEmailException if another user owns an email or it repeats in the list
+     */
+    private void claimEmails(List<Users> newUsers) {
+        List<Integer> conflicts = null;
+        for (int i = 0; i < newUsers.size(); i++) {
+            Users user = newUsers.get(i);
+            if (!emailIndex.claim(EmailIndex.normalize(user.getEmail()), user.getId())) {
+                if (conflicts == null)
+                    conflicts = new ArrayList<>();
+                conflicts.add(i);
+            }
+        }
+        if (conflicts != null) {
+            releaseEmails(newUsers);
+            throw new DuplicateEmailException(conflicts);
+        }
+    }
+
+    /**
+     * Releases the emails claimed for users that are not added after all. Only what these users own is
+     * released, emails that conflicted stay with their owners.
+     */
+    private void releaseEmails(List<Users> newUsers) {
+        for (Users user : newUsers)
+            emailIndex.release(EmailIndex.normalize(user.getEmail()), user.getId());
+    }
+
+    /**
+     * Releases the emails {@link #claimPatchedEmails} claimed for patches that are not applied after all.
+     */
+    private void releaseClaimedEmails(Map<Long, String> replacedEmails, List<Users> updatedUsers) {
+        // the last state of a user has the email claimed for it
+        Map<Long, String> claimedEmails = new HashMap<>();
+        for (Users updatedUser : updatedUsers) {
+            if (updatedUser != null && replacedEmails.containsKey(updatedUser.getId()))
+                claimedEmails.put(updatedUser.getId(), EmailIndex.normalize(updatedUser.getEmail()));
+        }
+        claimedEmails.forEach((userId, email) -> emailIndex.release(email, userId));
+    }
+
+    /**
+     * Claims the emails the patches leave their users with, all of them or none. Must be called with the
+     * stripes of all patched users locked.
+     *
+     * @return normalized emails the patched users had before, by user, to be released once the patches
+     * are applied
+     * @throws DuplicateEmailException if another user owns an email or it is given to two users
+     */
+    private Map<Long, String> claimPatchedEmails(List<UsersPatch> patches) {
+        // position of the last patch setting the email of each existing user, the one that decides it
+        Map<Long, Integer> lastEmailPatches = null;
+        for (int i = 0; i < patches.size(); i++) {
+            UsersPatch patch = patches.get(i);
+            if (patch.email() != null && currentUser(patch.userId()) != null) {
+                if (lastEmailPatches == null)
+                    lastEmailPatches = new LinkedHashMap<>();
+                lastEmailPatches.put(patch.userId(), i);
+            }
+        }
+        if (lastEmailPatches == null)
+            return Map.of();
+
+        Map<Long, String> replacedEmails = new HashMap<>();
+        List<Integer> conflicts = null;
+        for (Map.Entry<Long, Integer> lastEmailPatch : lastEmailPatches.entrySet()) {
+            long userId = lastEmailPatch.getKey();
+            String currentEmail = EmailIndex.normalize(currentUser(userId).getEmail());
+            String newEmail = EmailIndex.normalize(patches.get(lastEmailPatch.getValue()).email());
+            if (newEmail.equals(currentEmail))
+                continue;
+
+            if (emailIndex.claim(newEmail, userId)) {
+                replacedEmails.put(userId, currentEmail);
+            } else {
+                if (conflicts == null)
+                    conflicts = new ArrayList<>();
+                conflicts.add(lastEmailPatch.getValue());
+            }
+        }
+        if (conflicts != null) {
+            for (Long userId : replacedEmails.keySet())
+                emailIndex.release(EmailIndex.normalize(patches.get(lastEmailPatches.get(userId)).email()), userId);
+            conflicts.sort(null);
+            throw new DuplicateEmailException(conflicts);
+        }
+        return replacedEmails;
+    }
+
+    /**
+     * Moves the user from the name words of its previous state to those of the new one, either of them
+     * {@code null} when the user is added or removed. Must be called with the stripe of the user write-locked.
+     */
+    private void reindexNames(Users previousUser, Users user) {
+        List<String> previousTokens = previousUser == null
+                ? List.of() : NameIndex.tokenize(previousUser.getFirstName(), previousUser.getLastName());
+        List<String> tokens = user == null
+                ? List.of() : NameIndex.tokenize(user.getFirstName(), user.getLastName());
+        long userId = user == null ? previousUser.getId() : user.getId();
+
+        for (String token : previousTokens) {
+            if (!tokens.contains(token))
+                nameIndex.remove(token, userId);
+        }
+        for (String token : tokens) {
+            if (!previousTokens.contains(token))
+                nameIndex.add(token, userId);
+        }
+    }
+
+    private void forEachVisible(ReadSnapshot snapshot, LocalDate startDate, LocalDate endDate, Consumer<Users> consumer) {
+        birthDateIndex.forEachIdInRange(startDate, endDate, (epochDay, userId) -> {
+            Users user = readAt(snapshot, userId);
+            // the index keeps a user under every birth date a reachable version has, only the visible one counts
+            if (user != null && user.getBirthDate().toEpochDay() == epochDay)
+                consumer.accept(user);
+        });
+    }
+
+    private void forEachVisibleByAnniversary(ReadSnapshot snapshot, int year, LocalDate from, LocalDate to,
+                                             Consumer<Users> consumer) {
+        anniversaryIndex.forEachIdByAnniversary(year, from, to, (day, userId) -> {
+            Users user = readAt(snapshot, userId);
+            // users born in that year or later have no birthday in it yet
+            if (user != null && AnniversaryIndex.dayOf(user.getBirthDate()) == day && user.getBirthDate().getYear() < year)
+                consumer.accept(user);
+        });
+    }
+
+    /**
+     * Reads the users turning the age in the window through the birth-date index, which holds only their birth
+     * year. A birthday on March 1 of a year that is not a leap year may belong to a February 29 birth date.
+     */
+    private void forEachVisibleByAnniversary(ReadSnapshot snapshot, int year, LocalDate from, LocalDate to, int age,
+                                             Consumer<Users> consumer) {
+        LocalDate fromBirthDate = from.minusYears(age).minusDays(1);
+        LocalDate toBirthDate = to.minusYears(age);
+        forEachVisible(snapshot, fromBirthDate, toBirthDate, user -> {
+            LocalDate birthday = AnniversaryIndex.anniversary(user.getBirthDate(), year);
+            if (user.getBirthDate().getYear() == year - age && !birthday.isBefore(from) && !birthday.isAfter(to))
+                consumer.accept(user);
+        });
+    }
+
+    /**
+     * Must be called with the stripe of the existing user write-locked.
+     */
+    private void markDeleted(long userId, long commitVersion) {
+        Stripe stripe = stripeOf(userId);
+        stripe.users.put(userId, UserVersion.deletion(commitVersion, stripe.users.get(userId)));
+        reclaimQueue.add(new PendingReclaim(userId, commitVersion));
+    }
+
+    /**
+     * Works out the states the patches leave their users in, without changing anything. A user patched twice
+     * gets the second patch applied to the result of the first one. Must be called with the stripes of all
+     * patched users locked.
+     *
+     * @return updated users in the order of the patches, {@code null} for a patch of a user that does not exist
+     */
+    private List<Users> applyPatches(List<UsersPatch> patches) {
+        List<Users> updatedUsers = new ArrayList<>(patches.size());
+        Map<Long, Users> latestStates = new HashMap<>();
+        for (UsersPatch patch : patches) {
+            Users currentUser = latestStates.containsKey(patch.userId())
+                    ? latestStates.get(patch.userId()) : currentUser(patch.userId());
+            Users updatedUser = currentUser == null ? null : patch.applyTo(currentUser);
+            if (updatedUser != null)
+                latestStates.put(patch.userId(), updatedUser);
+            updatedUsers.add(updatedUser);
+        }
+        return updatedUsers;
+    }
+
+    /**
+     * Must be called with the stripes of all users locked.
+     */
+    private boolean allExist(List<Long> userIds) {
+        for (Long userId : userIds) {
+            if (currentUser(userId) == null)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Must be called with the stripe of the user locked.
+     */
+    private Users currentUser(long userId) {
+        UserVersion head = stripeOf(userId).users.get(userId);
+        return head == null ? null : head.getUser();
+    }
+
+    private Users readAt(ReadSnapshot snapshot, long userId) {
+        UserVersion head = readHead(userId);
+        return head == null ? null : head.visibleAt(snapshot.version());
+    }
+
+    private UserVersion readHead(long userId) {
+        return stripeOf(userId).users.get(userId);
+    }
+
+    /**
+     * Must be called with the stripes of all users locked, before anything is changed.
+     *
+     * @return sequence number of the last record, or {@code 0} when there is nothing to log
+     */
+    private long appendPuts(List<Users> users) {
+        return users.isEmpty() ? 0 : writeAheadLog.appendPuts(users);
+    }
+
+    /**
+     * Must be called with the stripes of all users locked, before anything is changed.
+     *
+     * @return sequence number of the last record, or {@code 0} when there is nothing to log
+     */
+    private long appendDeletes(Collection<Long> userIds) {
+        return userIds.isEmpty() ? 0 : writeAheadLog.appendDeletes(List.copyOf(userIds));
+    }
+
+    /**
+     * Commits the log records of a published write, then tells the listener and the change generations
+     * which birth dates it changed. They are told even when the commit fails: the write is visible already.
+     */
+    private void commitLog(long logSequence, long[] changedDays, int changedDayCount) {
+        try {
+            writeAheadLog.commit(logSequence);
+        } finally {
+            changeListener.birthDatesChanged(changedDays, changedDayCount);
+            changeGenerations.advance(changedDays, changedDayCount);
+        }
+        reclaimStaleVersions();
+    }
+
+    /**
+     * Drops versions superseded at or below the reclaim horizon. Entries that are still visible to some
+     * snapshot go back to the queue and are retried by a later writer.
+     */
+    private void reclaimStaleVersions() {
+        long horizon = versionClock.reclaimHorizon();
+        for (int i = 0; i < RECLAIM_BATCH_SIZE; i++) {
+            PendingReclaim pendingReclaim = reclaimQueue.poll();
+            if (pendingReclaim == null)
+                return;
+
+            if (pendingReclaim.commitVersion() > horizon) {
+                reclaimQueue.add(pendingReclaim);
+                return;
+            }
+            pruneVersions(pendingReclaim.userId(), horizon);
+        }
+    }
+
+    private void pruneVersions(long userId, long horizon) {
+        Stripe stripe = stripeOf(userId);
+        long stamp = stripe.lock.writeLock();
+        try {
+            UserVersion head = stripe.users.get(userId);
+            UserVersion oldestNeeded = head;
+            while (oldestNeeded != null && oldestNeeded.getCommitVersion() > horizon)
+                oldestNeeded = oldestNeeded.getPrevious();
+            if (oldestNeeded == null)
+                return;
+
+            UserVersion firstDropped;
+            if (oldestNeeded == head && head.isDeletion()) {
+                stripe.users.remove(userId);
+                firstDropped = head;
+                head = null;
+            } else {
+                firstDropped = oldestNeeded.getPrevious();
+                oldestNeeded.detachPrevious();
+            }
+
+            for (UserVersion dropped = firstDropped; dropped != null; dropped = dropped.getPrevious()) {
+                if (dropped.isDeletion())
+                    continue;
+                LocalDate birthDate = dropped.getUser().getBirthDate();
+                if (!hasBirthDate(head, birthDate))
+                    birthDateIndexOf(userId).remove(birthDate, userId);
+                if (!hasBirthday(head, AnniversaryIndex.dayOf(birthDate)))
+                    anniversaryIndex.remove(birthDate, userId);
+            }
+        } finally {
+            stripe.lock.unlockWrite(stamp);
+        }
+    }
+
+    private static boolean hasBirthDate(UserVersion chain, LocalDate birthDate) {
+        for (UserVersion version = chain; version != null; version = version.getPrevious()) {
+            if (!version.isDeletion() && version.getUser().getBirthDate().isEqual(birthDate))
+                return true;
+        }
+        return false;
+    }
+
+    private static boolean hasBirthday(UserVersion chain, int day) {
+        for (UserVersion version = chain; version != null; version = version.getPrevious()) {
+            if (!version.isDeletion() && AnniversaryIndex.dayOf(version.getUser().getBirthDate()) == day)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Write-locks every stripe whose bit is set, always in ascending order so that concurrent multi-stripe
+     * writers cannot deadlock.
+     */
+    private long[] lockStripes(long stripeMask) {
+        long[] stamps = new long[STRIPE_COUNT];
+        for (int i = 0; i < STRIPE_COUNT; i++) {
+            if ((stripeMask & (1L << i)) != 0)
+                stamps[i] = stripes[i].lock.writeLock();
+        }
+        return stamps;
+    }
+
+    /**
+     * Releases the stripes and publishes the commit version if one was reserved. A reserved version must
+     * always be published, even after a failure, otherwise every later writer would wait for it forever.
+     */
+    private void unlockAndPublish(long stripeMask, long[] stamps, long commitVersion) {
+        for (int i = STRIPE_COUNT - 1; i >= 0; i--) {
+            if ((stripeMask & (1L << i)) != 0)
+                stripes[i].lock.unlockWrite(stamps[i]);
+        }
+
+        if (commitVersion != NOT_RESERVED)
+            versionClock.publish(commitVersion);
+    }
+
+    private BirthDateIndex birthDateIndexOf(long userId) {
+        return birthDateIndex.shard(stripeIndexOf(userId) & (birthDateIndex.shardCount() - 1));
+    }
+
+    private Stripe stripeOf(long userId) {
+        return stripes[stripeIndexOf(userId)];
+    }
+
+    private static long stripeBitOf(long userId) {
+        return 1L << stripeIndexOf(userId);
+    }
+
+    private static int stripeIndexOf(long userId) {
+        return (int) (userId ^ (userId >>> 32)) & (STRIPE_COUNT - 1);
+    }
+
+    private static final class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private final LongObjectHashMap<UserVersion> users = new LongObjectHashMap<>();
+    }
+
+    private record PendingReclaim(long userId, long commitVersion) {}
+
+    /**
+     * Reads the users of shards [fromShard, toShard) born within the range, splitting the shards in halves
+     * until one is left and merging the halves in (birth date, id) order.
+     */
+    private final class ShardScan extends RecursiveTask<List<Users>> {
+
+        private final ReadSnapshot snapshot;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final int fromShard;
+        private final int toShard;
+
+        private ShardScan(ReadSnapshot snapshot, LocalDate startDate, LocalDate endDate, int fromShard, int toShard) {
+            this.snapshot = snapshot;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.fromShard = fromShard;
+            this.toShard = toShard;
+        }
+
+        @Override
+        protected List<Users> compute() {
+            if (toShard - fromShard == 1) {
+                List<Users> users = new ArrayList<>();
+                birthDateIndex.shard(fromShard).forEachIdInRange(startDate, endDate, (epochDay, userId) -> {
+                    Users user = readAt(snapshot, userId);
+                    if (user != null && user.getBirthDate().toEpochDay() == epochDay)
+                        users.add(user);
+                });
+                return users;
+            }
+
+            int middle = (fromShard + toShard) >>> 1;
+            ShardScan upperHalf = new ShardScan(snapshot, startDate, endDate, middle, toShard);
+            upperHalf.fork();
+            List<Users> lower = new ShardScan(snapshot, startDate, endDate, fromShard, middle).compute();
+            return merge(lower, upperHalf.join());
+        }
+
+        private static List<Users> merge(List<Users> first, List<Users> second) {
+            if (first.isEmpty())
+                return second;
+            if (second.isEmpty())
+                return first;
+
+            List<Users> merged = new ArrayList<>(first.size() + second.size());
+            int i = 0;
+            int j = 0;
+            while (i < first.size() && j < second.size()) {
+                Users a = first.get(i);
+                Users b = second.get(j);
+                int byBirthDate = a.getBirthDate().compareTo(b.getBirthDate());
+                merged.add(byBirthDate < 0 || byBirthDate == 0 && a.getId() < b.getId() ? first.get(i++) : second.get(j++));
+            }
+            merged.addAll(first.subList(i, first.size()));
+            merged.addAll(second.subList(j, second.size()));
+            return merged;
+        }
+    }
+}
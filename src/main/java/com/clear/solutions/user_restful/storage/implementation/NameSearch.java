@@ -0,0 +1,62 @@
+package com.clear.solutions.user_restful.storage.implementation;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.storage.UsersStorage;
+import com.clear.solutions.user_restful.storage.index.NameIndex;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongFunction;
+
+/**
+ * Ranks users found in a {@link NameIndex} as {@link UsersStorage#searchByName} describes, for storages that
+ * keep one.
+ */
+final class NameSearch {
+
+    private NameSearch() {
+    }
+
+    /**
+     * @param currentUser reads the latest state of a user, {@code null} if there is no such user
+     */
+    static List<Users> search(NameIndex nameIndex, String query, int limit, LongFunction<Users> currentUser) {
+        List<String> terms = NameIndex.tokenize(query);
+        if (terms.isEmpty())
+            return List.of();
+
+        // the longest term has the fewest matches, the others only filter them
+        String leadingTerm = terms.get(0);
+        for (String term : terms) {
+            if (term.length() > leadingTerm.length())
+                leadingTerm = term;
+        }
+        String searchedTerm = leadingTerm;
+
+        List<Users> found = new ArrayList<>(limit);
+        Set<Long> foundIds = new HashSet<>();
+        nameIndex.forEachMatch(searchedTerm, (token, userId) -> {
+            if (foundIds.contains(userId))
+                return true;
+            Users user = currentUser.apply(userId);
+            if (user == null)
+                return true;
+
+            List<String> userTokens = NameIndex.tokenize(user.getFirstName(), user.getLastName());
+            // the user may have been renamed since the token was read
+            if (!userTokens.contains(token))
+                return true;
+            for (String term : terms) {
+                if (!term.equals(searchedTerm) && userTokens.stream().noneMatch(userToken -> NameIndex.matches(term, userToken)))
+                    return true;
+            }
+
+            foundIds.add(userId);
+            found.add(user);
+            return found.size() < limit;
+        });
+        return found;
+    }
+}
@@ -0,0 +1,184 @@
+package com.clear.solutions.user_restful.storage.implementation;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only store of string records in UTF-8, on the heap or off it.
+ * <p>
+ * A record is a fixed number of nullable strings written back to back, each preceded by its length plus one
+ * as a variable-length integer, {@code 0} standing for {@code null}. Records live in {@link ByteBuffer}
+ * segments of {@value #SEGMENT_SIZE} bytes, direct ones when off-heap, and are addressed by a {@code long}:
+ * the segment in the high bits, the offset within it in the low {@value #SEGMENT_BITS}. A record never spans
+ * two segments. Space of replaced records is not reused; the owner tracks it and copies the live records to a
+ * new arena when too much of it is wasted.
+ * <p>
+ * Not thread-safe: writers must be serialized and readers must not run concurrently with them.
+ */
+final class Utf8Arena {
+
+    static final int SEGMENT_BITS = 26;
+    static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    private static final long OFFSET_MASK = SEGMENT_SIZE - 1;
+
+    private final boolean offHeap;
+    private final List<ByteBuffer> segments = new ArrayList<>();
+    private ByteBuffer current;
+    private long usedBytes;
+
+    Utf8Arena(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * @return the address of the new record
+     * @throws IllegalArgumentException if the record does not fit in a segment
+     */
+    long append(String[] fields) {
+        byte[][] encoded = new byte[fields.length][];
+        int size = 0;
+        for (int i = 0; i < fields.length; i++) {
+            int length = 0;
+            if (fields[i] != null) {
+                encoded[i] = fields[i].getBytes(StandardCharsets.UTF_8);
+                length = encoded[i].length;
+            }
+            size += varIntSize(length + 1) + length;
+        }
+        if (size > SEGMENT_SIZE)
+            throw new IllegalArgumentException("Record of %s bytes exceeds the segment size".formatted(size));
+
+        long address = reserve(size);
+        ByteBuffer segment = current;
+        for (byte[] field : encoded) {
+            putVarInt(segment, field == null ? 0 : field.length + 1);
+            if (field != null)
+                segment.put(field);
+        }
+        return address;
+    }
+
+    /**
+     * Copies a record of another arena as is.
+     *
+     * @return the address of the copy in this arena
+     */
+    long copy(Utf8Arena source, long address, int fieldCount) {
+        int size = source.recordSize(address, fieldCount);
+        long copyAddress = reserve(size);
+        current.put(current.position(), source.segmentOf(address), offsetOf(address), size);
+        current.position(current.position() + size);
+        return copyAddress;
+    }
+
+    /**
+     * Reads the first {@code fields.length} strings of the record into the array.
+     */
+    void read(long address, String[] fields) {
+        ByteBuffer segment = segmentOf(address);
+        int[] position = {offsetOf(address)};
+        for (int i = 0; i < fields.length; i++)
+            fields[i] = readString(segment, position);
+    }
+
+    String read(long address, int field) {
+        ByteBuffer segment = segmentOf(address);
+        int[] position = {offsetOf(address)};
+        for (int i = 0; i < field; i++) {
+            int length = getVarInt(segment, position) - 1;
+            if (length > 0)
+                position[0] += length;
+        }
+        return readString(segment, position);
+    }
+
+    int recordSize(long address, int fieldCount) {
+        ByteBuffer segment = segmentOf(address);
+        int[] position = {offsetOf(address)};
+        for (int i = 0; i < fieldCount; i++) {
+            int length = getVarInt(segment, position) - 1;
+            if (length > 0)
+                position[0] += length;
+        }
+        return position[0] - offsetOf(address);
+    }
+
+    /**
+     * @return bytes taken by records, live or replaced
+     */
+    long usedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * @return bytes of all segments, including the unused end of the current one
+     */
+    long allocatedBytes() {
+        return (long) segments.size() * SEGMENT_SIZE;
+    }
+
+    private long reserve(int size) {
+        if (current == null || current.remaining() < size) {
+            current = offHeap ? ByteBuffer.allocateDirect(SEGMENT_SIZE) : ByteBuffer.allocate(SEGMENT_SIZE);
+            segments.add(current);
+        }
+        usedBytes += size;
+        return ((long) (segments.size() - 1) << SEGMENT_BITS) | current.position();
+    }
+
+    private ByteBuffer segmentOf(long address) {
+        return segments.get((int) (address >>> SEGMENT_BITS));
+    }
+
+    private static int offsetOf(long address) {
+        return (int) (address & OFFSET_MASK);
+    }
+
+    private static String readString(ByteBuffer segment, int[] position) {
+        int length = getVarInt(segment, position) - 1;
+        if (length < 0)
+            return null;
+
+        String value;
+        if (segment.hasArray()) {
+            value = new String(segment.array(), segment.arrayOffset() + position[0], length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            segment.get(position[0], bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        position[0] += length;
+        return value;
+    }
+
+    private static int varIntSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0)
+            size++;
+        return size;
+    }
+
+    private static void putVarInt(ByteBuffer segment, int value) {
+        while ((value & ~0x7F) != 0) {
+            segment.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        segment.put((byte) value);
+    }
+
+    private static int getVarInt(ByteBuffer segment, int[] position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = segment.get(position[0]++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+    }
+}
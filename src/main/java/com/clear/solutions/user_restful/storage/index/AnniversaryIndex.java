@@ -0,0 +1,107 @@
+package com.clear.solutions.user_restful.storage.index;
+
+import java.time.LocalDate;
+import java.time.Month;
+import java.time.MonthDay;
+import java.time.Year;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Index of user identifiers by the month and day of their birth date, whatever the year.
+ * <p>
+ * Keys are days of a leap year, 1 to 366, so February 29 has its own key between February 28 and March 1.
+ * Every key holds a sizable share of all users, so identifiers are kept in {@link IdChunks}. Like
+ * {@link BirthDateIndex}, the index is lock-free for readers and lists a user under every birthday one of its
+ * reachable versions has; readers check the birthday of the version they read.
+ * <p>
+ * In years that are not leap years, users born on February 29 have their birthday on March 1: the day their
+ * age grows by {@link LocalDate#minusYears} arithmetic, which the minimum age rule uses as well.
+ */
+public class AnniversaryIndex {
+
+    private static final int DAYS = 366;
+    private static final int LEAP_DAY = dayOf(LocalDate.of(2000, Month.FEBRUARY, 29));
+    private static final int MARCH_FIRST = LEAP_DAY + 1;
+
+    private final ConcurrentNavigableMap<Integer, long[][]> idsByDay = new ConcurrentSkipListMap<>();
+
+    /**
+     * Returns the day of a leap year with the month and day of the date, the key the date is indexed by.
+     */
+    public static int dayOf(LocalDate birthDate) {
+        return MonthDay.from(birthDate).atYear(2000).getDayOfYear();
+    }
+
+    /**
+     * Returns the birthday of a user born on the birth date in the given year.
+     */
+    public static LocalDate anniversary(LocalDate birthDate, int year) {
+        if (dayOf(birthDate) == LEAP_DAY && !Year.isLeap(year))
+            return LocalDate.of(year, Month.MARCH, 1);
+        return birthDate.withYear(year);
+    }
+
+    public void add(LocalDate birthDate, long userId) {
+        idsByDay.compute(dayOf(birthDate), (day, chunks) -> IdChunks.withId(chunks, userId));
+    }
+
+    /**
+     * Adds the first {@code count} (epoch day, id) pairs of the arrays, building every chunk once. Meant for
+     * filling the index before it is shared with readers.
+     */
+    public void addAll(long[] epochDays, long[] userIds, int count) {
+        int[] sizes = new int[DAYS + 1];
+        int[] days = new int[count];
+        for (int i = 0; i < count; i++) {
+            days[i] = dayOf(LocalDate.ofEpochDay(epochDays[i]));
+            sizes[days[i]]++;
+        }
+
+        long[][] buckets = new long[sizes.length][];
+        for (int i = 0; i < count; i++) {
+            if (buckets[days[i]] == null)
+                buckets[days[i]] = new long[sizes[days[i]]];
+            buckets[days[i]][--sizes[days[i]]] = userIds[i];
+        }
+
+        for (int day = 0; day < buckets.length; day++) {
+            if (buckets[day] == null)
+                continue;
+            long[] bucket = buckets[day];
+            Arrays.sort(bucket);
+            idsByDay.merge(day, IdChunks.of(bucket), (chunks, added) -> IdChunks.union(chunks, bucket));
+        }
+    }
+
+    public void remove(LocalDate birthDate, long userId) {
+        idsByDay.computeIfPresent(dayOf(birthDate), (day, chunks) -> IdChunks.withoutId(chunks, userId));
+    }
+
+    /**
+     * Passes the identifiers of users whose birthday in the given year lies within [startDate, endDate] to the
+     * consumer with the key of their bucket, ordered by birthday and then by month and day of birth and
+     * identifier. Both dates must be in that year.
+     */
+    public void forEachIdByAnniversary(int year, LocalDate startDate, LocalDate endDate, DayIdConsumer consumer) {
+        int fromDay = dayOf(startDate);
+        int toDay = dayOf(endDate);
+        // February 29 birthdays move to March 1 in other years, the leap day key lies between the other two
+        if (!Year.isLeap(year) && fromDay == MARCH_FIRST)
+            fromDay = LEAP_DAY;
+
+        for (Map.Entry<Integer, long[][]> chunks : idsByDay.subMap(fromDay, true, toDay, true).entrySet()) {
+            for (long[] chunk : chunks.getValue()) {
+                for (long userId : chunk)
+                    consumer.accept(chunks.getKey(), userId);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface DayIdConsumer {
+        void accept(int day, long userId);
+    }
+}
@@ -0,0 +1,95 @@
+package com.clear.solutions.user_restful.storage.index;
+
+import java.time.LocalDate;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Number of users by birth date, for counting a range of days without reading the users.
+ * <p>
+ * Counts are kept in a sparse tree shaped like the one of {@link ChangeGenerations}: level 0 maps an epoch day
+ * to the number of users born on it, level {@code k} maps a block of {@code 16^k} days to the sum of its level
+ * {@code k - 1} entries. A range count reads at most 15 entries on each side of the range per level, so it
+ * costs O(log) of the range length whatever the number of users. Entries are removed when they drop to zero.
+ * <p>
+ * Levels are {@link ConcurrentHashMap}s updated with atomic additions, so writers need no lock. The counts
+ * follow the latest state of every user rather than snapshots; a count racing with writes may include some
+ * levels of a change and not others, and is exact once they complete.
+ */
+public class BirthDateCounts {
+
+    private static final int BITS_PER_LEVEL = 4;
+    private static final long BLOCK_MASK = (1 << BITS_PER_LEVEL) - 1;
+    // 16^10 days cover every epoch day of a LocalDate
+    private static final int LEVELS = 10;
+
+    private final ConcurrentHashMap<Long, Long>[] levels;
+
+    @SuppressWarnings("unchecked")
+    public BirthDateCounts() {
+        levels = new ConcurrentHashMap[LEVELS];
+        for (int level = 0; level < LEVELS; level++)
+            levels[level] = new ConcurrentHashMap<>();
+    }
+
+    public void increment(LocalDate birthDate) {
+        add(birthDate.toEpochDay(), 1);
+    }
+
+    public void decrement(LocalDate birthDate) {
+        add(birthDate.toEpochDay(), -1);
+    }
+
+    /**
+     * Counts the first {@code count} epoch days of the array.
+     */
+    public void addAll(long[] epochDays, int count) {
+        // the lowest level gets one addition per day, every next one about a sixteenth of the previous
+        LongObjectHashMap<long[]> counts = new LongObjectHashMap<>();
+        for (int i = 0; i < count; i++) {
+            long[] dayCount = counts.get(epochDays[i]);
+            if (dayCount == null)
+                counts.put(epochDays[i], dayCount = new long[1]);
+            dayCount[0]++;
+        }
+        for (int i = 0; i < count; i++) {
+            long[] dayCount = counts.remove(epochDays[i]);
+            if (dayCount != null)
+                add(epochDays[i], dayCount[0]);
+        }
+    }
+
+    /**
+     * Returns the number of users born within [startEpochDay, endEpochDay].
+     */
+    public long count(long startEpochDay, long endEpochDay) {
+        long count = 0;
+        long from = startEpochDay;
+        long to = endEpochDay;
+        for (int level = 0; level < LEVELS - 1; level++) {
+            ConcurrentHashMap<Long, Long> blocks = levels[level];
+            // partial blocks at both ends are read at this level, the full blocks in between one level up
+            while (from <= to && (from & BLOCK_MASK) != 0)
+                count += countOf(blocks, from++);
+            while (from <= to && (to & BLOCK_MASK) != BLOCK_MASK)
+                count += countOf(blocks, to--);
+            if (from > to)
+                return count;
+            from >>= BITS_PER_LEVEL;
+            to >>= BITS_PER_LEVEL;
+        }
+        for (long block = from; block <= to; block++)
+            count += countOf(levels[LEVELS - 1], block);
+        return count;
+    }
+
+    private void add(long epochDay, long delta) {
+        long block = epochDay;
+        for (int level = 0; level < LEVELS; level++, block >>= BITS_PER_LEVEL)
+            levels[level].merge(block, delta, (count, added) -> count + added == 0 ? null : count + added);
+    }
+
+    private static long countOf(ConcurrentHashMap<Long, Long> blocks, long block) {
+        Long count = blocks.get(block);
+        return count == null ? 0 : count;
+    }
+}
@@ -0,0 +1,111 @@
+package com.clear.solutions.user_restful.storage.index;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sorted secondary index of user identifiers by birth date.
+ * <p>
+ * Birth dates are keyed by their epoch day, each key holding a bucket of user identifiers sorted in
+ * ascending order. A range lookup therefore costs O(log n + k) and yields identifiers ordered by
+ * (birth date, id).
+ * <p>
+ * The index is thread-safe: buckets are immutable {@link IdBuckets} replaced atomically on every change, so
+ * range lookups never block and never observe a partially modified bucket.
+ */
+public class BirthDateIndex {
+
+    private final ConcurrentNavigableMap<Long, long[]> idsByEpochDay = new ConcurrentSkipListMap<>();
+
+    public void add(LocalDate birthDate, long userId) {
+        idsByEpochDay.compute(birthDate.toEpochDay(), (epochDay, bucket) -> IdBuckets.withId(bucket, userId));
+    }
+
+    /**
+     * Adds the first {@code count} (epoch day, id) pairs of the arrays, building every bucket once instead of
+     * copying it for each identifier. Meant for filling the index before it is shared with readers.
+     */
+    public void addAll(long[] epochDays, long[] userIds, int count) {
+        // filled from the end, so the remaining size of a bucket doubles as its next free slot
+        LongObjectHashMap<int[]> remainingSizes = new LongObjectHashMap<>();
+        for (int i = 0; i < count; i++) {
+            int[] size = remainingSizes.get(epochDays[i]);
+            if (size == null)
+                remainingSizes.put(epochDays[i], size = new int[1]);
+            size[0]++;
+        }
+
+        LongObjectHashMap<long[]> buckets = new LongObjectHashMap<>(remainingSizes.size());
+        for (int i = 0; i < count; i++) {
+            long[] bucket = buckets.get(epochDays[i]);
+            int[] remaining = remainingSizes.get(epochDays[i]);
+            if (bucket == null)
+                buckets.put(epochDays[i], bucket = new long[remaining[0]]);
+            bucket[--remaining[0]] = userIds[i];
+        }
+
+        buckets.forEachValue(bucket -> Arrays.sort(bucket));
+        for (int i = 0; i < count; i++) {
+            long[] bucket = buckets.remove(epochDays[i]);
+            if (bucket != null)
+                idsByEpochDay.merge(epochDays[i], bucket, IdBuckets::union);
+        }
+    }
+
+    public void remove(LocalDate birthDate, long userId) {
+        idsByEpochDay.computeIfPresent(birthDate.toEpochDay(), (epochDay, bucket) -> IdBuckets.withoutId(bucket, userId));
+    }
+
+    /**
+     * Passes every identifier whose birth date lies within [startDate, endDate] to the consumer together with
+     * the epoch day of its bucket, ordered by birth date and then by identifier.
+     */
+    public void forEachIdInRange(LocalDate startDate, LocalDate endDate, EpochDayIdConsumer consumer) {
+        forEachIdInRange(startDate.toEpochDay(), Long.MIN_VALUE, endDate.toEpochDay(), (epochDay, userId) -> {
+            consumer.accept(epochDay, userId);
+            return true;
+        });
+    }
+
+    /**
+     * Visits identifiers in (birth date, id) order starting right after the (fromEpochDay, afterUserId) key
+     * and up to toEpochDay inclusive, until the visitor returns {@code false}. Resuming costs O(log n)
+     * regardless of how many identifiers precede the key.
+     */
+    public void forEachIdInRange(long fromEpochDay, long afterUserId, long toEpochDay, EpochDayIdVisitor visitor) {
+        if (fromEpochDay > toEpochDay)
+            return;
+
+        for (Map.Entry<Long, long[]> bucket : idsByEpochDay.subMap(fromEpochDay, true, toEpochDay, true).entrySet()) {
+            long epochDay = bucket.getKey();
+            long[] userIds = bucket.getValue();
+
+            int position = 0;
+            if (epochDay == fromEpochDay && afterUserId != Long.MIN_VALUE) {
+                position = Arrays.binarySearch(userIds, afterUserId);
+                position = position >= 0 ? position + 1 : -position - 1;
+            }
+
+            for (; position < userIds.length; position++) {
+                if (!visitor.visit(epochDay, userIds[position]))
+                    return;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    public interface EpochDayIdConsumer {
+        void accept(long epochDay, long userId);
+    }
+
+    @FunctionalInterface
+    public interface EpochDayIdVisitor {
+        /**
+         * @return {@code true} to continue with the next identifier
+         */
+        boolean visit(long epochDay, long userId);
+    }
+}
@@ -0,0 +1,87 @@
+package com.clear.solutions.user_restful.storage.index;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Modification generations of birth dates: every write takes the next value of a global counter and stamps
+ * it on the epoch days it changed, so the generation of a range of days is the maximum over its days.
+ * <p>
+ * Range maxima come from a sparse tree: level 0 maps a day to its generation, level {@code k} maps a block
+ * of {@code 16^k} days to the maximum of its level {@code k - 1} entries. A query reads at most 15 entries on
+ * each side of the range per level, whatever its length. Levels are {@link ConcurrentHashMap}s updated with
+ * {@code max}, so generations of a day only grow and concurrent writers need no lock. A query racing with
+ * {@link #advance} may not see the new generation yet.
+ */
+public class ChangeGenerations {
+
+    private static final int BITS_PER_LEVEL = 4;
+    private static final long BLOCK_MASK = (1 << BITS_PER_LEVEL) - 1;
+    // 16^10 days cover every epoch day of a LocalDate
+    private static final int LEVELS = 10;
+
+    private final AtomicLong generation = new AtomicLong();
+    private final ConcurrentHashMap<Long, Long>[] levels;
+
+    @SuppressWarnings("unchecked")
+    public ChangeGenerations() {
+        levels = new ConcurrentHashMap[LEVELS];
+        for (int level = 0; level < LEVELS; level++)
+            levels[level] = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Stamps the next generation on the first {@code count} days, unless there are none.
+     *
+     * @return the generation of the write, or the current one if no day changed
+     */
+    public long advance(long[] epochDays, int count) {
+        if (count == 0)
+            return generation.get();
+
+        long next = generation.incrementAndGet();
+        for (int i = 0; i < count; i++) {
+            long block = epochDays[i];
+            for (int level = 0; level < LEVELS; level++, block >>= BITS_PER_LEVEL)
+                levels[level].merge(block, next, Math::max);
+        }
+        return next;
+    }
+
+    /**
+     * Returns the generation of the latest write, {@code 0} before the first one.
+     */
+    public long current() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the generation of the latest write that changed a day within [startEpochDay, endEpochDay],
+     * {@code 0} if there was none.
+     */
+    public long max(long startEpochDay, long endEpochDay) {
+        long max = 0;
+        long from = startEpochDay;
+        long to = endEpochDay;
+        for (int level = 0; level < LEVELS - 1; level++) {
+            ConcurrentHashMap<Long, Long> blocks = levels[level];
+            // partial blocks at both ends are read at this level, the full blocks in between one level up
+            while (from <= to && (from & BLOCK_MASK) != 0)
+                max = Math.max(max, generationOf(blocks, from++));
+            while (from <= to && (to & BLOCK_MASK) != BLOCK_MASK)
+                max = Math.max(max, generationOf(blocks, to--));
+            if (from > to)
+                return max;
+            from >>= BITS_PER_LEVEL;
+            to >>= BITS_PER_LEVEL;
+        }
+        for (long block = from; block <= to; block++)
+            max = Math.max(max, generationOf(levels[LEVELS - 1], block));
+        return max;
+    }
+
+    private static long generationOf(ConcurrentHashMap<Long, Long> blocks, long block) {
+        Long generation = blocks.get(block);
+        return generation == null ? 0 : generation;
+    }
+}
@@ -0,0 +1,50 @@
+package com.clear.solutions.user_restful.storage.index;
+
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Unique index of users by normalized email: surrounding whitespace is stripped and letters are lower-cased.
+ * <p>
+ * An email is owned by at most one user. Writers claim the new email before their write becomes visible and
+ * release the previous one while the user is still locked. Commits are published in order, so whoever claims
+ * a released email becomes visible only after the write that released it. A lookup may briefly see the owner
+ * of an email whose user is not visible yet or already has another email; callers check the email of the
+ * user they find.
+ */
+public class EmailIndex {
+
+    private final ConcurrentHashMap<String, Long> owners = new ConcurrentHashMap<>();
+
+    public static String normalize(String email) {
+        return email == null ? null : email.strip().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Makes the user the owner of the email, unless another user owns it.
+     *
+     * @param email normalized email or {@code null}, which is always free
+     * @return whether the user owns the email now
+     */
+    public boolean claim(String email, long userId) {
+        if (email == null)
+            return true;
+        Long owner = owners.putIfAbsent(email, userId);
+        return owner == null || owner == userId;
+    }
+
+    /**
+     * Frees the email if the user owns it.
+     */
+    public void release(String email, long userId) {
+        if (email != null)
+            owners.remove(email, userId);
+    }
+
+    /**
+     * @return identifier of the user owning the normalized email, {@code null} if nobody does
+     */
+    public Long ownerOf(String email) {
+        return email == null ? null : owners.get(email);
+    }
+}
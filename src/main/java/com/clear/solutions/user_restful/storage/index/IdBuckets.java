@@ -0,0 +1,54 @@
+package com.clear.solutions.user_restful.storage.index;
+
+import java.util.Arrays;
+
+/**
+ * Copy-on-write buckets of user identifiers shared by the secondary indexes: ascending arrays that are never
+ * modified once published, every change returns a new array.
+ */
+final class IdBuckets {
+
+    private IdBuckets() {
+    }
+
+    static long[] withId(long[] bucket, long userId) {
+        if (bucket == null)
+            return new long[] {userId};
+
+        int position = Arrays.binarySearch(bucket, userId);
+        if (position >= 0)
+            return bucket;
+
+        int insertionPoint = -position - 1;
+        long[] extended = new long[bucket.length + 1];
+        System.arraycopy(bucket, 0, extended, 0, insertionPoint);
+        extended[insertionPoint] = userId;
+        System.arraycopy(bucket, insertionPoint, extended, insertionPoint + 1, bucket.length - insertionPoint);
+        return extended;
+    }
+
+    static long[] union(long[] bucket, long[] sortedIds) {
+        long[] merged = new long[bucket.length + sortedIds.length];
+        System.arraycopy(bucket, 0, merged, 0, bucket.length);
+        System.arraycopy(sortedIds, 0, merged, bucket.length, sortedIds.length);
+        Arrays.sort(merged);
+        return Arrays.stream(merged).distinct().toArray();
+    }
+
+    /**
+     * @return the bucket without the identifier or {@code null} when the bucket becomes empty,
+     * which removes its key from a concurrent map
+     */
+    static long[] withoutId(long[] bucket, long userId) {
+        int position = Arrays.binarySearch(bucket, userId);
+        if (position < 0)
+            return bucket;
+        if (bucket.length == 1)
+            return null;
+
+        long[] shrunk = new long[bucket.length - 1];
+        System.arraycopy(bucket, 0, shrunk, 0, position);
+        System.arraycopy(bucket, position + 1, shrunk, position, bucket.length - position - 1);
+        return shrunk;
+    }
+}
@@ -0,0 +1,90 @@
+package com.clear.solutions.user_restful.storage.index;
+
+import java.util.Arrays;
+
+/**
+ * Copy-on-write identifier sets for keys that can hold a sizable part of all users: ascending
+ * {@link IdBuckets} of at most {@value #CHUNK_SIZE} identifiers, themselves in ascending order. A change copies
+ * one chunk and the array referencing the chunks instead of every identifier; neither is modified once
+ * published.
+ */
+final class IdChunks {
+
+    static final int CHUNK_SIZE = 512;
+
+    private IdChunks() {
+    }
+
+    static long[][] of(long[] sortedIds) {
+        long[][] chunks = new long[(sortedIds.length + CHUNK_SIZE - 1) / CHUNK_SIZE][];
+        for (int i = 0; i < chunks.length; i++)
+            chunks[i] = Arrays.copyOfRange(sortedIds, i * CHUNK_SIZE, Math.min(sortedIds.length, (i + 1) * CHUNK_SIZE));
+        return chunks;
+    }
+
+    static long[][] withId(long[][] chunks, long userId) {
+        if (chunks == null)
+            return new long[][] {{userId}};
+
+        // identifiers grow over time, so new users almost always land in the last chunk
+        int position = chunkOf(chunks, userId);
+        long[] chunk = IdBuckets.withId(chunks[position], userId);
+        if (chunk == chunks[position])
+            return chunks;
+        if (chunk.length <= CHUNK_SIZE) {
+            long[][] updated = chunks.clone();
+            updated[position] = chunk;
+            return updated;
+        }
+
+        long[][] split = new long[chunks.length + 1][];
+        System.arraycopy(chunks, 0, split, 0, position);
+        split[position] = Arrays.copyOf(chunk, chunk.length / 2);
+        split[position + 1] = Arrays.copyOfRange(chunk, chunk.length / 2, chunk.length);
+        System.arraycopy(chunks, position + 1, split, position + 2, chunks.length - position - 1);
+        return split;
+    }
+
+    static long[][] union(long[][] chunks, long[] sortedIds) {
+        return of(IdBuckets.union(Arrays.stream(chunks).flatMapToLong(Arrays::stream).toArray(), sortedIds));
+    }
+
+    /**
+     * @return the chunks without the identifier or {@code null} when none is left, which removes their key
+     * from a concurrent map
+     */
+    static long[][] withoutId(long[][] chunks, long userId) {
+        int position = chunkOf(chunks, userId);
+        long[] chunk = IdBuckets.withoutId(chunks[position], userId);
+        if (chunk == chunks[position])
+            return chunks;
+        if (chunk != null) {
+            long[][] updated = chunks.clone();
+            updated[position] = chunk;
+            return updated;
+        }
+        if (chunks.length == 1)
+            return null;
+
+        long[][] shrunk = new long[chunks.length - 1][];
+        System.arraycopy(chunks, 0, shrunk, 0, position);
+        System.arraycopy(chunks, position + 1, shrunk, position, chunks.length - position - 1);
+        return shrunk;
+    }
+
+    /**
+     * @return position of the last chunk starting at or below the identifier, the first chunk if there is none
+     */
+    private static int chunkOf(long[][] chunks, long userId) {
+        int low = 0;
+        int high = chunks.length - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (chunks[middle][0] <= userId)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        return low;
+    }
+}
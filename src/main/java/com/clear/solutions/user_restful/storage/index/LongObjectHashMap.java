@@ -0,0 +1,175 @@
+package com.clear.solutions.user_restful.storage.index;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.function.Consumer;
+
+/**
+ * Open-addressing hash map with primitive {@code long} keys.
+ * <p>
+ * Keys are stored in a plain {@code long[]}, so lookups never box the key. Collisions are resolved with
+ * linear probing. A slot is empty when its value is {@code null}, therefore {@code null} values are not
+ * supported.
+ * <p>
+ * Writers must be serialized by the caller, but {@link #get} may run concurrently with them without any lock.
+ * A slot takes a key at most once: values are published with release stores after their key, removals leave
+ * the key in place with a removal marker, and the table is only ever replaced as a whole, once rebuilt, when
+ * it grows or is cleared of removed entries. A concurrent {@code get} thus sees every entry either as it was
+ * before a write or as it is after it.
+ */
+public class LongObjectHashMap<V> {
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+    // value of a removed entry, skipped by lookups but still a part of the probe chains it lies on
+    private static final Object REMOVED = new Object();
+    private static final VarHandle VALUES = MethodHandles.arrayElementVarHandle(Object[].class);
+
+    private volatile Table table;
+    private int size;
+    private int removedCount;
+
+    public LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        table = new Table(tableSizeFor(expectedSize));
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        Table table = this.table;
+        int slot = slotOf(key, table.mask);
+        Object value;
+        // the value is read first: once it is set, so is the key of its slot
+        while ((value = VALUES.getAcquire(table.values, slot)) != null) {
+            if (table.keys[slot] == key)
+                return value == REMOVED ? null : (V) value;
+            slot = (slot + 1) & table.mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("LongObjectHashMap does not support null values");
+
+        Table table = this.table;
+        int slot = slotOf(key, table.mask);
+        Object current;
+        while ((current = table.values[slot]) != null) {
+            if (table.keys[slot] == key) {
+                VALUES.setRelease(table.values, slot, value);
+                if (current != REMOVED)
+                    return (V) current;
+                removedCount--;
+                size++;
+                return null;
+            }
+            slot = (slot + 1) & table.mask;
+        }
+
+        table.keys[slot] = key;
+        VALUES.setRelease(table.values, slot, value);
+        if (++size + removedCount > table.resizeThreshold)
+            rehash();
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        Table table = this.table;
+        int slot = slotOf(key, table.mask);
+        Object current;
+        while ((current = table.values[slot]) != null) {
+            if (table.keys[slot] == key) {
+                if (current == REMOVED)
+                    return null;
+                VALUES.setRelease(table.values, slot, REMOVED);
+                size--;
+                removedCount++;
+                return (V) current;
+            }
+            slot = (slot + 1) & table.mask;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEachValue(Consumer<? super V> action) {
+        for (Object value : table.values) {
+            if (value != null && value != REMOVED)
+                action.accept((V) value);
+        }
+    }
+
+    public void clear() {
+        table = new Table(table.values.length);
+        size = 0;
+        removedCount = 0;
+    }
+
+    /**
+     * Copies the entries to a new table, twice as large unless removed entries took most of the slots, and
+     * publishes it once it is complete.
+     */
+    private void rehash() {
+        Table table = this.table;
+        int capacity = table.values.length;
+        Table rebuilt = new Table(size > table.resizeThreshold / 2 ? capacity << 1 : capacity);
+        for (int i = 0; i < capacity; i++) {
+            Object value = table.values[i];
+            if (value == null || value == REMOVED)
+                continue;
+
+            int slot = slotOf(table.keys[i], rebuilt.mask);
+            while (rebuilt.values[slot] != null)
+                slot = (slot + 1) & rebuilt.mask;
+            rebuilt.keys[slot] = table.keys[i];
+            rebuilt.values[slot] = value;
+        }
+        removedCount = 0;
+        this.table = rebuilt;
+    }
+
+    private static int slotOf(long key, int mask) {
+        // Fibonacci hashing spreads sequential identifiers across the whole table
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        long required = (long) Math.ceil(Math.max(expectedSize, 1) / (double) LOAD_FACTOR) + 1;
+        if (required > (1 << 30))
+            throw new IllegalArgumentException("Expected size is too large: " + expectedSize);
+        return Math.max(DEFAULT_CAPACITY, Integer.highestOneBit((int) required - 1) << 1);
+    }
+
+    private static final class Table {
+        private final long[] keys;
+        private final Object[] values;
+        private final int mask;
+        private final int resizeThreshold;
+
+        private Table(int capacity) {
+            keys = new long[capacity];
+            values = new Object[capacity];
+            mask = capacity - 1;
+            resizeThreshold = (int) (capacity * LOAD_FACTOR);
+        }
+    }
+}
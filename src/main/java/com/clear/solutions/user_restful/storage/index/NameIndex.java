@@ -0,0 +1,287 @@
+package com.clear.solutions.user_restful.storage.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Index of user identifiers by the words of their first and last names, for prefix and typo-tolerant search.
+ * <p>
+ * Names are split into lower-cased tokens, each token holding the identifiers of its users in a sorted map. A
+ * common name can be shared by a sizable part of all users, so unlike the buckets of {@link BirthDateIndex}
+ * the identifiers are kept in {@link IdChunks}: a write copies one chunk and the array referencing the chunks,
+ * not every identifier of the token.
+ * <p>
+ * The sorted tokens are read as a trie: the tokens sharing a prefix form one contiguous sub-map, and the
+ * children of a prefix are found by seeking to the first token after it, then after each child in turn.
+ * <p>
+ * Typos are found by walking that trie depth first with one row of the edit distance table per character. A
+ * branch is left as soon as every entry of its row exceeds the allowed edits, so the walk visits the prefixes
+ * close to the term rather than the whole dictionary. Deeper down, where only the letters of the term can keep
+ * a branch within the edits, just the children starting with those letters are sought. A typo in the first
+ * letter is found like any other, at the cost of visiting every child of the root, and every grandchild for
+ * terms allowed two edits. Nothing but the identifiers is stored, a write changes only the tokens it adds or
+ * removes.
+ * <p>
+ * The index follows the latest state of every user and is not versioned: a search racing with a write may
+ * find a user under either name, so callers check the names of the users they read.
+ */
+public class NameIndex {
+
+    // shorter terms only match as prefixes
+    private static final int MIN_FUZZY_LENGTH = 3;
+    private static final int MIN_TWO_EDITS_LENGTH = 8;
+    // never part of a token, stands for any character that does not occur in the term
+    private static final char NOT_A_TOKEN_CHAR = 0;
+
+    // ascending chunks of ascending identifiers by token, never modified once published
+    private final ConcurrentNavigableMap<String, long[][]> idsByToken = new ConcurrentSkipListMap<>();
+
+    /**
+     * Splits names into distinct lower-cased tokens, runs of letters, digits and apostrophes.
+     */
+    public static List<String> tokenize(String... names) {
+        List<String> tokens = new ArrayList<>(names.length);
+        for (String name : names) {
+            if (name == null)
+                continue;
+            int start = -1;
+            for (int i = 0; i <= name.length(); i++) {
+                boolean inToken = i < name.length() && isTokenChar(name.charAt(i));
+                if (inToken && start < 0) {
+                    start = i;
+                } else if (!inToken && start >= 0) {
+                    String token = name.substring(start, i).toLowerCase(Locale.ROOT);
+                    if (!tokens.contains(token))
+                        tokens.add(token);
+                    start = -1;
+                }
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Tells whether the token matches the term as {@link #forEachMatch} finds it: as a prefix or within the edits
+     * allowed for the term length.
+     */
+    public static boolean matches(String term, String token) {
+        if (token.startsWith(term))
+            return true;
+        int maxEdits = maxEdits(term);
+        return maxEdits > 0 && editDistance(term, token, maxEdits) <= maxEdits;
+    }
+
+    public void add(String token, long userId) {
+        idsByToken.compute(token, (key, chunks) -> IdChunks.withId(chunks, userId));
+    }
+
+    /**
+     * Adds the first {@code count} (token, id) pairs of the arrays, building every bucket once. Meant for
+     * filling the index before it is shared with readers.
+     */
+    public void addAll(String[] tokens, long[] userIds, int count) {
+        Map<String, int[]> sizes = new HashMap<>();
+        for (int i = 0; i < count; i++)
+            sizes.computeIfAbsent(tokens[i], token -> new int[1])[0]++;
+
+        Map<String, long[]> buckets = new HashMap<>(sizes.size() * 2);
+        for (int i = 0; i < count; i++) {
+            int[] remaining = sizes.get(tokens[i]);
+            long[] bucket = buckets.computeIfAbsent(tokens[i], token -> new long[remaining[0]]);
+            bucket[--remaining[0]] = userIds[i];
+        }
+
+        buckets.forEach((token, bucket) -> {
+            Arrays.sort(bucket);
+            idsByToken.merge(token, IdChunks.of(bucket), (chunks, added) -> IdChunks.union(chunks, bucket));
+        });
+    }
+
+    public void remove(String token, long userId) {
+        idsByToken.computeIfPresent(token, (key, chunks) -> IdChunks.withoutId(chunks, userId));
+    }
+
+    /**
+     * Visits the identifiers of the tokens matching the term, best matches first, until the visitor returns
+     * {@code false}: the token equal to the term, then the tokens starting with it in lexicographic order, then
+     * the tokens within one edit (two for terms of eight or more characters), by distance and lexicographically.
+     * Identifiers of one token are visited in ascending order; a user with several matching tokens is visited
+     * once for each.
+     *
+     * @param term a lower-cased token
+     */
+    public void forEachMatch(String term, TokenIdVisitor visitor) {
+        for (Map.Entry<String, long[][]> chunks : idsByToken.tailMap(term, true).entrySet()) {
+            if (!chunks.getKey().startsWith(term))
+                break;
+            if (!visitAll(chunks.getKey(), chunks.getValue(), visitor))
+                return;
+        }
+
+        for (String token : tokensWithTypos(term)) {
+            long[][] chunks = idsByToken.get(token);
+            if (chunks != null && !visitAll(token, chunks, visitor))
+                return;
+        }
+    }
+
+    private static boolean visitAll(String token, long[][] chunks, TokenIdVisitor visitor) {
+        for (long[] chunk : chunks) {
+            for (long userId : chunk) {
+                if (!visitor.visit(token, userId))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return tokens within the allowed edits of the term that do not start with it, best first
+     */
+    private List<String> tokensWithTypos(String term) {
+        int maxEdits = maxEdits(term);
+        if (maxEdits == 0)
+            return List.of();
+
+        int[] firstRow = new int[term.length() + 1];
+        for (int i = 0; i <= term.length(); i++)
+            firstRow[i] = i;
+        List<TypoMatch> matches = new ArrayList<>();
+        walkChildren(term, maxEdits, "", firstRow, null, matches);
+
+        matches.sort(Comparator.comparingInt(TypoMatch::distance).thenComparing(TypoMatch::token));
+        return matches.stream().map(TypoMatch::token).toList();
+    }
+
+    /**
+     * Visits the children of the prefix in the token trie, collecting the tokens within the allowed edits of
+     * the term. Rows hold the edit distances between the prefix and every prefix of the term.
+     */
+    private void walkChildren(String term, int maxEdits, String prefix, int[] row, int[] previousRow,
+                              List<TypoMatch> matches) {
+        char previousChar = lastChar(prefix);
+        if (min(nextRow(term, previousChar, NOT_A_TOKEN_CHAR, row, previousRow)) <= maxEdits) {
+            // any character would do, every child is visited
+            String next = idsByToken.higherKey(prefix);
+            while (next != null && next.startsWith(prefix)) {
+                char c = next.charAt(prefix.length());
+                walkChild(term, maxEdits, prefix, c, next, row, previousRow, matches);
+                if (c == Character.MAX_VALUE)
+                    return;
+                next = idsByToken.ceilingKey(prefix + (char) (c + 1));
+            }
+            return;
+        }
+
+        // only characters of the term can keep the distance within the edits: matching it after a prefix within
+        // the edits or swapped with the previous character; the children they start are sought
+        StringBuilder sought = new StringBuilder();
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            boolean helps = row[i] <= maxEdits || previousRow != null && i + 1 < term.length()
+                    && term.charAt(i + 1) == previousChar && previousRow[i] < maxEdits;
+            if (!helps || sought.indexOf(String.valueOf(c)) >= 0)
+                continue;
+            sought.append(c);
+            String child = prefix + c;
+            String next = idsByToken.ceilingKey(child);
+            if (next != null && next.startsWith(child))
+                walkChild(term, maxEdits, prefix, c, next, row, previousRow, matches);
+        }
+    }
+
+    /**
+     * @param next the first token starting with the prefix followed by {@code c}
+     */
+    private void walkChild(String term, int maxEdits, String prefix, char c, String next, int[] row, int[] previousRow,
+                           List<TypoMatch> matches) {
+        String child = prefix + c;
+        int[] childRow = nextRow(term, lastChar(prefix), c, row, previousRow);
+
+        // a token sorts before its extensions, so the first token of the child is the child itself if any
+        int distance = childRow[term.length()];
+        if (next.length() == child.length() && distance <= maxEdits && !child.startsWith(term))
+            matches.add(new TypoMatch(child, distance));
+        if (min(childRow) <= maxEdits)
+            walkChildren(term, maxEdits, child, childRow, row, matches);
+    }
+
+    /**
+     * Extends the edit distance table by the character {@code c} appended after {@code previousChar}.
+     */
+    private static int[] nextRow(String term, char previousChar, char c, int[] row, int[] previousRow) {
+        int[] nextRow = new int[row.length];
+        nextRow[0] = row[0] + 1;
+        for (int i = 1; i < row.length; i++) {
+            int cost = term.charAt(i - 1) == c ? 0 : 1;
+            int distance = Math.min(Math.min(row[i] + 1, nextRow[i - 1] + 1), row[i - 1] + cost);
+            if (previousRow != null && i > 1 && term.charAt(i - 1) == previousChar && term.charAt(i - 2) == c)
+                distance = Math.min(distance, previousRow[i - 2] + 1);
+            nextRow[i] = distance;
+        }
+        return nextRow;
+    }
+
+    private static char lastChar(String prefix) {
+        // the root of the trie has no character, none of the term can be swapped with it
+        return prefix.isEmpty() ? NOT_A_TOKEN_CHAR : prefix.charAt(prefix.length() - 1);
+    }
+
+    private static int maxEdits(String term) {
+        if (term.length() < MIN_FUZZY_LENGTH)
+            return 0;
+        return term.length() < MIN_TWO_EDITS_LENGTH ? 1 : 2;
+    }
+
+    /**
+     * Optimal string alignment distance: insertions, deletions, substitutions and transpositions of adjacent
+     * characters.
+     *
+     * @return the distance or {@code max + 1} if it is greater than {@code max}
+     */
+    static int editDistance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max)
+            return max + 1;
+
+        int[] row = new int[a.length() + 1];
+        for (int i = 0; i <= a.length(); i++)
+            row[i] = i;
+        int[] previousRow = null;
+        for (int j = 0; j < b.length(); j++) {
+            int[] nextRow = nextRow(a, j == 0 ? 0 : b.charAt(j - 1), b.charAt(j), row, previousRow);
+            if (min(nextRow) > max)
+                return max + 1;
+            previousRow = row;
+            row = nextRow;
+        }
+        return Math.min(row[a.length()], max + 1);
+    }
+
+    private static int min(int[] row) {
+        int min = row[0];
+        for (int distance : row)
+            min = Math.min(min, distance);
+        return min;
+    }
+
+    private static boolean isTokenChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '\'';
+    }
+
+    private record TypoMatch(String token, int distance) {}
+
+    @FunctionalInterface
+    public interface TokenIdVisitor {
+        /**
+         * @return {@code true} to continue with the next identifier
+         */
+        boolean visit(String token, long userId);
+    }
+}
@@ -0,0 +1,131 @@
+package com.clear.solutions.user_restful.storage.index;
+
+import java.time.LocalDate;
+import java.util.PriorityQueue;
+
+/**
+ * {@link BirthDateIndex} split into independent shards, each holding the identifiers of its own part of the
+ * users. Writers of different shards never touch the same skip list, and a range can be scanned shard by shard
+ * in parallel. Callers choose the shard of every user and must keep choosing the same one.
+ * <p>
+ * Scans over all shards merge them back into (birth date, id) order. They read the shards in batches of
+ * {@value #MERGE_BATCH_SIZE} identifiers, resuming each shard from the last key it returned, so a scan keeps
+ * only one batch per shard in memory whatever the length of the range.
+ */
+public class ShardedBirthDateIndex {
+
+    private static final int MERGE_BATCH_SIZE = 256;
+
+    private final BirthDateIndex[] shards;
+
+    public ShardedBirthDateIndex(int shardCount) {
+        shards = new BirthDateIndex[shardCount];
+        for (int i = 0; i < shardCount; i++)
+            shards[i] = new BirthDateIndex();
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    public BirthDateIndex shard(int shard) {
+        return shards[shard];
+    }
+
+    /**
+     * Same as {@link BirthDateIndex#forEachIdInRange(LocalDate, LocalDate, BirthDateIndex.EpochDayIdConsumer)}
+     * over the identifiers of all shards.
+     */
+    public void forEachIdInRange(LocalDate startDate, LocalDate endDate, BirthDateIndex.EpochDayIdConsumer consumer) {
+        forEachIdInRange(startDate.toEpochDay(), Long.MIN_VALUE, endDate.toEpochDay(), (epochDay, userId) -> {
+            consumer.accept(epochDay, userId);
+            return true;
+        });
+    }
+
+    /**
+     * Same as {@link BirthDateIndex#forEachIdInRange(long, long, long, BirthDateIndex.EpochDayIdVisitor)} over
+     * the identifiers of all shards.
+     */
+    public void forEachIdInRange(long fromEpochDay, long afterUserId, long toEpochDay, BirthDateIndex.EpochDayIdVisitor visitor) {
+        if (shards.length == 1) {
+            shards[0].forEachIdInRange(fromEpochDay, afterUserId, toEpochDay, visitor);
+            return;
+        }
+
+        PriorityQueue<ShardCursor> cursors = new PriorityQueue<>(shards.length);
+        for (BirthDateIndex shard : shards) {
+            ShardCursor cursor = new ShardCursor(shard, fromEpochDay, afterUserId, toEpochDay);
+            if (cursor.hasCurrent())
+                cursors.add(cursor);
+        }
+
+        while (!cursors.isEmpty()) {
+            ShardCursor cursor = cursors.poll();
+            if (!visitor.visit(cursor.epochDay(), cursor.userId()))
+                return;
+            if (cursor.advance())
+                cursors.add(cursor);
+        }
+    }
+
+    /**
+     * Position within the identifiers of one shard, reading them a batch at a time.
+     */
+    private static final class ShardCursor implements Comparable<ShardCursor> {
+
+        private final BirthDateIndex shard;
+        private final long toEpochDay;
+        private final long[] epochDays = new long[MERGE_BATCH_SIZE];
+        private final long[] userIds = new long[MERGE_BATCH_SIZE];
+        private int size;
+        private int position;
+
+        private ShardCursor(BirthDateIndex shard, long fromEpochDay, long afterUserId, long toEpochDay) {
+            this.shard = shard;
+            this.toEpochDay = toEpochDay;
+            fill(fromEpochDay, afterUserId);
+        }
+
+        private boolean hasCurrent() {
+            return position < size;
+        }
+
+        private long epochDay() {
+            return epochDays[position];
+        }
+
+        private long userId() {
+            return userIds[position];
+        }
+
+        /**
+         * @return whether there is a next identifier
+         */
+        private boolean advance() {
+            if (++position < size)
+                return true;
+            // a batch shorter than the maximum was the last one
+            if (size < MERGE_BATCH_SIZE)
+                return false;
+            fill(epochDays[size - 1], userIds[size - 1]);
+            return hasCurrent();
+        }
+
+        private void fill(long fromEpochDay, long afterUserId) {
+            size = 0;
+            position = 0;
+            shard.forEachIdInRange(fromEpochDay, afterUserId, toEpochDay, (epochDay, userId) -> {
+                epochDays[size] = epochDay;
+                userIds[size++] = userId;
+                return size < MERGE_BATCH_SIZE;
+            });
+        }
+
+        @Override
+        public int compareTo(ShardCursor other) {
+            int byEpochDay = Long.compare(epochDay(), other.epochDay());
+            return byEpochDay != 0 ? byEpochDay : Long.compare(userId(), other.userId());
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.clear.solutions.user_restful.storage.mvcc;
+
+/**
+ * Point-in-time view of a multi-version storage. Versions it can reach are kept alive until it is closed.
+ */
+public final class ReadSnapshot implements AutoCloseable {
+
+    private final VersionClock clock;
+    private final long version;
+    private boolean closed;
+
+    ReadSnapshot(VersionClock clock, long version) {
+        this.clock = clock;
+        this.version = version;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    @Override
+    public void close() {
+        if (closed)
+            return;
+
+        closed = true;
+        clock.release(version);
+    }
+}
@@ -0,0 +1,57 @@
+package com.clear.solutions.user_restful.storage.mvcc;
+
+import com.clear.solutions.user_restful.entity.Users;
+
+/**
+ * One committed state of a user, linked to the state it replaced.
+ * <p>
+ * The newest version heads the chain. A version with a {@code null} user is a deletion marker.
+ * Only {@link #previous} ever changes: it is cut once no reader can reach the older versions anymore.
+ */
+public final class UserVersion {
+
+    private final Users user;
+    private final long commitVersion;
+    private volatile UserVersion previous;
+
+    public UserVersion(Users user, long commitVersion, UserVersion previous) {
+        this.user = user;
+        this.commitVersion = commitVersion;
+        this.previous = previous;
+    }
+
+    public static UserVersion deletion(long commitVersion, UserVersion previous) {
+        return new UserVersion(null, commitVersion, previous);
+    }
+
+    /**
+     * @return the user as seen by a reader of the given snapshot or {@code null} if the user
+     * did not exist or was already deleted at that point
+     */
+    public Users visibleAt(long snapshotVersion) {
+        UserVersion version = this;
+        while (version != null && version.commitVersion > snapshotVersion)
+            version = version.previous;
+        return version == null ? null : version.user;
+    }
+
+    public Users getUser() {
+        return user;
+    }
+
+    public boolean isDeletion() {
+        return user == null;
+    }
+
+    public long getCommitVersion() {
+        return commitVersion;
+    }
+
+    public UserVersion getPrevious() {
+        return previous;
+    }
+
+    public void detachPrevious() {
+        previous = null;
+    }
+}
@@ -0,0 +1,115 @@
+package com.clear.solutions.user_restful.storage.mvcc;
+
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Commit clock of a multi-version storage and registry of the snapshots readers currently hold.
+ * <p>
+ * Writers {@link #reserve()} a commit version, link their new {@link UserVersion} and then {@link #publish}
+ * it. Versions become visible strictly in order, so a snapshot taken at version {@code v} sees every write
+ * with a commit version up to {@code v} and none after it. A writer whose predecessor has not published yet
+ * spins briefly, then parks until the publish of the version it waits for wakes it up, so writers beyond the
+ * number of cores do not burn the CPU the late one needs.
+ * <p>
+ * {@link #reclaimHorizon()} tells writers which versions may still be reached by a reader: for every user
+ * only the newest version at or below the horizon and the ones above it have to be kept.
+ */
+public class VersionClock {
+
+    private static final int SPINS_BEFORE_PARK = 64;
+    private static final long NO_ACTIVE_SNAPSHOT = Long.MAX_VALUE;
+
+    private final AtomicLong reserved = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final TreeMap<Long, Integer> activeSnapshots = new TreeMap<>();
+    private long oldestActiveSnapshot = NO_ACTIVE_SNAPSHOT;
+
+    public long reserve() {
+        return reserved.incrementAndGet();
+    }
+
+    /**
+     * Makes the reserved version visible to new snapshots once every earlier version is published.
+     */
+    public void publish(long commitVersion) {
+        awaitCommitted(commitVersion - 1);
+        // no other writer can move the clock on from the previous version
+        committed.set(commitVersion);
+        for (Waiter waiter : waiters) {
+            if (waiter.version <= commitVersion)
+                LockSupport.unpark(waiter.thread);
+        }
+    }
+
+    /**
+     * Waits until the given version and every earlier one are published.
+     */
+    public void awaitCommitted(long version) {
+        for (int spins = 0; spins < SPINS_BEFORE_PARK; spins++) {
+            if (committed.get() >= version)
+                return;
+            Thread.onSpinWait();
+        }
+
+        // registered before the last check, so a publish after it is sure to see the waiter and unpark it
+        Waiter waiter = new Waiter(Thread.currentThread(), version);
+        waiters.add(waiter);
+        boolean interrupted = false;
+        try {
+            while (committed.get() < version) {
+                LockSupport.park(this);
+                // the wait cannot be given up, only the interrupt status is kept for the caller
+                interrupted |= Thread.interrupted();
+            }
+        } finally {
+            waiters.remove(waiter);
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    public long reservedVersion() {
+        return reserved.get();
+    }
+
+    public long committedVersion() {
+        return committed.get();
+    }
+
+    public ReadSnapshot openSnapshot() {
+        synchronized (activeSnapshots) {
+            long snapshotVersion = committed.get();
+            activeSnapshots.merge(snapshotVersion, 1, Integer::sum);
+            oldestActiveSnapshot = Math.min(oldestActiveSnapshot, snapshotVersion);
+            return new ReadSnapshot(this, snapshotVersion);
+        }
+    }
+
+    /**
+     * @return the version up to which no active or future snapshot can tell older versions apart
+     */
+    public long reclaimHorizon() {
+        // under the lock of openSnapshot: a reader could otherwise take its version, lose the CPU while
+        // writers publish and compute the horizon, and register a version they already reclaimed
+        synchronized (activeSnapshots) {
+            return Math.min(committed.get(), oldestActiveSnapshot);
+        }
+    }
+
+    void release(long snapshotVersion) {
+        synchronized (activeSnapshots) {
+            activeSnapshots.computeIfPresent(snapshotVersion, (version, readers) -> readers == 1 ? null : readers - 1);
+            oldestActiveSnapshot = activeSnapshots.isEmpty()
+                    ? NO_ACTIVE_SNAPSHOT
+                    : activeSnapshots.firstKey();
+        }
+    }
+
+    private record Waiter(Thread thread, long version) {
+    }
+}
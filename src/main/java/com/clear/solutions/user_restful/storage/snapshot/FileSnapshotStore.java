@@ -0,0 +1,237 @@
+package com.clear.solutions.user_restful.storage.snapshot;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.storage.index.LongObjectHashMap;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * {@link SnapshotStore} keeping snapshots as binary files in a directory.
+ * <p>
+ * A snapshot starts with a fixed-size header {@code [magic][format version][log segment][user id counter]
+ * [user count][CRC32C of the body]}, followed by one record per user: {@code [id][birth date epoch day]}
+ * and email, first name, last name, address and phone number as UTF-8 strings prefixed with their byte
+ * length ({@code -1} for {@code null}).
+ * <p>
+ * Snapshots are written to a temporary file and moved in place once complete, so a crash never leaves a
+ * partial snapshot behind. They are read through memory-mapped windows, without copying the file to the heap.
+ */
+public class FileSnapshotStore implements SnapshotStore {
+
+    private static final int MAGIC = 0x55534E50;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 3 * Integer.BYTES + 3 * Long.BYTES;
+    private static final int NULL_STRING = -1;
+    private static final int WRITE_BUFFER_SIZE = 1024 * 1024;
+    private static final long WINDOW_SIZE = 256L * 1024 * 1024;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Path directory;
+
+    public FileSnapshotStore(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+    }
+
+    @Override
+    public Optional<SnapshotHeader> load(Consumer<Users> users) throws IOException {
+        List<Long> snapshots = listSnapshots();
+        if (snapshots.isEmpty())
+            return Optional.empty();
+
+        Path path = snapshotPath(snapshots.get(snapshots.size() - 1));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedReader reader = new MappedReader(channel);
+            if (reader.getInt() != MAGIC || reader.getInt() != FORMAT_VERSION)
+                throw new IOException("%s is not a users snapshot of version %d".formatted(path, FORMAT_VERSION));
+
+            SnapshotHeader header = new SnapshotHeader(reader.getLong(), reader.getLong(), reader.getLong());
+            int expectedChecksum = reader.getInt();
+            if (bodyChecksum(channel) != expectedChecksum)
+                throw new IOException(path + " is corrupted, its checksum does not match");
+
+            for (long i = 0; i < header.userCount(); i++)
+                users.accept(reader.getUser());
+            return Optional.of(header);
+        }
+    }
+
+    @Override
+    public void write(long logSegment, long userIdCounter, SnapshotContents contents) throws IOException {
+        Path path = snapshotPath(logSegment);
+        Path temporaryPath = path.resolveSibling(path.getFileName() + TEMPORARY_SUFFIX);
+
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            channel.position(HEADER_SIZE);
+            CRC32C checksum = new CRC32C();
+            // the stream is not closed, that would close the channel before the header is written
+            DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), checksum), WRITE_BUFFER_SIZE));
+            long[] userCount = new long[1];
+            contents.forEachUser(user -> {
+                try {
+                    writeUser(output, user);
+                    userCount[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            output.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(FORMAT_VERSION)
+                    .putLong(logSegment)
+                    .putLong(userIdCounter)
+                    .putLong(userCount[0])
+                    .putInt((int) checksum.getValue())
+                    .flip();
+            while (header.hasRemaining())
+                channel.write(header, header.position());
+            channel.force(true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        Files.move(temporaryPath, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        for (long snapshot : listSnapshots()) {
+            if (snapshot < logSegment)
+                Files.delete(snapshotPath(snapshot));
+        }
+    }
+
+    private static void writeUser(DataOutputStream output, Users user) throws IOException {
+        output.writeLong(user.getId());
+        output.writeLong(user.getBirthDate().toEpochDay());
+        writeString(output, user.getEmail());
+        writeString(output, user.getFirstName());
+        writeString(output, user.getLastName());
+        writeString(output, user.getAddress());
+        writeString(output, user.getPhoneNumber());
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        if (value == null) {
+            output.writeInt(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static int bodyChecksum(FileChannel channel) throws IOException {
+        CRC32C checksum = new CRC32C();
+        for (long position = HEADER_SIZE; position < channel.size(); position += WINDOW_SIZE)
+            checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW_SIZE, channel.size() - position)));
+        return (int) checksum.getValue();
+    }
+
+    private List<Long> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path snapshotPath(long logSegment) {
+        return directory.resolve(SNAPSHOT_PREFIX + "%020d".formatted(logSegment) + SNAPSHOT_SUFFIX);
+    }
+
+    /**
+     * Reads a snapshot sequentially through a memory-mapped window that slides along the file. A window is
+     * remapped before a value that does not fit into its remainder, so values never span two windows.
+     */
+    private static final class MappedReader {
+
+        private final FileChannel channel;
+        private final long size;
+        private long windowStart;
+        private MappedByteBuffer window;
+        private byte[] stringBuffer = new byte[256];
+        // birth dates repeat a lot and LocalDate is immutable, restored users share one instance per day
+        private final LongObjectHashMap<LocalDate> birthDates = new LongObjectHashMap<>();
+
+        private MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            this.window = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(WINDOW_SIZE, size));
+        }
+
+        private int getInt() throws IOException {
+            ensureAvailable(Integer.BYTES);
+            return window.getInt();
+        }
+
+        private long getLong() throws IOException {
+            ensureAvailable(Long.BYTES);
+            return window.getLong();
+        }
+
+        private Users getUser() throws IOException {
+            Users user = new Users(getLong());
+            user.setBirthDate(getBirthDate());
+            user.setEmail(getString());
+            user.setFirstName(getString());
+            user.setLastName(getString());
+            user.setAddress(getString());
+            user.setPhoneNumber(getString());
+            return user;
+        }
+
+        private LocalDate getBirthDate() throws IOException {
+            long epochDay = getLong();
+            LocalDate birthDate = birthDates.get(epochDay);
+            if (birthDate == null)
+                birthDates.put(epochDay, birthDate = LocalDate.ofEpochDay(epochDay));
+            return birthDate;
+        }
+
+        private String getString() throws IOException {
+            int length = getInt();
+            if (length == NULL_STRING)
+                return null;
+
+            ensureAvailable(length);
+            if (stringBuffer.length < length)
+                stringBuffer = new byte[Math.max(length, 2 * stringBuffer.length)];
+            window.get(stringBuffer, 0, length);
+            return new String(stringBuffer, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private void ensureAvailable(int bytes) throws IOException {
+            if (window.remaining() >= bytes)
+                return;
+
+            windowStart += window.position();
+            if (size - windowStart < bytes)
+                throw new IOException("Snapshot ends in the middle of a record");
+            window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, Math.min(WINDOW_SIZE, size - windowStart));
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.clear.solutions.user_restful.storage.snapshot;
+
+import com.clear.solutions.user_restful.storage.implementation.ConcurrentUsersStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class SnapshotConfiguration {
+
+    @Value("${user.storage.snapshot.enabled}")
+    private boolean enabled;
+
+    @Value("${user.storage.snapshot.directory}")
+    private Path directory;
+
+    @Value("${user.storage.snapshot.interval-ms}")
+    private long intervalMillis;
+
+    @Bean
+    public SnapshotStore snapshotStore() throws IOException {
+        return enabled ? new FileSnapshotStore(directory) : SnapshotStore.DISABLED;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "user.storage.snapshot.enabled", havingValue = "true")
+    public SnapshotScheduler snapshotScheduler(ConcurrentUsersStorage usersStorage) {
+        return new SnapshotScheduler(usersStorage::writeSnapshot, intervalMillis);
+    }
+}
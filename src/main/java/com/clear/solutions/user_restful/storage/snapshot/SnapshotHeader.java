@@ -0,0 +1,9 @@
+package com.clear.solutions.user_restful.storage.snapshot;
+
+/**
+ * @param logSegment    first write-ahead log segment that has to be replayed on top of the snapshot
+ * @param userIdCounter next identifier the storage hands out
+ * @param userCount     number of users in the snapshot
+ */
+public record SnapshotHeader(long logSegment, long userIdCounter, long userCount) {
+}
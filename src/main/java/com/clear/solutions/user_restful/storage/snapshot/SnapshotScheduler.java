@@ -0,0 +1,56 @@
+package com.clear.solutions.user_restful.storage.snapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the snapshot task on a background thread at a fixed delay and once more on close, so that a clean
+ * shutdown leaves nothing to replay.
+ */
+public class SnapshotScheduler implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotScheduler.class);
+
+    private final SnapshotTask task;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "users-snapshot-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SnapshotScheduler(SnapshotTask task, long intervalMillis) {
+        this.task = task;
+        executor.scheduleWithFixedDelay(this::runQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        task.run();
+    }
+
+    private void runQuietly() {
+        try {
+            task.run();
+        } catch (Exception e) {
+            // the next run starts from scratch, until then startup replays a longer log
+            LOGGER.error("Failed to write a storage snapshot", e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface SnapshotTask {
+        void run() throws IOException;
+    }
+}
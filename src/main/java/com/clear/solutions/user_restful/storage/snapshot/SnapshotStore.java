@@ -0,0 +1,44 @@
+package com.clear.solutions.user_restful.storage.snapshot;
+
+import com.clear.solutions.user_restful.entity.Users;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the latest point-in-time copy of the whole storage, so that startup replays only the write-ahead
+ * log segments written after it.
+ */
+public interface SnapshotStore {
+
+    SnapshotStore DISABLED = new SnapshotStore() {
+        @Override
+        public Optional<SnapshotHeader> load(Consumer<Users> users) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void write(long logSegment, long userIdCounter, SnapshotContents contents) {
+        }
+    };
+
+    /**
+     * Passes every user of the latest snapshot to the consumer.
+     *
+     * @return header of the loaded snapshot or an empty optional if there is none
+     */
+    Optional<SnapshotHeader> load(Consumer<Users> users) throws IOException;
+
+    /**
+     * Writes a new snapshot and drops the older ones once it is complete.
+     *
+     * @param logSegment first write-ahead log segment not covered by the snapshot
+     */
+    void write(long logSegment, long userIdCounter, SnapshotContents contents) throws IOException;
+
+    @FunctionalInterface
+    interface SnapshotContents {
+        void forEachUser(Consumer<Users> consumer);
+    }
+}
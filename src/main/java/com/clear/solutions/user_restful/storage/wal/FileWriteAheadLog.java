@@ -0,0 +1,434 @@
+package com.clear.solutions.user_restful.storage.wal;
+
+import com.clear.solutions.user_restful.entity.Users;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * {@link WriteAheadLog} stored as numbered segment files in a directory, the last one written through
+ * a {@link FileChannel}.
+ * <p>
+ * The records of one write are encoded together and appended to a heap buffer at once, or not at all once a
+ * write to the disk has failed. A flush swaps it with a spare one, writes it out and
+ * forces the channel, so writers keep appending while the disk is busy and every record waiting at that
+ * moment shares the same fsync (group commit).
+ * <p>
+ * Each record is framed as {@code [payload length][CRC32C of payload][payload]}. A record torn by a crash
+ * fails the length or checksum check on replay, and the log is truncated right before it.
+ */
+public class FileWriteAheadLog implements WriteAheadLog, Closeable {
+
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+    private static final int NULL_STRING = -1;
+    // email, first name, last name, address and phone number
+    private static final int STRING_FIELD_COUNT = 5;
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    private static final long DEFAULT_MAX_FSYNC_DELAY_MILLIS = 1000;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncThreshold;
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ScheduledExecutorService flusher;
+
+    // guarded by this
+    private ByteBuffer appendBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private long appendedSequence;
+    // guarded by flushLock
+    private FileChannel channel;
+    private long segment;
+    private ByteBuffer flushBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private volatile long durableSequence;
+    private volatile IOException failure;
+
+    /**
+     * @param fsyncThreshold milliseconds between fsyncs for {@link FsyncPolicy#EVERY_N_MILLIS}, records per
+     *                       fsync for {@link FsyncPolicy#EVERY_N_RECORDS}, ignored for {@link FsyncPolicy#EVERY_WRITE}
+     */
+    public FileWriteAheadLog(Path directory, FsyncPolicy fsyncPolicy, long fsyncThreshold) throws IOException {
+        this(directory, fsyncPolicy, fsyncThreshold, DEFAULT_MAX_FSYNC_DELAY_MILLIS);
+    }
+
+    /**
+     * @param fsyncThreshold       milliseconds between fsyncs for {@link FsyncPolicy#EVERY_N_MILLIS}, records per
+     *                             fsync for {@link FsyncPolicy#EVERY_N_RECORDS}, ignored for {@link FsyncPolicy#EVERY_WRITE}
+     * @param maxFsyncDelayMillis  for {@link FsyncPolicy#EVERY_N_RECORDS}, milliseconds after which records are forced
+     *                             in the background even if fewer than N are waiting; ignored for the other policies
+     */
+    public FileWriteAheadLog(Path directory, FsyncPolicy fsyncPolicy, long fsyncThreshold, long maxFsyncDelayMillis) throws IOException {
+        if (fsyncPolicy != FsyncPolicy.EVERY_WRITE && fsyncThreshold <= 0)
+            throw new IllegalArgumentException("Fsync threshold should be positive, got " + fsyncThreshold);
+        if (fsyncPolicy == FsyncPolicy.EVERY_N_RECORDS && maxFsyncDelayMillis <= 0)
+            throw new IllegalArgumentException("Maximum fsync delay should be positive, got " + maxFsyncDelayMillis);
+
+        Files.createDirectories(directory);
+        this.directory = directory;
+        List<Long> segments = listSegments();
+        this.segment = segments.isEmpty() ? 1 : segments.get(segments.size() - 1);
+        this.channel = openSegment(segment);
+        this.channel.position(channel.size());
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncThreshold = fsyncThreshold;
+
+        if (fsyncPolicy != FsyncPolicy.EVERY_WRITE) {
+            // with EVERY_N_RECORDS, the records of a quiet period would otherwise wait for the next busy one
+            long flushInterval = fsyncPolicy == FsyncPolicy.EVERY_N_MILLIS ? fsyncThreshold : maxFsyncDelayMillis;
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "users-wal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            this.flusher.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    @Override
+    public long appendPuts(List<Users> users) {
+        byte[][] strings = new byte[STRING_FIELD_COUNT * users.size()][];
+        int batchSize = 0;
+        for (int i = 0; i < users.size(); i++) {
+            Users user = users.get(i);
+            int first = STRING_FIELD_COUNT * i;
+            strings[first] = encode(user.getEmail());
+            strings[first + 1] = encode(user.getFirstName());
+            strings[first + 2] = encode(user.getLastName());
+            strings[first + 3] = encode(user.getAddress());
+            strings[first + 4] = encode(user.getPhoneNumber());
+            batchSize += HEADER_SIZE + putPayloadSize(strings, first);
+        }
+
+        ByteBuffer batch = ByteBuffer.allocate(batchSize);
+        for (int i = 0; i < users.size(); i++) {
+            Users user = users.get(i);
+            int first = STRING_FIELD_COUNT * i;
+            int payloadSize = putPayloadSize(strings, first);
+            startRecord(batch, payloadSize);
+            batch.put(PUT);
+            batch.putLong(user.getId());
+            batch.putLong(user.getBirthDate().toEpochDay());
+            for (int field = first; field < first + STRING_FIELD_COUNT; field++)
+                putString(batch, strings[field]);
+            finishRecord(batch, payloadSize);
+        }
+        return append(batch, users.size());
+    }
+
+    @Override
+    public long appendDeletes(List<Long> userIds) {
+        int payloadSize = 1 + Long.BYTES;
+        ByteBuffer batch = ByteBuffer.allocate(userIds.size() * (HEADER_SIZE + payloadSize));
+        for (Long userId : userIds) {
+            startRecord(batch, payloadSize);
+            batch.put(DELETE);
+            batch.putLong(userId);
+            finishRecord(batch, payloadSize);
+        }
+        return append(batch, userIds.size());
+    }
+
+    @Override
+    public void commit(long sequence) {
+        switch (fsyncPolicy) {
+            case EVERY_WRITE -> flushUpTo(sequence);
+            case EVERY_N_RECORDS -> {
+                if (sequence - durableSequence >= fsyncThreshold)
+                    flushUpTo(sequence);
+                else
+                    checkWritable();
+            }
+            case EVERY_N_MILLIS -> checkWritable();
+        }
+    }
+
+    @Override
+    public long rotate() {
+        flushLock.lock();
+        try {
+            // records appended from now on are written to the new segment by the next flush
+            flush();
+            FileChannel nextChannel = openSegment(segment + 1);
+            channel.close();
+            channel = nextChannel;
+            return ++segment;
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException("Failed to start a new write-ahead log segment", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void dropSegmentsBefore(long segment) {
+        try {
+            for (long droppedSegment : listSegments()) {
+                if (droppedSegment < segment)
+                    Files.delete(segmentPath(droppedSegment));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to drop write-ahead log segments", e);
+        }
+    }
+
+    @Override
+    public void replay(long fromSegment, Consumer<Users> puts, LongConsumer deletes) {
+        flushLock.lock();
+        try {
+            for (long replayedSegment : listSegments()) {
+                if (replayedSegment < fromSegment)
+                    continue;
+
+                if (replayedSegment == segment) {
+                    replaySegment(channel, puts, deletes);
+                    continue;
+                }
+                try (FileChannel segmentChannel = openSegment(replayedSegment)) {
+                    replaySegment(segmentChannel, puts, deletes);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replay the write-ahead log", e);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null)
+            flusher.shutdown();
+
+        flushLock.lock();
+        try {
+            if (failure == null)
+                flush();
+        } finally {
+            flushLock.unlock();
+            channel.close();
+        }
+    }
+
+    private static void replaySegment(FileChannel segmentChannel, Consumer<Users> puts, LongConsumer deletes) throws IOException {
+        long validLength = 0;
+        segmentChannel.position(0);
+        // the stream is not closed, that would close the channel as well
+        DataInputStream input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(segmentChannel), INITIAL_BUFFER_SIZE));
+        CRC32C checksum = new CRC32C();
+        byte[] payload = new byte[256];
+        while (true) {
+            int payloadSize;
+            int expectedChecksum;
+            try {
+                payloadSize = input.readInt();
+                expectedChecksum = input.readInt();
+                if (payloadSize <= 0 || payloadSize > segmentChannel.size() - validLength - HEADER_SIZE)
+                    break;
+                if (payload.length < payloadSize)
+                    payload = new byte[Math.max(payloadSize, 2 * payload.length)];
+                input.readFully(payload, 0, payloadSize);
+            } catch (EOFException e) {
+                break;
+            }
+
+            checksum.reset();
+            checksum.update(payload, 0, payloadSize);
+            if ((int) checksum.getValue() != expectedChecksum)
+                break;
+
+            ByteBuffer record = ByteBuffer.wrap(payload, 0, payloadSize);
+            if (record.get() == PUT)
+                puts.accept(decodeUser(record));
+            else
+                deletes.accept(record.getLong());
+            validLength += HEADER_SIZE + payloadSize;
+        }
+
+        // drops a record torn by a crash, new records go right after the last valid one
+        if (validLength < segmentChannel.size())
+            segmentChannel.truncate(validLength);
+        segmentChannel.position(validLength);
+    }
+
+    private List<Long> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private FileChannel openSegment(long segmentNumber) throws IOException {
+        return FileChannel.open(segmentPath(segmentNumber), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private Path segmentPath(long segmentNumber) {
+        // zero-padded, so that segment files also sort by name
+        return directory.resolve(SEGMENT_PREFIX + "%020d".formatted(segmentNumber) + SEGMENT_SUFFIX);
+    }
+
+    private void flushUpTo(long sequence) {
+        flushLock.lock();
+        try {
+            // a writer that waited for the lock usually finds its records forced by the previous holder
+            if (durableSequence < sequence)
+                flush();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        flushLock.lock();
+        try {
+            if (failure == null)
+                flush();
+        } catch (UncheckedIOException e) {
+            // already recorded, reported to the next writer
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Must be called with the flush lock held.
+     */
+    private void flush() {
+        checkWritable();
+
+        long flushedSequence;
+        synchronized (this) {
+            if (appendBuffer.position() == 0)
+                return;
+
+            ByteBuffer filled = appendBuffer;
+            appendBuffer = flushBuffer;
+            flushBuffer = filled;
+            flushedSequence = appendedSequence;
+        }
+
+        try {
+            flushBuffer.flip();
+            while (flushBuffer.hasRemaining())
+                channel.write(flushBuffer);
+            channel.force(false);
+            durableSequence = flushedSequence;
+        } catch (IOException e) {
+            failure = e;
+            throw new UncheckedIOException("Failed to write the write-ahead log", e);
+        } finally {
+            flushBuffer.clear();
+        }
+    }
+
+    private void checkWritable() {
+        if (failure != null)
+            throw new UncheckedIOException("Write-ahead log is no longer writable", failure);
+    }
+
+    /**
+     * Adds the encoded records of one write to the append buffer, unless the log can no longer be written.
+     *
+     * @return sequence number of the last record
+     */
+    private synchronized long append(ByteBuffer batch, int recordCount) {
+        checkWritable();
+        batch.flip();
+        if (appendBuffer.remaining() < batch.remaining()) {
+            ByteBuffer extended = ByteBuffer.allocate(Math.max(2 * appendBuffer.capacity(), appendBuffer.position() + batch.remaining()));
+            appendBuffer.flip();
+            extended.put(appendBuffer);
+            appendBuffer = extended;
+        }
+        appendBuffer.put(batch);
+        appendedSequence += recordCount;
+        return appendedSequence;
+    }
+
+    private static void startRecord(ByteBuffer buffer, int payloadSize) {
+        buffer.putInt(payloadSize);
+        // checksum placeholder, filled in once the payload is written
+        buffer.putInt(0);
+    }
+
+    private static void finishRecord(ByteBuffer buffer, int payloadSize) {
+        int payloadStart = buffer.position() - payloadSize;
+        CRC32C checksum = new CRC32C();
+        checksum.update(buffer.array(), buffer.arrayOffset() + payloadStart, payloadSize);
+        buffer.putInt(payloadStart - Integer.BYTES, (int) checksum.getValue());
+    }
+
+    private static int putPayloadSize(byte[][] strings, int first) {
+        int payloadSize = 1 + 2 * Long.BYTES + STRING_FIELD_COUNT * Integer.BYTES;
+        for (int field = first; field < first + STRING_FIELD_COUNT; field++)
+            payloadSize += length(strings[field]);
+        return payloadSize;
+    }
+
+    private static Users decodeUser(ByteBuffer record) {
+        Users user = new Users(record.getLong());
+        user.setBirthDate(LocalDate.ofEpochDay(record.getLong()));
+        user.setEmail(getString(record));
+        user.setFirstName(getString(record));
+        user.setLastName(getString(record));
+        user.setAddress(getString(record));
+        user.setPhoneNumber(getString(record));
+        return user;
+    }
+
+    private static byte[] encode(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(NULL_STRING);
+            return;
+        }
+        buffer.putInt(value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer record) {
+        int length = record.getInt();
+        if (length == NULL_STRING)
+            return null;
+
+        String value = new String(record.array(), record.arrayOffset() + record.position(), length, StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return value;
+    }
+}
@@ -0,0 +1,23 @@
+package com.clear.solutions.user_restful.storage.wal;
+
+/**
+ * Tells when appended records of a {@link FileWriteAheadLog} are forced to the disk.
+ */
+public enum FsyncPolicy {
+
+    /**
+     * Every write waits for its records to be forced. Concurrent writers share one fsync.
+     */
+    EVERY_WRITE,
+
+    /**
+     * Records are forced in the background every N milliseconds, writers never wait.
+     */
+    EVERY_N_MILLIS,
+
+    /**
+     * The writer that brings the number of records not yet forced to N forces them. Fewer records are forced
+     * in the background every maximum fsync delay, so they never wait much longer than that.
+     */
+    EVERY_N_RECORDS
+}
@@ -0,0 +1,89 @@
+package com.clear.solutions.user_restful.storage.wal;
+
+import com.clear.solutions.user_restful.entity.Users;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+/**
+ * Append-only log of storage changes, replayed on startup to rebuild the storage.
+ * <p>
+ * Every record carries the full state of a user or the identifier of a removed one, so replaying the
+ * records of a user in order yields its latest state. Appending only buffers records; they become durable
+ * once {@link #commit} returns, or later, depending on the {@link FsyncPolicy}. A log that failed to write
+ * rejects further appends, so writers find out before they change anything.
+ * <p>
+ * The log is split into numbered segments. {@link #rotate()} starts a new one, so that the segments before it
+ * can be dropped once a snapshot covers them.
+ */
+public interface WriteAheadLog {
+
+    WriteAheadLog DISABLED = new WriteAheadLog() {
+        @Override
+        public long appendPuts(List<Users> users) {
+            return 0;
+        }
+
+        @Override
+        public long appendDeletes(List<Long> userIds) {
+            return 0;
+        }
+
+        @Override
+        public void commit(long sequence) {
+        }
+
+        @Override
+        public long rotate() {
+            return 0;
+        }
+
+        @Override
+        public void dropSegmentsBefore(long segment) {
+        }
+
+        @Override
+        public void replay(long fromSegment, Consumer<Users> puts, LongConsumer deletes) {
+        }
+    };
+
+    /**
+     * Appends the states of the users changed by one write, all of them or none.
+     *
+     * @return sequence number of the last record
+     * @throws java.io.UncheckedIOException if the log can no longer be written
+     */
+    long appendPuts(List<Users> users);
+
+    /**
+     * Appends the removals of one write, all of them or none.
+     *
+     * @return sequence number of the last record
+     * @throws java.io.UncheckedIOException if the log can no longer be written
+     */
+    long appendDeletes(List<Long> userIds);
+
+    /**
+     * Makes records up to the given sequence number durable as the fsync policy requires. With
+     * {@link FsyncPolicy#EVERY_WRITE} it returns only once they reached the disk.
+     *
+     * @throws java.io.UncheckedIOException if the log can no longer be written
+     */
+    void commit(long sequence);
+
+    /**
+     * Forces the records appended so far and starts a new segment for the following ones.
+     *
+     * @return number of the new segment
+     */
+    long rotate();
+
+    void dropSegmentsBefore(long segment);
+
+    /**
+     * Passes every record of the given segment and all later ones to the matching consumer in the order
+     * they were appended.
+     */
+    void replay(long fromSegment, Consumer<Users> puts, LongConsumer deletes);
+}
@@ -0,0 +1,39 @@
+package com.clear.solutions.user_restful.storage.wal;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class WriteAheadLogConfiguration {
+
+    @Value("${user.storage.wal.enabled}")
+    private boolean enabled;
+
+    @Value("${user.storage.wal.directory}")
+    private Path directory;
+
+    @Value("${user.storage.wal.fsync-policy}")
+    private FsyncPolicy fsyncPolicy;
+
+    @Value("${user.storage.wal.fsync-interval-ms}")
+    private long fsyncIntervalMillis;
+
+    @Value("${user.storage.wal.fsync-records}")
+    private long fsyncRecords;
+
+    @Value("${user.storage.wal.fsync-max-delay-ms}")
+    private long fsyncMaxDelayMillis;
+
+    @Bean
+    public WriteAheadLog writeAheadLog() throws IOException {
+        if (!enabled)
+            return WriteAheadLog.DISABLED;
+
+        long fsyncThreshold = fsyncPolicy == FsyncPolicy.EVERY_N_MILLIS ? fsyncIntervalMillis : fsyncRecords;
+        return new FileWriteAheadLog(directory, fsyncPolicy, fsyncThreshold, fsyncMaxDelayMillis);
+    }
+}
@@ -3,101 +3,62 @@ package com.clear.solutions.user_restful.util;
 import com.clear.solutions.user_restful.dto.UserInfoDTO;
 import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorDescription;
 import com.clear.solutions.user_restful.exceptions.IncorrectRequestException;
-import com.clear.solutions.user_restful.exceptions.ValidationFailedException;
+import com.clear.solutions.user_restful.util.validation.RuleSet;
 
-import java.time.LocalDate;
-import java.util.ArrayList;
 import java.util.List;
 
+import static com.clear.solutions.user_restful.util.validation.UserRules.*;
+
 public class UsersValidationUtil {
 
-    public static void validateUserData(UserInfoDTO user) {
-        List<ErrorDescription> errorDescriptions = new ArrayList<>();
+    private static final RuleSet NEW_USER_RULES = new RuleSet(
+            EMAIL_PRESENT, FIRST_NAME_PRESENT, LAST_NAME_PRESENT, BIRTH_DATE_PRESENT,
+            EMAIL_FORMAT, BIRTH_DATE_NOT_IN_FUTURE
+    );
+    private static final RuleSet FULL_UPDATE_RULES = new RuleSet(
+            ADDRESS_PRESENT, PHONE_NUMBER_PRESENT,
+            EMAIL_PRESENT, FIRST_NAME_PRESENT, LAST_NAME_PRESENT, BIRTH_DATE_PRESENT,
+            EMAIL_FORMAT, BIRTH_DATE_NOT_IN_FUTURE
+    );
+    private static final RuleSet PARTIAL_UPDATE_RULES = new RuleSet(
+            ANY_FIELD_PRESENT, EMAIL_FORMAT, BIRTH_DATE_NOT_IN_FUTURE
+    );
+    private static final RuleSet PARTIAL_UPDATE_METHOD_RULES = new RuleSet(NOT_ALL_FIELDS_PRESENT);
 
-        checkRequiredFieldsPresence(user, errorDescriptions);
-        validateInputForPatterns(user, errorDescriptions);
+    public static void validateUserData(UserInfoDTO user) {
+        NEW_USER_RULES.validate(user);
+    }
 
-        throwExceptionIfRequired(errorDescriptions);
+    /**
+     * Same checks as {@link #validateUserData(UserInfoDTO)}, but the problems are returned instead of thrown,
+     * so batch requests can report them per item. The returned list is empty and immutable for a valid user.
+     */
+    public static List<ErrorDescription> collectUserDataErrors(UserInfoDTO user) {
+        return NEW_USER_RULES.collectErrors(user);
     }
 
     public static void validatePartialUserData(UserInfoDTO user) {
         checkAllFieldsPresenceForPartialUpdate(user);
 
-        List<ErrorDescription> errorDescriptions = new ArrayList<>();
-        checkAllFieldsAbsence(user, errorDescriptions);
-
-        validateEmailAgainstPattern(user, errorDescriptions);
-        validateBirthDateAgainstCurrentDate(user, errorDescriptions);
-
-        throwExceptionIfRequired(errorDescriptions);
-    }
-
-    public static void validateAllUserData(UserInfoDTO user) {
-        List<ErrorDescription> errorDescriptions = new ArrayList<>();
-        checkAllFieldsPresence(user, errorDescriptions);
-
-        validateEmailAgainstPattern(user, errorDescriptions);
-        validateBirthDateAgainstCurrentDate(user, errorDescriptions);
-
-        throwExceptionIfRequired(errorDescriptions);
-    }
-
-    private static void throwExceptionIfRequired(List<ErrorDescription> errorDescriptions) {
-        if (errorDescriptions.size() != 0)
-            throw new ValidationFailedException(errorDescriptions);
+        PARTIAL_UPDATE_RULES.validate(user);
     }
 
-    private static void validateInputForPatterns(UserInfoDTO user, List<ErrorDescription> errorDescriptions) {
-        validateEmailAgainstPattern(user, errorDescriptions);
-        validateBirthDateAgainstCurrentDate(user, errorDescriptions);
+    /**
+     * Same checks as {@link #validatePartialUserData(UserInfoDTO)}, but the problems are returned instead of thrown.
+     * A body with all fields present is reported with the 405 status the single-user endpoint responds with.
+     */
+    public static List<ErrorDescription> collectPartialUserDataErrors(UserInfoDTO user) {
+        List<ErrorDescription> methodErrors = PARTIAL_UPDATE_METHOD_RULES.collectErrors(user);
+        return methodErrors.isEmpty() ? PARTIAL_UPDATE_RULES.collectErrors(user) : methodErrors;
     }
 
-    private static void checkAllFieldsPresence(UserInfoDTO user, List<ErrorDescription> errorDescriptions) {
-        if (user.address() == null)
-            errorDescriptions.add(createErrorResponse("'address' field should be present"));
-        if (user.phoneNumber() == null)
-            errorDescriptions.add(createErrorResponse("'phoneNumber' field should be present"));
-
-        checkRequiredFieldsPresence(user, errorDescriptions);
-    }
-
-    private static void checkRequiredFieldsPresence(UserInfoDTO user, List<ErrorDescription> errorDescriptions) {
-        if (user.email() == null)
-            errorDescriptions.add(createErrorResponse("'email' field should be present"));
-        if (user.firstName() == null)
-            errorDescriptions.add(createErrorResponse("'firstName' field should be present"));
-        if (user.lastName() == null)
-            errorDescriptions.add(createErrorResponse("'lastName' field should be present"));
-        if (user.birthDate() == null)
-            errorDescriptions.add(createErrorResponse("'birthDate' field should be present"));
-    }
-
-    private static void checkAllFieldsAbsence(UserInfoDTO user, List<ErrorDescription> errorDescriptions) {
-        if (user.email() == null && user.firstName() == null && user.lastName() == null &&
-                user.birthDate() == null && user.address() == null && user.phoneNumber() == null)
-            errorDescriptions.add(
-                    createErrorResponse("At least one field out of the following list should be present: 'email', 'firstName', 'lastName', " +
-                            "'birthDate', 'address', 'phoneNumber'")
-            );
+    public static void validateAllUserData(UserInfoDTO user) {
+        FULL_UPDATE_RULES.validate(user);
     }
 
     private static void checkAllFieldsPresenceForPartialUpdate(UserInfoDTO user) {
-        if (user.email() != null && user.firstName() != null && user.lastName() != null &&
-                user.birthDate() != null && user.address() != null && user.phoneNumber() != null)
-            throw new IncorrectRequestException("Request body contains all user fields. Use endpoint with PUT method");
-    }
-
-    private static void validateEmailAgainstPattern(UserInfoDTO user, List<ErrorDescription> errorDescriptions) {
-        if (user.email() != null && !user.email().matches("[a-z]+\\.?[a-z0-9]+@[a-z]{2,6}(\\.[a-z]{2,4}){1,2}"))
-            errorDescriptions.add(createErrorResponse("Email should start with a shorter letter and do not contain capital letters or special symbols (e.g. examplemail@lll.kpi.ua)"));
-    }
-
-    private static void validateBirthDateAgainstCurrentDate(UserInfoDTO user, List<ErrorDescription> errorDescriptions) {
-        if (user.birthDate() != null && LocalDate.now().isBefore(user.birthDate()))
-            errorDescriptions.add(createErrorResponse("Birth date should be less than current date value"));
-    }
-
-    private static ErrorDescription createErrorResponse(String detail) {
-        return new ErrorDescription(400, detail);
+        List<ErrorDescription> methodErrors = PARTIAL_UPDATE_METHOD_RULES.collectErrors(user);
+        if (!methodErrors.isEmpty())
+            throw new IncorrectRequestException(methodErrors.get(0).detail());
     }
 }
@@ -1,6 +1,7 @@
 package com.clear.solutions.user_restful.util;
 
 import com.clear.solutions.user_restful.dto.DataContainerDTO;
+import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorBodies;
 import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorDescription;
 import com.clear.solutions.user_restful.exceptions.ValidationFailedException;
 
@@ -8,9 +9,11 @@ import java.util.List;
 
 public class ValidateDataContainer {
 
+    private static final List<ErrorDescription> MISSING_DATA_ERRORS =
+            List.of(ErrorBodies.fixed(400, "Request body should contain 'data' argument with actual user data"));
+
     public static <T> void validateDataContainer(DataContainerDTO<T> container) {
         if (container.data() == null)
-            throw new ValidationFailedException(
-                    List.of(new ErrorDescription(400, "Request body should contain 'data' argument with actual user data")));
+            throw new ValidationFailedException(MISSING_DATA_ERRORS);
     }
 }
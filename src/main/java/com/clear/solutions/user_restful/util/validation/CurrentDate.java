@@ -0,0 +1,32 @@
+package com.clear.solutions.user_restful.util.validation;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Today's date in the default time zone, computed once per day instead of on every {@link LocalDate#now()}.
+ */
+final class CurrentDate {
+
+    private static volatile Day day = Day.of(LocalDate.now());
+
+    private CurrentDate() {
+    }
+
+    static LocalDate today() {
+        Day current = day;
+        if (System.currentTimeMillis() < current.endMillis())
+            return current.date();
+
+        current = Day.of(LocalDate.now());
+        day = current;
+        return current.date();
+    }
+
+    private record Day(LocalDate date, long endMillis) {
+
+        private static Day of(LocalDate date) {
+            return new Day(date, date.plusDays(1).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+    }
+}
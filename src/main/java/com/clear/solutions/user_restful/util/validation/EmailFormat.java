@@ -0,0 +1,74 @@
+package com.clear.solutions.user_restful.util.validation;
+
+/**
+ * Hand-compiled matcher of the email format {@value #PATTERN}: a letter-only part optionally followed by a dot,
+ * then letters or digits, and a domain of two or three letter-only labels, the first one 2-6 letters long and
+ * the others 2-4. Unlike {@link String#matches} it neither compiles a pattern nor allocates a matcher.
+ */
+final class EmailFormat {
+
+    static final String PATTERN = "[a-z]+\\.?[a-z0-9]+@[a-z]{2,6}(\\.[a-z]{2,4}){1,2}";
+
+    private EmailFormat() {
+    }
+
+    static boolean matches(String email) {
+        int at = email.indexOf('@');
+        return at > 0 && matchesLocalPart(email, at) && matchesDomain(email, at + 1);
+    }
+
+    /**
+     * {@code [a-z]+\.?[a-z0-9]+} over [0, end): without a dot both parts may be split anywhere after the
+     * first letter, so the whole part is a letter followed by at least one letter or digit.
+     */
+    private static boolean matchesLocalPart(String email, int end) {
+        int position = 0;
+        while (position < end && isLetter(email.charAt(position)))
+            position++;
+        if (position == 0)
+            return false;
+
+        if (position < end && email.charAt(position) == '.') {
+            position++;
+            if (position == end)
+                return false;
+        } else if (end < 2) {
+            return false;
+        }
+
+        for (; position < end; position++) {
+            if (!isLetter(email.charAt(position)) && !isDigit(email.charAt(position)))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * {@code [a-z]{2,6}(\.[a-z]{2,4}){1,2}} over the rest of the string.
+     */
+    private static boolean matchesDomain(String email, int start) {
+        int labels = 0;
+        int labelStart = start;
+        for (int position = start; position <= email.length(); position++) {
+            if (position < email.length() && isLetter(email.charAt(position)))
+                continue;
+            if (position < email.length() && email.charAt(position) != '.')
+                return false;
+
+            int labelLength = position - labelStart;
+            if (labelLength < 2 || labelLength > (labels == 0 ? 6 : 4))
+                return false;
+            labels++;
+            labelStart = position + 1;
+        }
+        return labels == 2 || labels == 3;
+    }
+
+    private static boolean isLetter(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,43 @@
+package com.clear.solutions.user_restful.util.validation;
+
+import com.clear.solutions.user_restful.dto.UserInfoDTO;
+import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorDescription;
+import com.clear.solutions.user_restful.exceptions.ValidationFailedException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ordered rules applied to a user as a whole. A valid user passes without a single allocation: the error list
+ * is created only when the first rule fails.
+ */
+public final class RuleSet {
+
+    private final ValidationRule[] rules;
+
+    public RuleSet(ValidationRule... rules) {
+        this.rules = rules.clone();
+    }
+
+    /**
+     * @return errors of the failed rules in rule order, an immutable empty list if there are none
+     */
+    public List<ErrorDescription> collectErrors(UserInfoDTO user) {
+        List<ErrorDescription> errors = List.of();
+        for (ValidationRule rule : rules) {
+            if (!rule.check().isViolatedBy(user))
+                continue;
+
+            if (errors.isEmpty())
+                errors = new ArrayList<>(rules.length);
+            errors.add(rule.error());
+        }
+        return errors;
+    }
+
+    public void validate(UserInfoDTO user) {
+        List<ErrorDescription> errors = collectErrors(user);
+        if (!errors.isEmpty())
+            throw new ValidationFailedException(errors);
+    }
+}
@@ -0,0 +1,12 @@
+package com.clear.solutions.user_restful.util.validation;
+
+import com.clear.solutions.user_restful.dto.UserInfoDTO;
+
+@FunctionalInterface
+public interface UserCheck {
+
+    /**
+     * @return {@code true} if the user breaks the rule
+     */
+    boolean isViolatedBy(UserInfoDTO user);
+}
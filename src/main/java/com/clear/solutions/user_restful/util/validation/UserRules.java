@@ -0,0 +1,89 @@
+package com.clear.solutions.user_restful.util.validation;
+
+import com.clear.solutions.user_restful.dto.UserInfoDTO;
+import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorBodies;
+
+import java.time.LocalDate;
+
+import static com.clear.solutions.user_restful.util.validation.ValidationRule.rule;
+
+/**
+ * Rules for {@link com.clear.solutions.user_restful.dto.UserInfoDTO} fields, created once and shared.
+ */
+public final class UserRules {
+
+    public static final ValidationRule EMAIL_PRESENT =
+            rule("'email' field should be present", user -> user.email() == null);
+    public static final ValidationRule FIRST_NAME_PRESENT =
+            rule("'firstName' field should be present", user -> user.firstName() == null);
+    public static final ValidationRule LAST_NAME_PRESENT =
+            rule("'lastName' field should be present", user -> user.lastName() == null);
+    public static final ValidationRule BIRTH_DATE_PRESENT =
+            rule("'birthDate' field should be present", user -> user.birthDate() == null);
+    public static final ValidationRule ADDRESS_PRESENT =
+            rule("'address' field should be present", user -> user.address() == null);
+    public static final ValidationRule PHONE_NUMBER_PRESENT =
+            rule("'phoneNumber' field should be present", user -> user.phoneNumber() == null);
+
+    public static final ValidationRule ANY_FIELD_PRESENT = rule(
+            "At least one field out of the following list should be present: 'email', 'firstName', 'lastName', " +
+                    "'birthDate', 'address', 'phoneNumber'",
+            user -> user.email() == null && user.firstName() == null && user.lastName() == null &&
+                    user.birthDate() == null && user.address() == null && user.phoneNumber() == null);
+
+    /**
+     * Reported with 405: a partial update must leave at least one field out, otherwise PUT is the right method.
+     */
+    public static final ValidationRule NOT_ALL_FIELDS_PRESENT = new ValidationRule(
+            user -> user.email() != null && user.firstName() != null && user.lastName() != null &&
+                    user.birthDate() != null && user.address() != null && user.phoneNumber() != null,
+            ErrorBodies.fixed(405, "Request body contains all user fields. Use endpoint with PUT method"));
+
+    public static final ValidationRule EMAIL_FORMAT = rule(
+            "Email should start with a shorter letter and do not contain capital letters or special symbols (e.g. examplemail@lll.kpi.ua)",
+            user -> user.email() != null && !EmailFormat.matches(user.email()));
+    public static final ValidationRule BIRTH_DATE_NOT_IN_FUTURE = rule(
+            "Birth date should be less than current date value",
+            user -> user.birthDate() != null && user.birthDate().isAfter(CurrentDate.today()));
+
+    private UserRules() {
+    }
+
+    /**
+     * Fails for users younger than the given number of full years; passes when the birth date is absent.
+     */
+    public static ValidationRule minimumAge(int years) {
+        return rule("Application works with users whose age is %s+".formatted(years), new MinimumAgeCheck(years));
+    }
+
+    /**
+     * Caches the latest birth date that is old enough, so checking a user costs a single comparison.
+     */
+    private static final class MinimumAgeCheck implements UserCheck {
+
+        private final int years;
+        private volatile Threshold threshold;
+
+        private MinimumAgeCheck(int years) {
+            this.years = years;
+            this.threshold = new Threshold(LocalDate.MIN, LocalDate.MIN);
+        }
+
+        @Override
+        public boolean isViolatedBy(UserInfoDTO user) {
+            if (user.birthDate() == null)
+                return false;
+
+            LocalDate today = CurrentDate.today();
+            Threshold current = threshold;
+            if (!current.today().isEqual(today)) {
+                current = new Threshold(today, today.minusYears(years));
+                threshold = current;
+            }
+            return user.birthDate().isAfter(current.latestBirthDate());
+        }
+
+        private record Threshold(LocalDate today, LocalDate latestBirthDate) {
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.clear.solutions.user_restful.util.validation;
+
+import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorBodies;
+import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorDescription;
+
+/**
+ * A check together with the error reported when it fails. The error is created once with the rule and the
+ * same instance is reported for every violation, its JSON is prepared by {@link ErrorBodies} up front.
+ */
+public record ValidationRule(UserCheck check, ErrorDescription error) {
+
+    public static ValidationRule rule(String detail, UserCheck check) {
+        return new ValidationRule(check, ErrorBodies.fixed(400, detail));
+    }
+}
@@ -0,0 +1,105 @@
+package com.clear.solutions.user_restful.cache;
+
+import com.clear.solutions.user_restful.serialization.UserProjection;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RangeResponseCacheTest {
+
+    private static final LocalDate JANUARY_FIRST = LocalDate.of(2000, 1, 1);
+    private static final LocalDate JANUARY_LAST = LocalDate.of(2000, 1, 31);
+    private static final LocalDate FEBRUARY_FIRST = LocalDate.of(2000, 2, 1);
+    private static final LocalDate FEBRUARY_LAST = LocalDate.of(2000, 2, 29);
+
+    private final RangeResponseCache cache = new RangeResponseCache(1 << 20);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void get_SameRangeAndProjection_LoadedOnce() throws Exception {
+        byte[] first = get(JANUARY_FIRST, JANUARY_LAST, UserProjection.ALL);
+        byte[] second = get(JANUARY_FIRST, JANUARY_LAST, UserProjection.parse("id,email,firstName,lastName,birthDate,address,phoneNumber"));
+        get(JANUARY_FIRST, JANUARY_LAST, UserProjection.parse("id"));
+
+        assertSame(first, second);
+        assertEquals(2, loads.get());
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+    }
+
+    @Test
+    public void birthDatesChanged_DropsOnlyRangesContainingChangedDays() throws Exception {
+        get(JANUARY_FIRST, JANUARY_LAST, UserProjection.ALL);
+        get(FEBRUARY_FIRST, FEBRUARY_LAST, UserProjection.ALL);
+        get(JANUARY_FIRST, FEBRUARY_LAST, UserProjection.ALL);
+
+        cache.birthDatesChanged(new long[]{LocalDate.of(2000, 2, 10).toEpochDay(), LocalDate.of(1990, 1, 1).toEpochDay(), 0}, 2);
+
+        assertEquals(2, cache.invalidations());
+        get(JANUARY_FIRST, JANUARY_LAST, UserProjection.ALL);
+        assertEquals(3, loads.get());
+        get(FEBRUARY_FIRST, FEBRUARY_LAST, UserProjection.ALL);
+        get(JANUARY_FIRST, FEBRUARY_LAST, UserProjection.ALL);
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    public void birthDatesChanged_RangeBoundsAreInclusive() throws Exception {
+        get(JANUARY_FIRST, JANUARY_LAST, UserProjection.ALL);
+        cache.birthDatesChanged(new long[]{JANUARY_LAST.toEpochDay()}, 1);
+        get(JANUARY_FIRST, JANUARY_LAST, UserProjection.ALL);
+        cache.birthDatesChanged(new long[]{JANUARY_FIRST.toEpochDay()}, 1);
+        get(JANUARY_FIRST, JANUARY_LAST, UserProjection.ALL);
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void get_OverCapacity_EvictsLeastRecentlyUsed() throws Exception {
+        RangeResponseCache small = new RangeResponseCache(8 * 1024);
+        LocalDate day = JANUARY_FIRST;
+        for (int i = 0; i < 8; i++)
+            small.get(day.plusDays(i), day.plusDays(i), UserProjection.ALL, () -> new byte[800]);
+        small.get(day, day, UserProjection.ALL, () -> fail("recently used range was evicted"));
+        for (int i = 8; i < 11; i++)
+            small.get(day.plusDays(i), day.plusDays(i), UserProjection.ALL, () -> new byte[800]);
+
+        assertTrue(small.usedBytes() <= 8 * 1024);
+        assertEquals(3, small.evictions());
+        small.get(day, day, UserProjection.ALL, () -> fail("recently used range was evicted"));
+    }
+
+    @Test
+    public void get_ResponseLargerThanAnEighth_NotCached() throws Exception {
+        RangeResponseCache small = new RangeResponseCache(8 * 1024);
+        small.get(JANUARY_FIRST, JANUARY_LAST, UserProjection.ALL, () -> new byte[1024]);
+
+        assertEquals(0, small.usedBytes());
+    }
+
+    @Test
+    public void get_RangeChangedWhileLoading_ResponseNotCached() throws Exception {
+        cache.get(JANUARY_FIRST, JANUARY_LAST, UserProjection.ALL, () -> {
+            cache.birthDatesChanged(new long[]{LocalDate.of(2000, 1, 15).toEpochDay()}, 1);
+            return new byte[1];
+        });
+        cache.get(FEBRUARY_FIRST, FEBRUARY_LAST, UserProjection.ALL, () -> {
+            cache.birthDatesChanged(new long[]{LocalDate.of(2000, 1, 15).toEpochDay()}, 1);
+            return new byte[1];
+        });
+        get(JANUARY_FIRST, JANUARY_LAST, UserProjection.ALL);
+        get(FEBRUARY_FIRST, FEBRUARY_LAST, UserProjection.ALL);
+
+        assertEquals(1, loads.get());
+    }
+
+    private byte[] get(LocalDate startDate, LocalDate endDate, UserProjection projection) throws Exception {
+        return cache.get(startDate, endDate, projection, () -> {
+            loads.incrementAndGet();
+            return new byte[16];
+        });
+    }
+}
@@ -1,28 +1,51 @@
 package com.clear.solutions.user_restful.controller;
 
+import com.clear.solutions.user_restful.cache.RangeResponseCache;
+import com.clear.solutions.user_restful.dto.BatchItemResultDTO;
 import com.clear.solutions.user_restful.dto.DataContainerDTO;
+import com.clear.solutions.user_restful.dto.HistogramBucketDTO;
+import com.clear.solutions.user_restful.dto.HistogramGranularity;
+import com.clear.solutions.user_restful.dto.PageCursor;
+import com.clear.solutions.user_restful.dto.PagedDataContainerDTO;
 import com.clear.solutions.user_restful.dto.UserInfoDTO;
+import com.clear.solutions.user_restful.dto.UserPatchDTO;
 import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.exception_hadler.exception_body.ErrorDescription;
+import com.clear.solutions.user_restful.exceptions.EmailAlreadyExistsException;
 import com.clear.solutions.user_restful.exceptions.NotSupportedAgeException;
 import com.clear.solutions.user_restful.exceptions.UserNotFoundException;
+import com.clear.solutions.user_restful.exceptions.UserVersionMismatchException;
 import com.clear.solutions.user_restful.service.UsersService;
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 
 @WebMvcTest(UsersController.class)
+@Import(RangeResponseCache.class)
 public class UsersControllerTest {
 
     @Autowired
@@ -31,8 +54,20 @@ public class UsersControllerTest {
     private ObjectMapper mapper;
     @MockBean
     private UsersService usersService;
+    @Autowired
+    private RangeResponseCache rangeResponseCache;
 
     private final String BASIC_URL = "/v1/users";
+    private static final MediaType SMILE = MediaType.parseMediaType("application/x-jackson-smile");
+    private static final MediaType CBOR_SEQUENCE = MediaType.parseMediaType("application/cbor-seq");
+
+    private final ObjectMapper cborMapper = CBORMapper.builder().addModule(new JavaTimeModule()).build();
+    private final ObjectMapper smileMapper = SmileMapper.builder().addModule(new JavaTimeModule()).build();
+
+    @BeforeEach
+    public void clearRangeResponseCache() {
+        rangeResponseCache.clear();
+    }
 
     @Test
     public void getUsersByBirthDateRange_OkResponse() throws Exception {
@@ -55,6 +90,156 @@ public class UsersControllerTest {
                 .andExpect(jsonPath("$.data.[0].id").value(1L));
     }
 
+    @Test
+    public void getUsersByBirthDateRange_OkResponse_ProjectedToRequestedFields() throws Exception {
+        LocalDate startDate = LocalDate.of(2010, 10, 10);
+        LocalDate endDate = LocalDate.of(2010, 10, 10);
+        Users user = new Users(1L);
+        user.setEmail("examplemail@lll.kpi.ua");
+        user.setBirthDate(startDate);
+        user.setAddress("Street 10/2, apartment 15, Kyiv, Ukraine");
+
+        when(usersService.getAllByBirthDateRange(startDate, endDate))
+                .thenReturn(new DataContainerDTO<>(List.of(user)));
+
+        mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", startDate.toString())
+                        .param("endDate", endDate.toString())
+                        .param("fields", "id, email,birthDate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.[0].id").value(1L))
+                .andExpect(jsonPath("$.data.[0].email").value("examplemail@lll.kpi.ua"))
+                .andExpect(jsonPath("$.data.[0].birthDate").value(startDate.toString()))
+                .andExpect(jsonPath("$.data.[0].address").doesNotExist())
+                .andExpect(jsonPath("$.data.[0].firstName").doesNotExist());
+    }
+
+    @Test
+    public void getUsersByBirthDateRange_OkResponse_RepeatedRangeServedFromCache() throws Exception {
+        LocalDate startDate = LocalDate.of(2010, 10, 10);
+        LocalDate endDate = LocalDate.of(2010, 10, 10);
+
+        when(usersService.getAllByBirthDateRange(startDate, endDate))
+                .thenReturn(new DataContainerDTO<>(List.of(new Users(1L))));
+        long hits = rangeResponseCache.hits();
+
+        for (int i = 0; i < 2; i++)
+            mockMvc.perform(get(BASIC_URL)
+                            .param("startDate", startDate.toString())
+                            .param("endDate", endDate.toString()))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(jsonPath("$.data.[0].id").value(1L));
+
+        verify(usersService, times(1)).getAllByBirthDateRange(startDate, endDate);
+        assertEquals(hits + 1, rangeResponseCache.hits());
+    }
+
+    @Test
+    public void getUsersByBirthDateRange_NotModified_RangeGenerationUnchanged() throws Exception {
+        LocalDate startDate = LocalDate.of(2010, 10, 10);
+        LocalDate endDate = LocalDate.of(2010, 10, 10);
+
+        when(usersService.getBirthDateRangeGeneration(startDate, endDate)).thenReturn(7L);
+        when(usersService.getAllByBirthDateRange(startDate, endDate))
+                .thenReturn(new DataContainerDTO<>(List.of(new Users(1L))));
+
+        String eTag = mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", startDate.toString())
+                        .param("endDate", endDate.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().exists("ETag"))
+                .andReturn().getResponse().getHeader("ETag");
+
+        mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", startDate.toString())
+                        .param("endDate", endDate.toString())
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag))
+                .andExpect(content().bytes(new byte[0]));
+        verify(usersService, times(1)).getAllByBirthDateRange(startDate, endDate);
+
+        when(usersService.getBirthDateRangeGeneration(startDate, endDate)).thenReturn(8L);
+        rangeResponseCache.clear();
+
+        mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", startDate.toString())
+                        .param("endDate", endDate.toString())
+                        .header("If-None-Match", eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.[0].id").value(1L));
+        assertNotEquals(eTag, mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", startDate.toString())
+                        .param("endDate", endDate.toString()))
+                .andReturn().getResponse().getHeader("ETag"));
+    }
+
+    @Test
+    public void getUsersByBirthDateRange_EtagDependsOnRepresentation() throws Exception {
+        MvcResult json = mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", "2010-10-10")
+                        .param("endDate", "2010-10-10")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andReturn();
+        MvcResult ndjson = mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", "2010-10-10")
+                        .param("endDate", "2010-10-10")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+
+        mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", "2010-10-10")
+                        .param("endDate", "2010-10-10")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .header("If-None-Match", json.getResponse().getHeader("ETag")))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", "2010-10-10")
+                        .param("endDate", "2010-10-10")
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .header("If-None-Match", ndjson.getResponse().getHeader("ETag")))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    public void getUsersByBirthDateRange_BadRequest_UnknownProjectedField() throws Exception {
+        mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", "2010-10-10")
+                        .param("endDate", "2010-10-10")
+                        .param("fields", "id,password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.[0].detail").value("'fields' parameter contains unknown field 'password', " +
+                        "available fields are [id, email, firstName, lastName, birthDate, address, phoneNumber]"))
+                .andExpect(jsonPath("$.errors.[0].statusCode").value("400"));
+
+        verifyNoInteractions(usersService);
+    }
+
+    @Test
+    public void getUsersByBirthDateRange_OkResponse_Cbor() throws Exception {
+        LocalDate startDate = LocalDate.of(2010, 10, 10);
+        Users user = new Users(1L);
+        user.setBirthDate(startDate);
+
+        when(usersService.getAllByBirthDateRange(startDate, startDate))
+                .thenReturn(new DataContainerDTO<>(List.of(user)));
+
+        byte[] body = mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", startDate.toString())
+                        .param("endDate", startDate.toString())
+                        .accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        // ISO date strings, like in JSON responses
+        assertEquals(startDate.toString(), cborMapper.readTree(body).at("/data/0/birthDate").textValue());
+        DataContainerDTO<List<Users>> response = cborMapper.readValue(body, new TypeReference<>() {
+        });
+        assertEquals(1L, response.data().get(0).getId());
+    }
+
     @Test
     public void getUsersByBirthDateRange_BadRequest_StartDateIsBiggerThanEndOne() throws Exception {
         LocalDate startDate = LocalDate.of(2015, 10, 10);
@@ -76,6 +261,154 @@ public class UsersControllerTest {
                 .andExpect(jsonPath("$.errors.[0].statusCode").value("400"));
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamUsersByBirthDateRange_OkResponse_OneJsonLinePerUser() throws Exception {
+        LocalDate startDate = LocalDate.of(2010, 10, 10);
+        LocalDate endDate = LocalDate.of(2011, 10, 10);
+
+        doAnswer(invocation -> {
+            Consumer<Users> consumer = invocation.getArgument(2);
+            consumer.accept(new Users(1L));
+            consumer.accept(new Users(2L));
+            return null;
+        }).when(usersService).streamAllByBirthDateRange(eq(startDate), eq(endDate), any(Consumer.class));
+
+        MvcResult asyncResult = mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", startDate.toString())
+                        .param("endDate", endDate.toString())
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String[] lines = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString().split("\n");
+
+        assertEquals(2, lines.length);
+        assertEquals(1L, mapper.readValue(lines[0], Users.class).getId());
+        assertEquals(2L, mapper.readValue(lines[1], Users.class).getId());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamUsersByBirthDateRange_OkResponse_ProjectedToRequestedFields() throws Exception {
+        LocalDate startDate = LocalDate.of(2010, 10, 10);
+        LocalDate endDate = LocalDate.of(2011, 10, 10);
+
+        doAnswer(invocation -> {
+            Consumer<Users> consumer = invocation.getArgument(2);
+            consumer.accept(new Users(1L));
+            return null;
+        }).when(usersService).streamAllByBirthDateRange(eq(startDate), eq(endDate), any(Consumer.class));
+
+        MvcResult asyncResult = mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", startDate.toString())
+                        .param("endDate", endDate.toString())
+                        .param("fields", "id,phoneNumber")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().string("{\"id\":1,\"phoneNumber\":null}\n"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void streamUsersByBirthDateRange_OkResponse_OneCborItemPerUser() throws Exception {
+        LocalDate startDate = LocalDate.of(2010, 10, 10);
+        LocalDate endDate = LocalDate.of(2011, 10, 10);
+
+        doAnswer(invocation -> {
+            Consumer<Users> consumer = invocation.getArgument(2);
+            consumer.accept(new Users(1L));
+            consumer.accept(new Users(2L));
+            return null;
+        }).when(usersService).streamAllByBirthDateRange(eq(startDate), eq(endDate), any(Consumer.class));
+
+        MvcResult asyncResult = mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", startDate.toString())
+                        .param("endDate", endDate.toString())
+                        .accept(CBOR_SEQUENCE))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CBOR_SEQUENCE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<Users> users = cborMapper.readerFor(Users.class).<Users>readValues(body).readAll();
+        assertEquals(2, users.size());
+        assertEquals(2L, users.get(1).getId());
+    }
+
+    @Test
+    public void getUsersPageByBirthDateRange_OkResponse_NextCursorIsReturned() throws Exception {
+        LocalDate startDate = LocalDate.of(2000, 1, 1);
+        LocalDate endDate = LocalDate.of(2001, 1, 1);
+        PageCursor cursor = new PageCursor(LocalDate.of(2000, 5, 5), 7L);
+        String nextCursor = new PageCursor(LocalDate.of(2000, 6, 6), 2L).encode();
+
+        when(usersService.getPageByBirthDateRange(startDate, endDate, cursor, 1))
+                .thenReturn(new PagedDataContainerDTO<>(List.of(new Users(2L)), nextCursor));
+
+        mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", startDate.toString())
+                        .param("endDate", endDate.toString())
+                        .param("limit", "1")
+                        .param("cursor", cursor.encode()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.size()").value(1))
+                .andExpect(jsonPath("$.data.[0].id").value(2L))
+                .andExpect(jsonPath("$.next").value(nextCursor));
+    }
+
+    @Test
+    public void getUsersPageByBirthDateRange_OkResponse_ProjectedToRequestedFields() throws Exception {
+        LocalDate startDate = LocalDate.of(2000, 1, 1);
+        LocalDate endDate = LocalDate.of(2001, 1, 1);
+
+        when(usersService.getPageByBirthDateRange(startDate, endDate, null, 1))
+                .thenReturn(new PagedDataContainerDTO<>(List.of(new Users(2L)), null));
+
+        mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", startDate.toString())
+                        .param("endDate", endDate.toString())
+                        .param("limit", "1")
+                        .param("fields", "birthDate"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.[0].birthDate").hasJsonPath())
+                .andExpect(jsonPath("$.data.[0].id").doesNotExist())
+                .andExpect(jsonPath("$.next").hasJsonPath());
+    }
+
+    @Test
+    public void getUsersPageByBirthDateRange_BadRequest_LimitIsOutOfBounds() throws Exception {
+        mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", "2000-01-01")
+                        .param("endDate", "2001-01-01")
+                        .param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.[0].detail").value("Limit (0) should be between 1 and 1000"))
+                .andExpect(jsonPath("$.errors.[0].statusCode").value("400"));
+    }
+
+    @Test
+    public void getUsersPageByBirthDateRange_BadRequest_CursorIsMalformed() throws Exception {
+        mockMvc.perform(get(BASIC_URL)
+                        .param("startDate", "2000-01-01")
+                        .param("endDate", "2001-01-01")
+                        .param("limit", "10")
+                        .param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.[0].detail").value("'cursor' parameter is malformed"))
+                .andExpect(jsonPath("$.errors.[0].statusCode").value("400"));
+    }
+
     @Test
     public void createUser_CreatedResponse() throws Exception {
         DataContainerDTO<UserInfoDTO> container = new DataContainerDTO<>(
@@ -93,6 +426,39 @@ public class UsersControllerTest {
                 .andExpect(header().stringValues("Location", "/1"));
     }
 
+    @Test
+    public void createUser_CreatedResponse_SmileBody() throws Exception {
+        DataContainerDTO<UserInfoDTO> container = new DataContainerDTO<>(
+                new UserInfoDTO("email@gmail.com", "name", "surname",
+                        LocalDate.of(2000, 10, 10), null, null)
+        );
+
+        when(usersService.createNewUser(container.data())).thenReturn(1L);
+
+        mockMvc.perform(post(BASIC_URL)
+                        .content(smileMapper.writeValueAsBytes(container))
+                        .contentType(SMILE))
+                .andExpect(status().isCreated())
+                .andExpect(header().stringValues("Location", "/1"));
+    }
+
+    @Test
+    public void createUser_Conflict_EmailAlreadyExists() throws Exception {
+        DataContainerDTO<UserInfoDTO> container = new DataContainerDTO<>(
+                new UserInfoDTO("email@gmail.com", "name", "surname",
+                        LocalDate.of(2000, 10, 10), null, null)
+        );
+
+        when(usersService.createNewUser(container.data())).thenThrow(new EmailAlreadyExistsException("email@gmail.com"));
+
+        mockMvc.perform(post(BASIC_URL)
+                        .content(mapper.writeValueAsString(container))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.errors.detail").value("User with email email@gmail.com already exists"))
+                .andExpect(jsonPath("$.errors.statusCode").value("409"));
+    }
+
     @Test
     public void createUser_BadRequest_UserUnderMinimalAge() throws Exception {
         DataContainerDTO<UserInfoDTO> container = new DataContainerDTO<>(
@@ -167,13 +533,186 @@ public class UsersControllerTest {
                 .andExpect(jsonPath("$.errors.[1].statusCode").value("400"));
     }
 
+    @Test
+    public void createUsers_OkResponse_ResultPerItem() throws Exception {
+        UserInfoDTO validUser = new UserInfoDTO("email@gmail.com", "name", "surname",
+                LocalDate.of(2000, 10, 10), null, null);
+        UserInfoDTO invalidUser = new UserInfoDTO(null, "name", "surname",
+                LocalDate.of(2000, 10, 10), null, null);
+        DataContainerDTO<List<UserInfoDTO>> container = new DataContainerDTO<>(List.of(validUser, invalidUser));
+
+        when(usersService.createNewUsers(container.data())).thenReturn(List.of(
+                BatchItemResultDTO.created(1L),
+                BatchItemResultDTO.invalid(List.of(new ErrorDescription(400, "'email' field should be present")))
+        ));
+
+        mockMvc.perform(post(BASIC_URL + "/batch")
+                        .content(mapper.writeValueAsString(container))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.size()").value(2))
+                .andExpect(jsonPath("$.data.[0].id").value(1L))
+                .andExpect(jsonPath("$.data.[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.data.[1].status").value("INVALID"))
+                .andExpect(jsonPath("$.data.[1].errors.[0].detail").value("'email' field should be present"));
+    }
+
+    @Test
+    public void createUsers_OkResponse_DuplicateEmailReportedAsConflict() throws Exception {
+        UserInfoDTO user = new UserInfoDTO("email@gmail.com", "name", "surname",
+                LocalDate.of(2000, 10, 10), null, null);
+        DataContainerDTO<List<UserInfoDTO>> container = new DataContainerDTO<>(List.of(user, user));
+
+        when(usersService.createNewUsers(container.data())).thenReturn(List.of(
+                BatchItemResultDTO.created(1L),
+                BatchItemResultDTO.conflict(null, List.of(new ErrorDescription(409, "User with email email@gmail.com already exists")))
+        ));
+
+        mockMvc.perform(post(BASIC_URL + "/batch")
+                        .content(mapper.writeValueAsString(container))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.data.[1].status").value("CONFLICT"))
+                .andExpect(jsonPath("$.data.[1].errors.[0].statusCode").value("409"));
+    }
+
+    @Test
+    public void getUserByEmail_OkResponse() throws Exception {
+        Users user = new Users(1L);
+        user.setEmail("email@gmail.com");
+        user.setVersion(2);
+
+        when(usersService.getUserByEmail("email@gmail.com")).thenReturn(user);
+
+        mockMvc.perform(get(BASIC_URL + "/by-email/email@gmail.com"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ETags.user(2)))
+                .andExpect(jsonPath("$.data.id").value(1L))
+                .andExpect(jsonPath("$.data.email").value("email@gmail.com"));
+    }
+
+    @Test
+    public void getUserByEmail_NotFound() throws Exception {
+        when(usersService.getUserByEmail("email@gmail.com")).thenThrow(new UserNotFoundException("email@gmail.com"));
+
+        mockMvc.perform(get(BASIC_URL + "/by-email/email@gmail.com"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.errors.detail").value("User with email email@gmail.com wasn't found"))
+                .andExpect(jsonPath("$.errors.statusCode").value("404"));
+    }
+
+    @Test
+    public void searchUsersByName_OkResponse() throws Exception {
+        Users user = new Users(1L);
+        user.setFirstName("Anna");
+        user.setLastName("Kowalska");
+
+        when(usersService.searchByName("ana", 5)).thenReturn(new DataContainerDTO<>(List.of(user)));
+
+        mockMvc.perform(get(BASIC_URL + "/search")
+                        .param("q", "ana")
+                        .param("limit", "5")
+                        .param("fields", "id,firstName"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.[0].id").value(1L))
+                .andExpect(jsonPath("$.data.[0].firstName").value("Anna"))
+                .andExpect(jsonPath("$.data.[0].lastName").doesNotExist());
+    }
+
+    @Test
+    public void searchUsersByName_BadRequest_QueryIsBlank() throws Exception {
+        mockMvc.perform(get(BASIC_URL + "/search")
+                        .param("q", " "))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.[0].detail").value("Search query should not be blank"))
+                .andExpect(jsonPath("$.errors.[0].statusCode").value("400"));
+    }
+
+    @Test
+    public void getUsersByAnniversaryRange_OkResponse() throws Exception {
+        Users user = new Users(1L);
+        user.setBirthDate(LocalDate.of(2000, 1, 2));
+
+        when(usersService.getAllByAnniversaryRange(LocalDate.of(2025, 12, 20), LocalDate.of(2026, 1, 10), 26))
+                .thenReturn(new DataContainerDTO<>(List.of(user)));
+
+        mockMvc.perform(get(BASIC_URL + "/anniversaries")
+                        .param("startDate", "2025-12-20")
+                        .param("endDate", "2026-01-10")
+                        .param("age", "26"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.[0].id").value(1L))
+                .andExpect(jsonPath("$.data.[0].birthDate").value("2000-01-02"));
+    }
+
+    @Test
+    public void getUsersByAnniversaryRange_BadRequest_WindowIsYearLong() throws Exception {
+        mockMvc.perform(get(BASIC_URL + "/anniversaries")
+                        .param("startDate", "2025-03-01")
+                        .param("endDate", "2026-03-01"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.[0].detail").value("Anniversary window from 2025-03-01 to 2026-03-01 should be shorter than a year"));
+    }
+
+    @Test
+    public void getBirthdateHistogram_OkResponse() throws Exception {
+        when(usersService.getBirthDateHistogram(LocalDate.of(1990, 1, 1), LocalDate.of(1991, 6, 30), HistogramGranularity.YEAR, 10))
+                .thenReturn(new DataContainerDTO<>(List.of(
+                        new HistogramBucketDTO("1990", LocalDate.of(1990, 1, 1), LocalDate.of(1990, 12, 31), 7),
+                        new HistogramBucketDTO("1991", LocalDate.of(1991, 1, 1), LocalDate.of(1991, 6, 30), 3))));
+
+        mockMvc.perform(get(BASIC_URL + "/histogram")
+                        .param("startDate", "1990-01-01")
+                        .param("endDate", "1991-06-30")
+                        .param("bucket", "Year"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.[1].key").value("1991"))
+                .andExpect(jsonPath("$.data.[1].endDate").value("1991-06-30"))
+                .andExpect(jsonPath("$.data.[1].count").value(3));
+    }
+
+    @Test
+    public void getBirthdateHistogram_BadRequest_UnknownBucket() throws Exception {
+        mockMvc.perform(get(BASIC_URL + "/histogram")
+                        .param("startDate", "1990-01-01")
+                        .param("endDate", "1991-06-30")
+                        .param("bucket", "week"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.[0].detail").value("'bucket' parameter should be one of [year, month, age]"));
+    }
+
+    @Test
+    public void countUsersByBirthdateRange_OkResponse() throws Exception {
+        when(usersService.countByBirthDateRange(LocalDate.of(1990, 1, 1), LocalDate.of(1999, 12, 31)))
+                .thenReturn(new DataContainerDTO<>(42L));
+
+        mockMvc.perform(get(BASIC_URL + "/count")
+                        .param("startDate", "1990-01-01")
+                        .param("endDate", "1999-12-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data").value(42));
+    }
+
+    @Test
+    public void createUsers_BadRequest_BatchIsEmpty() throws Exception {
+        DataContainerDTO<List<UserInfoDTO>> container = new DataContainerDTO<>(List.of());
+
+        mockMvc.perform(post(BASIC_URL + "/batch")
+                        .content(mapper.writeValueAsString(container))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.[0].detail").value("Batch should contain from 1 to 10000 items"))
+                .andExpect(jsonPath("$.errors.[0].statusCode").value("400"));
+    }
+
     @Test
     public void partialUserUpdate_OkResponse() throws Exception {
         DataContainerDTO<UserInfoDTO> container = new DataContainerDTO<>(
                 new UserInfoDTO(null, null, null, null, "Street 10/2", "0502123369")
         );
 
-        doNothing().when(usersService).partialUpdateUserData(1L, container.data());
+        when(usersService.partialUpdateUserData(1L, container.data(), null)).thenReturn(2L);
 
         mockMvc.perform(patch(BASIC_URL + "/1")
                         .content(mapper.writeValueAsString(container))
@@ -181,14 +720,58 @@ public class UsersControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void partialUserUpdate_IfMatch_UpdatedFromTaggedVersion() throws Exception {
+        DataContainerDTO<UserInfoDTO> container = new DataContainerDTO<>(
+                new UserInfoDTO(null, null, null, null, "Street 10/2", "0502123369")
+        );
+        Users user = new Users(1L);
+        user.setVersion(3);
+
+        when(usersService.getUserById(1L)).thenReturn(user);
+        when(usersService.partialUpdateUserData(1L, container.data(), 3L)).thenReturn(4L);
+
+        String eTag = mockMvc.perform(get(BASIC_URL + "/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.id").value(1L))
+                .andExpect(jsonPath("$.data.version").doesNotExist())
+                .andReturn().getResponse().getHeader("ETag");
+
+        String updatedETag = mockMvc.perform(patch(BASIC_URL + "/1")
+                        .content(mapper.writeValueAsString(container))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("If-Match", eTag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertNotEquals(eTag, updatedETag);
+    }
+
+    @Test
+    public void partialUserUpdate_PreconditionFailed() throws Exception {
+        DataContainerDTO<UserInfoDTO> container = new DataContainerDTO<>(
+                new UserInfoDTO(null, null, null, null, "Street 10/2", "0502123369")
+        );
+
+        doThrow(new UserVersionMismatchException(1L))
+                .when(usersService).partialUpdateUserData(1L, container.data(), -1L);
+
+        mockMvc.perform(patch(BASIC_URL + "/1")
+                        .content(mapper.writeValueAsString(container))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .header("If-Match", "\"from-another-process-v3\""))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.errors.detail").value("User with identifier 1 was changed since the version given in If-Match"))
+                .andExpect(jsonPath("$.errors.statusCode").value("412"));
+    }
+
     @Test
     public void partialUserUpdate_NotFound() throws Exception {
         DataContainerDTO<UserInfoDTO> container = new DataContainerDTO<>(
                 new UserInfoDTO(null, null, null, null, "Street 10/2", "0502123369")
         );
 
-        doThrow(new UserNotFoundException("User with identifier 1 wasn't found"))
-                .when(usersService).partialUpdateUserData(1L, container.data());
+        doThrow(new UserNotFoundException(1L))
+                .when(usersService).partialUpdateUserData(1L, container.data(), null);
 
         mockMvc.perform(patch(BASIC_URL + "/1")
                         .content(mapper.writeValueAsString(container))
@@ -204,7 +787,7 @@ public class UsersControllerTest {
                 null
         );
 
-        doNothing().when(usersService).partialUpdateUserData(1L, container.data());
+        when(usersService.partialUpdateUserData(1L, container.data(), null)).thenReturn(2L);
 
         mockMvc.perform(patch(BASIC_URL + "/1")
                         .content(mapper.writeValueAsString(container))
@@ -220,7 +803,7 @@ public class UsersControllerTest {
                 new UserInfoDTO(null, null, null, null, null, null)
         );
 
-        doNothing().when(usersService).partialUpdateUserData(1L, container.data());
+        when(usersService.partialUpdateUserData(1L, container.data(), null)).thenReturn(2L);
 
         mockMvc.perform(patch(BASIC_URL + "/1")
                         .content(mapper.writeValueAsString(container))
@@ -237,7 +820,7 @@ public class UsersControllerTest {
                         LocalDate.of(2000, 10, 10), "Street 10", "0677508213")
         );
 
-        doNothing().when(usersService).partialUpdateUserData(1L, container.data());
+        when(usersService.partialUpdateUserData(1L, container.data(), null)).thenReturn(2L);
 
         mockMvc.perform(patch(BASIC_URL + "/1")
                         .content(mapper.writeValueAsString(container))
@@ -254,7 +837,7 @@ public class UsersControllerTest {
                         LocalDate.of(2025, 10, 10), null, null)
         );
 
-        doNothing().when(usersService).partialUpdateUserData(1L, container.data());
+        when(usersService.partialUpdateUserData(1L, container.data(), null)).thenReturn(2L);
 
         mockMvc.perform(patch(BASIC_URL + "/1")
                         .content(mapper.writeValueAsString(container))
@@ -266,6 +849,29 @@ public class UsersControllerTest {
                 .andExpect(jsonPath("$.errors.[1].statusCode").value("400"));
     }
 
+    @Test
+    public void partialUsersUpdate_OkResponse_ResultPerItem() throws Exception {
+        DataContainerDTO<List<UserPatchDTO>> container = new DataContainerDTO<>(List.of(
+                new UserPatchDTO(1L, new UserInfoDTO(null, null, null, null, "Street 10/2", null)),
+                new UserPatchDTO(2L, new UserInfoDTO(null, null, null, null, "Street 10/3", null))
+        ));
+
+        when(usersService.partialUpdateUsers(container.data(), true)).thenReturn(List.of(
+                BatchItemResultDTO.notApplied(1L),
+                BatchItemResultDTO.notFound(2L)
+        ));
+
+        mockMvc.perform(patch(BASIC_URL + "/batch")
+                        .param("atomic", "true")
+                        .content(mapper.writeValueAsString(container))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.[0].id").value(1L))
+                .andExpect(jsonPath("$.data.[0].status").value("NOT_APPLIED"))
+                .andExpect(jsonPath("$.data.[1].id").value(2L))
+                .andExpect(jsonPath("$.data.[1].status").value("NOT_FOUND"));
+    }
+
     @Test
     public void fullUserUpdate_OkResponse() throws Exception {
         DataContainerDTO<UserInfoDTO> container = new DataContainerDTO<>(
@@ -273,7 +879,7 @@ public class UsersControllerTest {
                         LocalDate.of(2000, 10, 10), "Street 10/2", "0502123369")
         );
 
-        doNothing().when(usersService).updateAllUserData(1L, container.data());
+        when(usersService.updateAllUserData(1L, container.data(), null)).thenReturn(2L);
 
         mockMvc.perform(put(BASIC_URL + "/1")
                         .content(mapper.writeValueAsString(container))
@@ -281,6 +887,23 @@ public class UsersControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    public void fullUserUpdate_Conflict_EmailAlreadyExists() throws Exception {
+        DataContainerDTO<UserInfoDTO> container = new DataContainerDTO<>(
+                new UserInfoDTO("email@gmail.com", "name", "surname",
+                        LocalDate.of(2000, 10, 10), "Street 10/2", "0502123369")
+        );
+
+        doThrow(new EmailAlreadyExistsException("email@gmail.com"))
+                .when(usersService).updateAllUserData(1L, container.data(), null);
+
+        mockMvc.perform(put(BASIC_URL + "/1")
+                        .content(mapper.writeValueAsString(container))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.errors.statusCode").value("409"));
+    }
+
     @Test
     public void fullUserUpdate_NotFound() throws Exception {
         DataContainerDTO<UserInfoDTO> container = new DataContainerDTO<>(
@@ -288,8 +911,8 @@ public class UsersControllerTest {
                         LocalDate.of(2000, 10, 10), "Street 10/2", "0502123369")
         );
 
-        doThrow(new UserNotFoundException("User with identifier 1 wasn't found"))
-                .when(usersService).updateAllUserData(1L, container.data());
+        doThrow(new UserNotFoundException(1L))
+                .when(usersService).updateAllUserData(1L, container.data(), null);
 
         mockMvc.perform(put(BASIC_URL + "/1")
                         .content(mapper.writeValueAsString(container))
@@ -305,7 +928,7 @@ public class UsersControllerTest {
                 null
         );
 
-        doNothing().when(usersService).updateAllUserData(1L, container.data());
+        when(usersService.updateAllUserData(1L, container.data(), null)).thenReturn(2L);
 
         mockMvc.perform(put(BASIC_URL + "/1")
                         .content(mapper.writeValueAsString(container))
@@ -322,7 +945,7 @@ public class UsersControllerTest {
                         LocalDate.of(2000, 10, 10), null, null)
         );
 
-        doNothing().when(usersService).updateAllUserData(1L, container.data());
+        when(usersService.updateAllUserData(1L, container.data(), null)).thenReturn(2L);
 
         mockMvc.perform(put(BASIC_URL + "/1")
                         .content(mapper.writeValueAsString(container))
@@ -341,7 +964,7 @@ public class UsersControllerTest {
                         LocalDate.of(2030, 10, 10), "Address 12a", "0552395786")
         );
 
-        doNothing().when(usersService).updateAllUserData(1L, container.data());
+        when(usersService.updateAllUserData(1L, container.data(), null)).thenReturn(2L);
 
         mockMvc.perform(put(BASIC_URL + "/1")
                         .content(mapper.writeValueAsString(container))
@@ -353,6 +976,32 @@ public class UsersControllerTest {
                 .andExpect(jsonPath("$.errors.[1].statusCode").value("400"));
     }
 
+    @Test
+    public void deleteUsersByIds_OkResponse_ResultPerItem() throws Exception {
+        DataContainerDTO<List<Long>> container = new DataContainerDTO<>(List.of(1L, 2L));
+
+        when(usersService.deleteUsersByIds(container.data(), false)).thenReturn(List.of(
+                BatchItemResultDTO.deleted(1L),
+                BatchItemResultDTO.notFound(2L)
+        ));
+
+        mockMvc.perform(delete(BASIC_URL + "/batch")
+                        .content(mapper.writeValueAsString(container))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.[0].status").value("DELETED"))
+                .andExpect(jsonPath("$.data.[1].status").value("NOT_FOUND"));
+    }
+
+    @Test
+    public void deleteUsersByBirthDateRange_BadRequest_StartDateIsBiggerThanEndOne() throws Exception {
+        mockMvc.perform(delete(BASIC_URL)
+                        .param("startDate", "2015-10-10")
+                        .param("endDate", "2010-10-10"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.[0].detail").value("Start date (2015-10-10) should be earlier than end date (2010-10-10)"));
+    }
+
     @Test
     public void deleteUserById_OkResponse() throws Exception {
         doNothing().when(usersService).deleteUserById(1L);
@@ -0,0 +1,48 @@
+package com.clear.solutions.user_restful.exception_hadler.exception_body;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ErrorBodiesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void of_SingleError_SameAsJackson() throws Exception {
+        for (ErrorDescription error : List.of(
+                ErrorBodies.fixed(405, "Fixed \"quoted\" message"),
+                new ErrorDescription(404, "User with identifier 1 wasn't found"),
+                new ErrorDescription(400, "Escaped \\ \t\n\u0001 and non-ASCII żółć"),
+                new ErrorDescription(400, null)))
+            assertJson(objectMapper.writeValueAsBytes(new ErrorContainer<>(error)), ErrorBodies.of(error));
+    }
+
+    @Test
+    public void of_ErrorList_SameAsJackson() throws Exception {
+        List<List<ErrorDescription>> lists = List.of(
+                List.of(),
+                List.of(ErrorBodies.fixed(400, "First fixed message")),
+                List.of(ErrorBodies.fixed(400, "First fixed message"), new ErrorDescription(400, "Built from request 2024-01-01")));
+        for (List<ErrorDescription> errors : lists)
+            assertJson(objectMapper.writeValueAsBytes(new ErrorContainer<>(errors)), ErrorBodies.of(errors));
+    }
+
+    @Test
+    public void of_FixedError_ReturnsIndependentCopies() {
+        ErrorDescription error = ErrorBodies.fixed(400, "Shared message");
+
+        byte[] first = ErrorBodies.of(List.of(error));
+        first[0] = 'x';
+
+        assertEquals('{', ErrorBodies.of(List.of(error))[0]);
+    }
+
+    private static void assertJson(byte[] expected, byte[] actual) {
+        assertEquals(new String(expected, StandardCharsets.UTF_8), new String(actual, StandardCharsets.UTF_8));
+    }
+}
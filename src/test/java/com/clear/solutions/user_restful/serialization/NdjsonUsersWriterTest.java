@@ -0,0 +1,77 @@
+package com.clear.solutions.user_restful.serialization;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NdjsonUsersWriterTest {
+
+    private static final int USERS = 10_000;
+    // the generator buffer, whatever the number of users written
+    private static final long MAX_HELD_BACK_BYTES = 16 * 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    public void accept_ManyUsers_LinesReachTheStreamWhileWriting() throws IOException {
+        FlushCountingOutputStream outputStream = new FlushCountingOutputStream();
+        NdjsonUsersWriter writer = new NdjsonUsersWriter(objectMapper, outputStream);
+        long[] writtenAfterUser = new long[USERS];
+        for (int i = 0; i < USERS; i++) {
+            writer.accept(createUser(i + 1));
+            writtenAfterUser[i] = outputStream.size();
+        }
+        assertEquals(0, outputStream.flushes);
+        writer.finish();
+        assertEquals(1, outputStream.flushes);
+
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n", -1);
+        // every line ends with a newline, the last one included
+        assertEquals(USERS + 1, lines.length);
+        assertEquals("", lines[USERS]);
+        long lineEnd = 0;
+        for (int i = 0; i < USERS; i++) {
+            JsonNode user = objectMapper.readTree(lines[i]);
+            assertEquals(i + 1, user.get("id").asLong());
+            assertEquals("1990-01-01", user.get("birthDate").asText());
+
+            lineEnd += lines[i].getBytes(StandardCharsets.UTF_8).length + 1;
+            assertTrue(lineEnd - writtenAfterUser[i] <= MAX_HELD_BACK_BYTES,
+                    "%d bytes held back after user %d".formatted(lineEnd - writtenAfterUser[i], i + 1));
+        }
+    }
+
+    private static Users createUser(long id) {
+        Users user = new Users();
+        user.setId(id);
+        user.setEmail("examplemail" + id + "@lll.kpi.ua");
+        user.setFirstName("name");
+        user.setLastName("surname");
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        user.setAddress("Street 10/2, apartment 15, Kyiv, Ukraine");
+        user.setPhoneNumber("0502123369");
+        return user;
+    }
+
+    private static class FlushCountingOutputStream extends ByteArrayOutputStream {
+
+        private int flushes;
+
+        @Override
+        public void flush() {
+            flushes++;
+        }
+    }
+}
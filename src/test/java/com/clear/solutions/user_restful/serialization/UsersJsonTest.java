@@ -0,0 +1,114 @@
+package com.clear.solutions.user_restful.serialization;
+
+import com.clear.solutions.user_restful.dto.DataContainerDTO;
+import com.clear.solutions.user_restful.dto.PagedDataContainerDTO;
+import com.clear.solutions.user_restful.dto.UserInfoDTO;
+import com.clear.solutions.user_restful.dto.UserPatchDTO;
+import com.clear.solutions.user_restful.entity.Users;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.json.JsonTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The hand-written codecs against Jackson's reflective ones configured like the Spring Boot object mapper.
+ */
+@JsonTest
+public class UsersJsonTest {
+
+    private static final TypeReference<DataContainerDTO<UserInfoDTO>> USER_INFO_CONTAINER = new TypeReference<>() {
+    };
+    private static final TypeReference<DataContainerDTO<List<UserPatchDTO>>> PATCHES_CONTAINER = new TypeReference<>() {
+    };
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final ObjectMapper reflectiveMapper = JsonMapper.builder()
+            .addModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    @Test
+    public void serialize_UsersContainers_SameAsReflective() throws Exception {
+        List<Users> users = List.of(
+                user(1L, LocalDate.of(1990, 1, 31)),
+                user(2L, LocalDate.of(5, 12, 1)),
+                user(3L, LocalDate.of(12_000, 6, 15)),
+                user(4L, LocalDate.of(-1, 1, 1)),
+                new Users(5L),
+                new Users());
+
+        for (Object response : List.of(
+                new DataContainerDTO<>(users),
+                new DataContainerDTO<>(users.get(0)),
+                new DataContainerDTO<>(List.of()),
+                new DataContainerDTO<>(null),
+                new PagedDataContainerDTO<>(users, "cursor"),
+                new PagedDataContainerDTO<>(List.of(), null)))
+            assertEquals(reflectiveMapper.writeValueAsString(response), objectMapper.writeValueAsString(response));
+    }
+
+    @Test
+    public void serialize_UsersContainer_UsesHandWrittenSerializer() throws Exception {
+        assertInstanceOf(UsersJson.Serializer.class,
+                objectMapper.getSerializerProviderInstance().findValueSerializer(Users.class));
+        assertInstanceOf(DataContainerJson.Serializer.class,
+                objectMapper.getSerializerProviderInstance().findValueSerializer(DataContainerDTO.class));
+    }
+
+    @Test
+    public void deserialize_UserInfoContainers_SameAsReflective() throws Exception {
+        for (String json : List.of(
+                "{\"data\": {\"email\": \"a@bb.cc\", \"firstName\": \"Ivan\", \"lastName\": \"Franko\", " +
+                        "\"birthDate\": \"1990-01-31\", \"address\": \"Lviv\", \"phoneNumber\": \"050\"}}",
+                "{\"data\": {\"phoneNumber\": \"050\", \"birthDate\": \"+12000-06-15\", \"email\": null}}",
+                "{\"unknown\": [1, {\"a\": 2}], \"data\": {\"extra\": {\"nested\": true}, \"firstName\": 42}}",
+                "{\"data\": {}}",
+                "{\"data\": null}",
+                "{}"))
+            assertEquals(reflectiveMapper.readValue(json, USER_INFO_CONTAINER), objectMapper.readValue(json, USER_INFO_CONTAINER), json);
+
+        String patches = "{\"data\": [{\"id\": 7, \"data\": {\"birthDate\": \"2000-02-29\"}}, {\"id\": 8, \"data\": null}]}";
+        assertEquals(reflectiveMapper.readValue(patches, PATCHES_CONTAINER), objectMapper.readValue(patches, PATCHES_CONTAINER));
+    }
+
+    @Test
+    public void deserialize_Users_RoundTrip() throws Exception {
+        Users user = user(1L, LocalDate.of(1990, 1, 31));
+
+        Users read = objectMapper.readValue(objectMapper.writeValueAsString(user), Users.class);
+
+        assertEquals(user.toString(), read.toString());
+    }
+
+    @Test
+    public void deserialize_InvalidBirthDates_Rejected() {
+        for (String birthDate : List.of("\"2001-02-29\"", "\"2001-13-01\"", "\"2001/01/01\"", "\"01-01-2001\"", "{}"))
+            assertThrows(JsonMappingException.class,
+                    () -> objectMapper.readValue("{\"data\": {\"birthDate\": " + birthDate + "}}", USER_INFO_CONTAINER), birthDate);
+    }
+
+    private static Users user(Long id, LocalDate birthDate) {
+        Users user = new Users(id);
+        user.setEmail("examplemail@lll.kpi.ua");
+        user.setFirstName("Ivan \"Kamenyar\"");
+        user.setLastName("Franko");
+        user.setBirthDate(birthDate);
+        user.setAddress("Street 10/2, Lviv\n\u0001");
+        user.setPhoneNumber(null);
+        return user;
+    }
+}
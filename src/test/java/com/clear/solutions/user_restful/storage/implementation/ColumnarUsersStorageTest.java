@@ -0,0 +1,174 @@
+package com.clear.solutions.user_restful.storage.implementation;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.storage.BirthDateChangeListener;
+import com.clear.solutions.user_restful.storage.DuplicateEmailException;
+import com.clear.solutions.user_restful.storage.UsersPatch;
+import com.clear.solutions.user_restful.storage.snapshot.SnapshotHeader;
+import com.clear.solutions.user_restful.storage.snapshot.SnapshotStore;
+import com.clear.solutions.user_restful.storage.wal.WriteAheadLog;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarUsersStorageTest {
+
+    @Test
+    public void randomWrites_SameResultsAsConcurrentStorage() {
+        for (boolean offHeap : new boolean[]{false, true}) {
+            ConcurrentUsersStorage expected = new ConcurrentUsersStorage();
+            ColumnarUsersStorage actual = new ColumnarUsersStorage(BirthDateChangeListener.NONE, offHeap);
+            Random random = new Random(25);
+            for (int i = 0; i < 5_000; i++) {
+                long userId = 1 + random.nextInt(i / 2 + 1);
+                switch (random.nextInt(4)) {
+                    case 0, 1 -> {
+                        expected.addNewUser(createUser(i, new Random(i)));
+                        actual.addNewUser(createUser(i, new Random(i)));
+                    }
+                    case 2 -> {
+                        LocalDate birthDate = LocalDate.of(1970, 1, 1).plusDays(random.nextInt(20_000));
+                        String firstName = random.nextBoolean() ? "Renamed" + i : null;
+                        assertEquals(expected.updateUserData(userId, null, firstName, null, birthDate, "street " + i, null)
+                                        .map(ColumnarUsersStorageTest::describe),
+                                actual.updateUserData(userId, null, firstName, null, birthDate, "street " + i, null)
+                                        .map(ColumnarUsersStorageTest::describe));
+                    }
+                    default -> assertEquals(
+                            describe(expected.removeUsers(List.of(userId), false)),
+                            describe(actual.removeUsers(List.of(userId), false)));
+                }
+            }
+
+            LocalDate startDate = LocalDate.of(1980, 1, 1);
+            LocalDate endDate = LocalDate.of(2000, 12, 31);
+            assertEquals(describe(expected.getAllByBirthDateRange(startDate, endDate)),
+                    describe(actual.getAllByBirthDateRange(startDate, endDate)));
+            assertEquals(describe(expected.getPageByBirthDateRange(startDate, endDate, LocalDate.of(1990, 6, 1), 100, 50)),
+                    describe(actual.getPageByBirthDateRange(startDate, endDate, LocalDate.of(1990, 6, 1), 100, 50)));
+            assertEquals(describe(expected.getAllByAnniversaryRange(LocalDate.of(2024, 12, 1), LocalDate.of(2025, 2, 1), null)),
+                    describe(actual.getAllByAnniversaryRange(LocalDate.of(2024, 12, 1), LocalDate.of(2025, 2, 1), null)));
+            assertEquals(expected.countByBirthDateRange(startDate, endDate), actual.countByBirthDateRange(startDate, endDate));
+            assertEquals(describe(expected.searchByName("renamed12", 20)), describe(actual.searchByName("renamed12", 20)));
+            assertEquals(describe(expected.removeAllByBirthDateRange(startDate, endDate)),
+                    describe(actual.removeAllByBirthDateRange(startDate, endDate)));
+            for (long userId = 1; userId <= 2_500; userId++) {
+                assertEquals(expected.getUserById(userId).map(ColumnarUsersStorageTest::describe),
+                        actual.getUserById(userId).map(ColumnarUsersStorageTest::describe));
+            }
+        }
+    }
+
+    @Test
+    public void emails_SameConflictsAsConcurrentStorage() {
+        ColumnarUsersStorage storage = new ColumnarUsersStorage();
+        Long firstId = storage.addNewUser(createUser("first@mail.com"));
+        Long secondId = storage.addNewUser(createUser("second@mail.com"));
+
+        DuplicateEmailException duplicate = assertThrows(DuplicateEmailException.class,
+                () -> storage.addNewUsers(List.of(createUser("third@mail.com"), createUser(" FIRST@mail.com "), createUser("Third@mail.com"))));
+        assertEquals(List.of(1, 2), duplicate.getPositions());
+        assertTrue(storage.getUserByEmail("third@mail.com").isEmpty());
+
+        // the email of the first user stays taken until the end of the write that gives it up
+        duplicate = assertThrows(DuplicateEmailException.class, () -> storage.updateUsersData(List.of(
+                new UsersPatch(firstId, "new@mail.com", null, null, null, null, null),
+                new UsersPatch(secondId, "first@mail.com", null, null, null, null, null)), false));
+        assertEquals(List.of(1), duplicate.getPositions());
+
+        storage.updateUserData(firstId, "new@mail.com", null, null, null, null, null);
+        storage.updateUserData(secondId, "First@mail.com", null, null, null, null, null);
+        assertEquals(secondId, storage.getUserByEmail("first@mail.com").orElseThrow().getId());
+        assertEquals(firstId, storage.getUserByEmail("NEW@mail.com").orElseThrow().getId());
+
+        storage.removeUser(secondId);
+        assertTrue(storage.getUserByEmail("first@mail.com").isEmpty());
+        assertNotNull(storage.addNewUser(createUser("first@mail.com")));
+    }
+
+    @Test
+    public void forEachByBirthDateRange_SlowConsumer_WritersNotBlockedAndEveryUserStreamedOnce() throws Exception {
+        ColumnarUsersStorage storage = new ColumnarUsersStorage();
+        LocalDate startDate = LocalDate.of(1990, 1, 1);
+        for (int i = 0; i < 1000; i++) {
+            Users user = createUser("email" + i + "@mail.com");
+            user.setBirthDate(startDate.plusDays(i % 3));
+            storage.addNewUser(user);
+        }
+        List<Users> expected = storage.getAllByBirthDateRange(startDate, startDate.plusDays(2));
+
+        List<Users> streamed = new ArrayList<>();
+        storage.forEachByBirthDateRange(startDate, startDate.plusDays(2), user -> {
+            if (streamed.size() % 300 == 0) {
+                // a write from another thread while the consumer is busy, out of the streamed range
+                Users outOfRange = createUser("streamed" + streamed.size() + "@mail.com");
+                outOfRange.setBirthDate(startDate.minusDays(1));
+                assertDoesNotThrow(() -> CompletableFuture.supplyAsync(() -> storage.addNewUser(outOfRange))
+                        .get(10, TimeUnit.SECONDS));
+            }
+            if (streamed.size() == 300) {
+                // the first user streamed moves to the last date, which is still to come
+                Long movedId = streamed.get(0).getId();
+                assertDoesNotThrow(() -> CompletableFuture.supplyAsync(() -> storage.updateUserData(movedId,
+                        null, null, null, startDate.plusDays(2), null, null)).get(10, TimeUnit.SECONDS));
+            }
+            streamed.add(user);
+        });
+
+        assertEquals(describe(expected), describe(streamed));
+        assertEquals(4, storage.countByBirthDateRange(startDate.minusDays(1), startDate.minusDays(1)));
+    }
+
+    @Test
+    public void persistenceEnabled_Rejected() {
+        assertThrows(IllegalStateException.class,
+                () -> new ColumnarUsersStorage(WriteAheadLog.DISABLED, new SnapshotStore() {
+                    @Override
+                    public Optional<SnapshotHeader> load(Consumer<Users> users) {
+                        return Optional.empty();
+                    }
+
+                    @Override
+                    public void write(long logSegment, long userIdCounter, SnapshotContents contents) {
+                    }
+                }, BirthDateChangeListener.NONE, false));
+    }
+
+    private static Users createUser(int i, Random random) {
+        Users user = createUser("email" + i + "@mail.com");
+        user.setFirstName("Name" + i);
+        user.setLastName(random.nextBoolean() ? "Surname" : null);
+        user.setBirthDate(LocalDate.of(1970, 1, 1).plusDays(random.nextInt(20_000)));
+        user.setPhoneNumber(random.nextBoolean() ? "+380" + i : null);
+        return user;
+    }
+
+    private static Users createUser(String email) {
+        Users user = new Users();
+        user.setEmail(email);
+        user.setFirstName("Name");
+        user.setBirthDate(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
+    private static List<String> describe(List<Users> users) {
+        List<String> descriptions = new ArrayList<>(users.size());
+        for (Users user : users)
+            descriptions.add(user == null ? null : describe(user));
+        return descriptions;
+    }
+
+    private static String describe(Users user) {
+        return String.join("|", String.valueOf(user.getId()), user.getEmail(), user.getFirstName(), user.getLastName(),
+                String.valueOf(user.getBirthDate()), user.getAddress(), user.getPhoneNumber(), String.valueOf(user.getVersion()));
+    }
+}
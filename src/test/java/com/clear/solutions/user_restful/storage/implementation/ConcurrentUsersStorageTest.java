@@ -0,0 +1,608 @@
+package com.clear.solutions.user_restful.storage.implementation;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.storage.BirthDateChangeListener;
+import com.clear.solutions.user_restful.storage.ConditionalUpdate;
+import com.clear.solutions.user_restful.storage.DuplicateEmailException;
+import com.clear.solutions.user_restful.storage.UsersPatch;
+import com.clear.solutions.user_restful.storage.snapshot.SnapshotStore;
+import com.clear.solutions.user_restful.storage.wal.WriteAheadLog;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentUsersStorageTest {
+
+    private static final int THREADS = 8;
+    private static final AtomicLong EMAIL_SEQUENCE = new AtomicLong();
+
+    private final ConcurrentUsersStorage storage = new ConcurrentUsersStorage();
+
+    @Test
+    public void addNewUser_ConcurrentInserts_IdentifiersAreUnique() throws Exception {
+        int usersPerThread = 20_000;
+
+        List<List<Long>> idsPerThread = runConcurrently(thread -> {
+            List<Long> ids = new ArrayList<>(usersPerThread);
+            for (int i = 0; i < usersPerThread; i++)
+                ids.add(storage.addNewUser(createUser(LocalDate.of(1990, 1, 1).plusDays(i % 365))));
+            return ids;
+        });
+
+        Set<Long> uniqueIds = new HashSet<>();
+        idsPerThread.forEach(uniqueIds::addAll);
+
+        assertEquals(THREADS * usersPerThread, uniqueIds.size());
+        for (Long id : uniqueIds)
+            assertEquals(id, storage.getUserById(id).orElseThrow().getId());
+        assertEquals(THREADS * usersPerThread,
+                storage.getAllByBirthDateRange(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 12, 31)).size());
+    }
+
+    @Test
+    public void addNewUsers_ConcurrentBatches_IdentifierBlocksAreContiguousAndDisjoint() throws Exception {
+        int batchesPerThread = 200;
+        int batchSize = 50;
+
+        List<List<Long>> idsPerThread = runConcurrently(thread -> {
+            List<Long> ids = new ArrayList<>();
+            for (int batch = 0; batch < batchesPerThread; batch++) {
+                List<Users> users = new ArrayList<>(batchSize);
+                for (int i = 0; i < batchSize; i++)
+                    users.add(createUser(LocalDate.of(1995, 3, 3)));
+
+                List<Long> batchIds = storage.addNewUsers(users);
+                for (int i = 1; i < batchIds.size(); i++)
+                    assertEquals(batchIds.get(0) + i, batchIds.get(i));
+                ids.addAll(batchIds);
+            }
+            return ids;
+        });
+
+        Set<Long> uniqueIds = new HashSet<>();
+        idsPerThread.forEach(uniqueIds::addAll);
+        assertEquals(THREADS * batchesPerThread * batchSize, uniqueIds.size());
+        assertEquals(uniqueIds.size(),
+                storage.getAllByBirthDateRange(LocalDate.of(1995, 3, 3), LocalDate.of(1995, 3, 3)).size());
+    }
+
+    @Test
+    public void updateUserData_ConcurrentUpdatesOfDifferentFields_NoUpdateIsLost() throws Exception {
+        Long userId = storage.addNewUser(createUser(LocalDate.of(1990, 1, 1)));
+        int updatesPerThread = 10_000;
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < updatesPerThread; i++) {
+                String value = thread + "-" + i;
+                switch (thread % 4) {
+                    case 0 -> storage.updateUserData(userId, value, null, null, null, null, null);
+                    case 1 -> storage.updateUserData(userId, null, value, null, null, null, null);
+                    case 2 -> storage.updateUserData(userId, null, null, value, null, null, null);
+                    default -> storage.updateUserData(userId, null, null, null, null, value, null);
+                }
+            }
+            return null;
+        });
+
+        Users user = storage.getUserById(userId).orElseThrow();
+        String lastIteration = "-" + (updatesPerThread - 1);
+        assertTrue(user.getEmail().endsWith(lastIteration));
+        assertTrue(user.getFirstName().endsWith(lastIteration));
+        assertTrue(user.getLastName().endsWith(lastIteration));
+        assertTrue(user.getAddress().endsWith(lastIteration));
+    }
+
+    @Test
+    public void updateUserData_ConcurrentCompareAndSet_EveryVersionAppliedOnce() throws Exception {
+        Users initialUser = createUser(LocalDate.of(1990, 1, 1));
+        Long userId = storage.addNewUser(initialUser);
+        int updatesPerThread = 2_000;
+
+        runConcurrently(thread -> {
+            int applied = 0;
+            while (applied < updatesPerThread) {
+                Users current = storage.getUserById(userId).orElseThrow();
+                UsersPatch patch = new UsersPatch(userId, null, current.getFirstName() + thread, null, null, null, null);
+                if (storage.updateUserData(patch, current.getVersion()).orElseThrow().applied())
+                    applied++;
+            }
+            return applied;
+        });
+
+        // a lost update would leave fewer appended characters than applied versions
+        Users user = storage.getUserById(userId).orElseThrow();
+        assertEquals(1 + THREADS * updatesPerThread, user.getVersion());
+        assertEquals(initialUser.getFirstName().length() + THREADS * updatesPerThread, user.getFirstName().length());
+    }
+
+    @Test
+    public void updateUserData_VersionMismatchOrMissingUser_NothingApplied() {
+        Users user = createUser(LocalDate.of(1990, 1, 1));
+        Long userId = storage.addNewUser(user);
+        assertEquals(1, storage.getUserById(userId).orElseThrow().getVersion());
+
+        ConditionalUpdate stale = storage.updateUserData(new UsersPatch(userId, "changed", null, null, null, null, null), 2).orElseThrow();
+        assertFalse(stale.applied());
+        assertEquals(user.getEmail(), stale.user().getEmail());
+
+        ConditionalUpdate current = storage.updateUserData(new UsersPatch(userId, "changed", null, null, null, null, null), 1).orElseThrow();
+        assertTrue(current.applied());
+        assertEquals(2, current.user().getVersion());
+        assertEquals("changed", storage.getUserById(userId).orElseThrow().getEmail());
+
+        assertTrue(storage.updateUserData(new UsersPatch(-1L, "changed", null, null, null, null, null), 1).isEmpty());
+    }
+
+    @Test
+    public void getUserById_WriterHoldsStripeDuringLogAppend_ReadsDoNotWait() throws Exception {
+        AtomicBoolean blockAppends = new AtomicBoolean();
+        CountDownLatch appending = new CountDownLatch(1);
+        CountDownLatch releaseAppend = new CountDownLatch(1);
+        WriteAheadLog blockingLog = new WriteAheadLog() {
+            @Override
+            public long appendPuts(List<Users> users) {
+                if (blockAppends.get()) {
+                    appending.countDown();
+                    try {
+                        releaseAppend.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return 0;
+            }
+
+            @Override
+            public long appendDeletes(List<Long> userIds) {
+                return 0;
+            }
+
+            @Override
+            public void commit(long sequence) {
+            }
+
+            @Override
+            public long rotate() {
+                return 0;
+            }
+
+            @Override
+            public void dropSegmentsBefore(long segment) {
+            }
+
+            @Override
+            public void replay(long fromSegment, Consumer<Users> puts, LongConsumer deletes) {
+            }
+        };
+        ConcurrentUsersStorage blockedStorage = new ConcurrentUsersStorage(blockingLog, SnapshotStore.DISABLED);
+        List<Users> users = new ArrayList<>();
+        for (int i = 0; i < 65; i++)
+            users.add(createUser(LocalDate.of(1990, 1, 1)));
+        blockedStorage.addNewUsers(users);
+
+        blockAppends.set(true);
+        ExecutorService writer = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> update = writer.submit(() -> blockedStorage.updateUserData(1L, null, "Renamed", null, null, null, null));
+            assertTrue(appending.await(1, TimeUnit.MINUTES));
+
+            // users 1 and 65 share a stripe, which the writer keeps locked until its log append returns
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                assertTrue(blockedStorage.getUserById(65L).isPresent());
+                assertTrue(blockedStorage.getUserById(1L).isPresent());
+                assertEquals(65, blockedStorage.getAllByBirthDateRange(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 1, 1)).size());
+            });
+
+            releaseAppend.countDown();
+            update.get(1, TimeUnit.MINUTES);
+            assertEquals("Renamed", blockedStorage.getUserById(1L).orElseThrow().getFirstName());
+        } finally {
+            releaseAppend.countDown();
+            writer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void getAllByBirthDateRange_ConcurrentWrites_ReadersSeeConsistentSnapshot() throws Exception {
+        LocalDate startDate = LocalDate.of(1980, 1, 1);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++)
+            ids.add(storage.addNewUser(createUser(startDate.plusDays(i))));
+
+        AtomicBoolean writersDone = new AtomicBoolean();
+        runConcurrently(thread -> {
+            if (thread == 0) {
+                // the writer moves every user around, keeping email and first name equal to each other
+                for (int round = 0; round < 50; round++) {
+                    for (Long id : ids) {
+                        String value = "round" + round + "-" + id;
+                        storage.updateUserData(id, value, value, null, startDate.plusDays((id + round) % 1_000), null, null);
+                    }
+                }
+                writersDone.set(true);
+                return null;
+            }
+
+            while (!writersDone.get()) {
+                List<Users> users = storage.getAllByBirthDateRange(startDate, startDate.plusDays(999));
+                assertEquals(ids.size(), users.size());
+                assertEquals(ids.size(), users.stream().map(Users::getId).distinct().count());
+                for (Users user : users)
+                    assertEquals(user.getEmail(), user.getFirstName());
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void getAllByBirthDateRange_UsersMovedAndRemoved_OnlyCurrentStateIsReturned() {
+        LocalDate birthDate = LocalDate.of(1985, 5, 5);
+        Long movedUserId = storage.addNewUser(createUser(birthDate));
+        Long removedUserId = storage.addNewUser(createUser(birthDate));
+        Long untouchedUserId = storage.addNewUser(createUser(birthDate));
+
+        storage.updateUserData(movedUserId, null, null, null, birthDate.plusYears(1), null, null);
+        storage.removeUser(removedUserId);
+
+        assertEquals(List.of(untouchedUserId),
+                storage.getAllByBirthDateRange(birthDate, birthDate).stream().map(Users::getId).toList());
+        assertEquals(List.of(movedUserId),
+                storage.getAllByBirthDateRange(birthDate.plusYears(1), birthDate.plusYears(1)).stream().map(Users::getId).toList());
+        assertTrue(storage.getUserById(removedUserId).isEmpty());
+        assertTrue(storage.updateUserData(removedUserId, "email", null, null, null, null, null).isEmpty());
+    }
+
+    @Test
+    public void getPageByBirthDateRange_ResumedAfterLastKey_PagesCoverRangeInOrder() {
+        LocalDate startDate = LocalDate.of(1970, 1, 1);
+        for (int i = 0; i < 100; i++)
+            storage.addNewUser(createUser(startDate.plusDays(i % 10)));
+        List<Users> expected = storage.getAllByBirthDateRange(startDate, startDate.plusDays(9));
+
+        List<Users> collected = new ArrayList<>();
+        List<Users> page = storage.getPageByBirthDateRange(startDate, startDate.plusDays(9), null, 0, 7);
+        while (!page.isEmpty()) {
+            collected.addAll(page);
+            Users last = page.get(page.size() - 1);
+            page = storage.getPageByBirthDateRange(startDate, startDate.plusDays(9), last.getBirthDate(), last.getId(), 7);
+        }
+
+        assertEquals(expected, collected);
+        assertEquals(100, collected.size());
+    }
+
+    @Test
+    public void updateUsersData_AllOrNothingWithMissingUser_NothingIsApplied() {
+        Users user = createUser(LocalDate.of(1990, 1, 1));
+        Long userId = storage.addNewUser(user);
+        List<UsersPatch> patches = List.of(
+                new UsersPatch(userId, "changed", null, null, null, null, null),
+                new UsersPatch(-1L, "changed", null, null, null, null, null)
+        );
+
+        List<Users> results = storage.updateUsersData(patches, true);
+
+        assertEquals(user.getEmail(), results.get(0).getEmail());
+        assertNull(results.get(1));
+        assertEquals(user.getEmail(), storage.getUserById(userId).orElseThrow().getEmail());
+
+        results = storage.updateUsersData(patches, false);
+
+        assertEquals("changed", results.get(0).getEmail());
+        assertNull(results.get(1));
+        assertEquals("changed", storage.getUserById(userId).orElseThrow().getEmail());
+    }
+
+    @Test
+    public void removeUsers_AllOrNothing_RemovedOnlyWhenEveryUserExists() {
+        Long firstUserId = storage.addNewUser(createUser(LocalDate.of(1990, 1, 1)));
+        Long secondUserId = storage.addNewUser(createUser(LocalDate.of(1990, 1, 1)));
+
+        List<Users> results = storage.removeUsers(List.of(firstUserId, -1L), true);
+        assertNull(results.get(1));
+        assertTrue(storage.getUserById(firstUserId).isPresent());
+
+        results = storage.removeUsers(List.of(firstUserId, secondUserId, firstUserId), true);
+        assertEquals(List.of(firstUserId, secondUserId, firstUserId), results.stream().map(Users::getId).toList());
+        assertTrue(storage.getAllByBirthDateRange(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 1, 1)).isEmpty());
+    }
+
+    @Test
+    public void removeAllByBirthDateRange_OnlyUsersInRangeAreRemoved() {
+        LocalDate startDate = LocalDate.of(1960, 1, 1);
+        for (int i = 0; i < 30; i++)
+            storage.addNewUser(createUser(startDate.plusDays(i)));
+
+        List<Users> removedUsers = storage.removeAllByBirthDateRange(startDate.plusDays(10), startDate.plusDays(19));
+
+        assertEquals(10, removedUsers.size());
+        assertEquals(20, storage.getAllByBirthDateRange(startDate, startDate.plusDays(29)).size());
+        assertTrue(storage.getAllByBirthDateRange(startDate.plusDays(10), startDate.plusDays(19)).isEmpty());
+    }
+
+    @Test
+    public void birthDatesChanged_EveryWrite_ReportsOldAndNewBirthDates() {
+        List<List<LocalDate>> changes = new ArrayList<>();
+        ConcurrentUsersStorage listenedStorage = new ConcurrentUsersStorage(WriteAheadLog.DISABLED, SnapshotStore.DISABLED,
+                (epochDays, count) -> changes.add(Arrays.stream(epochDays, 0, count).mapToObj(LocalDate::ofEpochDay).toList()));
+        LocalDate birthDate = LocalDate.of(1980, 2, 2);
+
+        Long userId = listenedStorage.addNewUser(createUser(birthDate));
+        listenedStorage.updateUserData(userId, "changed", null, null, null, null, null);
+        listenedStorage.updateUserData(userId, null, null, null, birthDate.plusDays(1), null, null);
+        listenedStorage.removeUser(userId);
+        listenedStorage.removeUser(userId);
+
+        assertEquals(List.of(
+                List.of(birthDate),
+                List.of(birthDate, birthDate),
+                List.of(birthDate, birthDate.plusDays(1)),
+                List.of(birthDate.plusDays(1)),
+                List.of()), changes);
+    }
+
+    @Test
+    public void getModificationGeneration_ChangesOnlyForRangesWithChangedBirthDates() {
+        LocalDate birthDate = LocalDate.of(1980, 2, 2);
+        LocalDate movedTo = LocalDate.of(1990, 2, 2);
+        Long userId = storage.addNewUser(createUser(birthDate));
+        long afterAdd = storage.getModificationGeneration(birthDate, birthDate);
+
+        storage.addNewUser(createUser(movedTo.plusYears(1)));
+        assertEquals(afterAdd, storage.getModificationGeneration(birthDate, birthDate));
+        assertEquals(0, storage.getModificationGeneration(movedTo, movedTo));
+
+        storage.updateUserData(userId, null, null, null, movedTo, null, null);
+        long afterMove = storage.getModificationGeneration();
+        assertEquals(afterMove, storage.getModificationGeneration(birthDate, birthDate));
+        assertEquals(afterMove, storage.getModificationGeneration(movedTo, movedTo));
+        assertEquals(afterMove, storage.getModificationGeneration(LocalDate.MIN, LocalDate.MAX));
+
+        storage.removeUser(-1L);
+        assertEquals(afterMove, storage.getModificationGeneration());
+        storage.removeUser(userId);
+        assertTrue(storage.getModificationGeneration(movedTo, movedTo) > afterMove);
+        assertEquals(afterMove, storage.getModificationGeneration(birthDate, birthDate));
+    }
+
+    @Test
+    public void addNewUser_ConcurrentInsertsOfSameEmails_EachEmailAddedOnce() throws Exception {
+        int emails = 2_000;
+
+        List<Integer> addedPerThread = runConcurrently(thread -> {
+            int added = 0;
+            for (int i = 0; i < emails; i++) {
+                Users user = createUser(LocalDate.of(1990, 1, 1));
+                user.setEmail(thread % 2 == 0 ? "same" + i + "@mail.com" : " SAME" + i + "@Mail.com");
+                try {
+                    storage.addNewUser(user);
+                    added++;
+                } catch (DuplicateEmailException e) {
+                    assertEquals(List.of(0), e.getPositions());
+                }
+            }
+            return added;
+        });
+
+        assertEquals(emails, addedPerThread.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(emails, storage.getAllByBirthDateRange(LocalDate.of(1990, 1, 1), LocalDate.of(1990, 1, 1)).size());
+        for (int i = 0; i < emails; i++)
+            assertTrue(storage.getUserByEmail("same" + i + "@mail.com").isPresent());
+    }
+
+    @Test
+    public void getUserByEmail_EmailsChangedAndRemoved_IndexFollowsAndStaysUnique() {
+        Users first = createUser(LocalDate.of(1990, 1, 1));
+        Long firstId = storage.addNewUser(first);
+        Users second = createUser(LocalDate.of(1990, 1, 1));
+        Long secondId = storage.addNewUser(second);
+
+        DuplicateEmailException duplicate = assertThrows(DuplicateEmailException.class,
+                () -> storage.updateUserData(secondId, " " + first.getEmail().toUpperCase() + " ", null, null, null, null, null));
+        assertEquals(List.of(0), duplicate.getPositions());
+        assertEquals(second.getEmail(), storage.getUserById(secondId).orElseThrow().getEmail());
+        assertEquals(firstId, storage.getUserByEmail(first.getEmail()).orElseThrow().getId());
+
+        storage.updateUserData(firstId, "moved@mail.com", null, null, null, null, null);
+        storage.updateUserData(secondId, first.getEmail(), null, null, null, null, null);
+        assertEquals(secondId, storage.getUserByEmail(first.getEmail()).orElseThrow().getId());
+        assertEquals(firstId, storage.getUserByEmail(" MOVED@mail.com").orElseThrow().getId());
+        assertTrue(storage.getUserByEmail(second.getEmail()).isEmpty());
+
+        storage.removeUser(firstId);
+        assertTrue(storage.getUserByEmail("moved@mail.com").isEmpty());
+        Users third = createUser(LocalDate.of(1990, 1, 1));
+        third.setEmail("moved@mail.com");
+        Long thirdId = storage.addNewUser(third);
+        assertEquals(thirdId, storage.getUserByEmail("moved@mail.com").orElseThrow().getId());
+
+        Users fourth = createUser(LocalDate.of(1990, 1, 1));
+        Users fifth = createUser(LocalDate.of(1990, 1, 1));
+        fifth.setEmail(fourth.getEmail());
+        duplicate = assertThrows(DuplicateEmailException.class, () -> storage.addNewUsers(List.of(fourth, fifth)));
+        assertEquals(List.of(1), duplicate.getPositions());
+        assertTrue(storage.getUserByEmail(fourth.getEmail()).isEmpty());
+    }
+
+    @Test
+    public void searchByName_UsersRenamedAndRemoved_OnlyCurrentNamesAreFound() {
+        Users anna = createUser(LocalDate.of(1990, 1, 1));
+        anna.setFirstName("Anna");
+        anna.setLastName("Kowalski");
+        Long annaId = storage.addNewUser(anna);
+        Users annabel = createUser(LocalDate.of(1990, 1, 1));
+        annabel.setFirstName("Annabel");
+        annabel.setLastName("Smith");
+        Long annabelId = storage.addNewUser(annabel);
+        Users ana = createUser(LocalDate.of(1990, 1, 1));
+        ana.setFirstName("Ana");
+        ana.setLastName("Kowalska");
+        Long anaId = storage.addNewUser(ana);
+
+        assertEquals(List.of(annaId, annabelId, anaId), idsOf(storage.searchByName("anna", 10)));
+        // "kowalska" and "kowalski" are a typo away from the longest word, the other word matches both
+        assertEquals(List.of(anaId, annaId), idsOf(storage.searchByName("ANNA kowalsky", 10)));
+        assertEquals(List.of(annaId), idsOf(storage.searchByName("anna", 1)));
+
+        storage.updateUserData(annaId, null, "Maria", null, null, null, null);
+        assertEquals(List.of(annabelId, anaId), idsOf(storage.searchByName("anna", 10)));
+        assertEquals(List.of(annaId), idsOf(storage.searchByName("mari", 10)));
+
+        storage.removeUser(annabelId);
+        assertEquals(List.of(anaId), idsOf(storage.searchByName("anna", 10)));
+        assertTrue(storage.searchByName("-", 10).isEmpty());
+    }
+
+    @Test
+    public void getAllByAnniversaryRange_WindowSpansNewYearAndLeapDay_BirthdaysInWindowOrder() {
+        Long leapDayId = storage.addNewUser(createUser(LocalDate.of(2000, 2, 29)));
+        Long marchId = storage.addNewUser(createUser(LocalDate.of(1999, 3, 1)));
+        Long februaryId = storage.addNewUser(createUser(LocalDate.of(1990, 2, 28)));
+        Long decemberId = storage.addNewUser(createUser(LocalDate.of(1985, 12, 31)));
+        Long januaryId = storage.addNewUser(createUser(LocalDate.of(1970, 1, 1)));
+        storage.addNewUser(createUser(LocalDate.of(2026, 12, 31)));
+
+        // 2027 is not a leap year: February 29 birthdays are on March 1
+        assertEquals(List.of(decemberId, januaryId, februaryId, leapDayId, marchId),
+                idsOf(storage.getAllByAnniversaryRange(LocalDate.of(2026, 12, 31), LocalDate.of(2027, 3, 1), null)));
+        assertEquals(List.of(leapDayId, marchId),
+                idsOf(storage.getAllByAnniversaryRange(LocalDate.of(2027, 3, 1), LocalDate.of(2027, 3, 1), null)));
+        assertEquals(List.of(februaryId),
+                idsOf(storage.getAllByAnniversaryRange(LocalDate.of(2027, 2, 28), LocalDate.of(2027, 2, 28), null)));
+        assertEquals(List.of(leapDayId),
+                idsOf(storage.getAllByAnniversaryRange(LocalDate.of(2028, 2, 29), LocalDate.of(2028, 2, 29), null)));
+
+        assertEquals(List.of(leapDayId),
+                idsOf(storage.getAllByAnniversaryRange(LocalDate.of(2027, 2, 1), LocalDate.of(2027, 3, 1), 27)));
+        assertEquals(List.of(januaryId),
+                idsOf(storage.getAllByAnniversaryRange(LocalDate.of(2026, 12, 1), LocalDate.of(2027, 1, 31), 57)));
+
+        storage.updateUserData(januaryId, null, null, null, LocalDate.of(1970, 6, 1), null, null);
+        storage.removeUser(decemberId);
+        assertEquals(List.of(februaryId, leapDayId, marchId),
+                idsOf(storage.getAllByAnniversaryRange(LocalDate.of(2026, 12, 31), LocalDate.of(2027, 3, 1), null)));
+    }
+
+    @Test
+    public void countByBirthDateRange_UsersAddedMovedAndRemoved_LatestStateCounted() {
+        LocalDate birthDate = LocalDate.of(1990, 5, 10);
+        List<Long> userIds = storage.addNewUsers(List.of(createUser(birthDate), createUser(birthDate), createUser(birthDate.plusDays(1))));
+        assertEquals(3, storage.countByBirthDateRange(birthDate, birthDate.plusDays(1)));
+        assertEquals(2, storage.countByBirthDateRange(birthDate, birthDate));
+
+        storage.updateUserData(userIds.get(0), null, null, null, birthDate.minusYears(1), null, null);
+        storage.updateUserData(userIds.get(1), null, "Renamed", null, null, null, null);
+        storage.removeUser(userIds.get(2));
+        assertEquals(1, storage.countByBirthDateRange(birthDate, birthDate.plusDays(1)));
+        assertEquals(2, storage.countByBirthDateRange(birthDate.minusYears(1), birthDate.plusYears(1)));
+
+        storage.removeAllByBirthDateRange(LocalDate.MIN, LocalDate.MAX);
+        assertEquals(0, storage.countByBirthDateRange(LocalDate.MIN, LocalDate.MAX));
+    }
+
+    @Test
+    public void removeUsers_SameIdentifierTwice_RemovedAndCountedOnce() {
+        LocalDate birthDate = LocalDate.of(1990, 5, 10);
+        List<Long> userIds = storage.addNewUsers(List.of(createUser(birthDate), createUser(birthDate)));
+
+        List<Users> results = storage.removeUsers(List.of(userIds.get(0), userIds.get(0)), false);
+
+        assertEquals(List.of(userIds.get(0), userIds.get(0)), results.stream().map(Users::getId).toList());
+        assertEquals(1, storage.countByBirthDateRange(birthDate, birthDate));
+        assertEquals(List.of(userIds.get(1)), idsOf(storage.getAllByBirthDateRange(birthDate, birthDate)));
+    }
+
+    @Test
+    public void shardedStorage_RangeQueries_SameUsersInSameOrderAsOneShard() {
+        ConcurrentUsersStorage shardedStorage = new ConcurrentUsersStorage(WriteAheadLog.DISABLED, SnapshotStore.DISABLED,
+                BirthDateChangeListener.NONE, 16);
+        for (int i = 0; i < 20_000; i++) {
+            // a few dates shared by many users, so every shard returns several merge batches per date
+            LocalDate birthDate = LocalDate.of(1990, 1, 1).plusDays(i % 7);
+            storage.addNewUser(createUser(birthDate));
+            shardedStorage.addNewUser(createUser(birthDate));
+        }
+        shardedStorage.updateUserData(5L, null, null, null, LocalDate.of(1990, 1, 3), null, null);
+        storage.updateUserData(5L, null, null, null, LocalDate.of(1990, 1, 3), null, null);
+        shardedStorage.removeUser(7L);
+        storage.removeUser(7L);
+
+        LocalDate startDate = LocalDate.of(1990, 1, 2);
+        LocalDate endDate = LocalDate.of(1990, 1, 5);
+        List<Long> expected = idsOf(storage.getAllByBirthDateRange(startDate, endDate));
+        assertEquals(expected, idsOf(shardedStorage.getAllByBirthDateRange(startDate, endDate)));
+
+        List<Users> streamed = new ArrayList<>();
+        shardedStorage.forEachByBirthDateRange(startDate, endDate, streamed::add);
+        assertEquals(expected, idsOf(streamed));
+
+        Users last = shardedStorage.getPageByBirthDateRange(startDate, endDate, null, 0, 5_000).get(4_999);
+        assertEquals(expected.subList(5_000, 5_100),
+                idsOf(shardedStorage.getPageByBirthDateRange(startDate, endDate, last.getBirthDate(), last.getId(), 100)));
+    }
+
+    @Test
+    public void shardedStorage_ShardCountNotPowerOfTwo_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ConcurrentUsersStorage(WriteAheadLog.DISABLED,
+                SnapshotStore.DISABLED, BirthDateChangeListener.NONE, 12));
+    }
+
+    private <T> List<T> runConcurrently(ThreadTask<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                int threadNumber = thread;
+                futures.add(executor.submit((Callable<T>) () -> {
+                    start.await();
+                    return task.run(threadNumber);
+                }));
+            }
+            start.countDown();
+
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : futures)
+                results.add(future.get(1, TimeUnit.MINUTES));
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<Long> idsOf(List<Users> users) {
+        return users.stream().map(Users::getId).toList();
+    }
+
+    private static Users createUser(LocalDate birthDate) {
+        Users user = new Users();
+        user.setEmail("email" + EMAIL_SEQUENCE.incrementAndGet() + "@mail.com");
+        user.setFirstName(user.getEmail());
+        user.setLastName("surname");
+        user.setBirthDate(birthDate);
+        return user;
+    }
+
+    @FunctionalInterface
+    private interface ThreadTask<T> {
+        T run(int thread) throws Exception;
+    }
+}
@@ -0,0 +1,63 @@
+package com.clear.solutions.user_restful.storage.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BirthDateCountsTest {
+
+    private final BirthDateCounts counts = new BirthDateCounts();
+
+    @Test
+    public void count_RandomChangesAndRanges_SameAsScanningEveryDay() {
+        Random random = new Random(42);
+        Map<Long, Long> expected = new HashMap<>();
+        long[] bulkDays = new long[1_000];
+        for (int i = 0; i < bulkDays.length; i++) {
+            bulkDays[i] = random.nextInt(20_000) - 10_000;
+            expected.merge(bulkDays[i], 1L, Long::sum);
+        }
+        counts.addAll(bulkDays, bulkDays.length);
+
+        for (int write = 0; write < 2_000; write++) {
+            LocalDate birthDate = LocalDate.ofEpochDay(random.nextInt(20_000) - 10_000);
+            if (expected.getOrDefault(birthDate.toEpochDay(), 0L) > 0 && random.nextBoolean()) {
+                counts.decrement(birthDate);
+                expected.merge(birthDate.toEpochDay(), -1L, Long::sum);
+            } else {
+                counts.increment(birthDate);
+                expected.merge(birthDate.toEpochDay(), 1L, Long::sum);
+            }
+        }
+
+        for (int query = 0; query < 2_000; query++) {
+            long start = random.nextInt(20_000) - 10_000;
+            long end = start + random.nextInt(query % 2 == 0 ? 40 : 20_000);
+            long count = 0;
+            for (long day = start; day <= end; day++)
+                count += expected.getOrDefault(day, 0L);
+            assertEquals(count, counts.count(start, end), start + ".." + end);
+        }
+    }
+
+    @Test
+    public void count_ExtremeDates_Covered() {
+        counts.increment(LocalDate.MIN);
+        counts.increment(LocalDate.MAX);
+        counts.increment(LocalDate.MAX);
+
+        long min = LocalDate.MIN.toEpochDay();
+        long max = LocalDate.MAX.toEpochDay();
+        assertEquals(1, counts.count(min, min));
+        assertEquals(3, counts.count(min, max));
+        assertEquals(0, counts.count(min + 1, max - 1));
+
+        counts.decrement(LocalDate.MIN);
+        assertEquals(2, counts.count(min, max));
+    }
+}
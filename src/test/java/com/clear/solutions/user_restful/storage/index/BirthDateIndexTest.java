@@ -0,0 +1,70 @@
+package com.clear.solutions.user_restful.storage.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BirthDateIndexTest {
+
+    private final BirthDateIndex index = new BirthDateIndex();
+
+    @Test
+    public void forEachIdInRange_BoundsAreInclusive() {
+        index.add(LocalDate.of(1990, 1, 1), 1);
+        index.add(LocalDate.of(1990, 1, 2), 2);
+        index.add(LocalDate.of(1990, 1, 3), 3);
+        index.add(LocalDate.of(1990, 1, 4), 4);
+
+        assertEquals(List.of(2L, 3L), idsInRange(LocalDate.of(1990, 1, 2), LocalDate.of(1990, 1, 3)));
+        assertEquals(List.of(3L), idsInRange(LocalDate.of(1990, 1, 3), LocalDate.of(1990, 1, 3)));
+        assertEquals(List.of(), idsInRange(LocalDate.of(1990, 1, 5), LocalDate.of(2000, 1, 1)));
+    }
+
+    @Test
+    public void forEachIdInRange_DatesAroundEpoch_OrderedByBirthDateThenId() {
+        // epoch days of the first three are negative
+        index.add(LocalDate.of(1969, 12, 31), 5);
+        index.add(LocalDate.of(1900, 6, 15), 9);
+        index.add(LocalDate.of(1969, 12, 31), 2);
+        index.add(LocalDate.of(1970, 1, 1), 1);
+        index.add(LocalDate.of(1970, 1, 1), 7);
+        index.add(LocalDate.of(1970, 1, 1), 3);
+
+        assertEquals(List.of(9L, 2L, 5L, 1L, 3L, 7L), idsInRange(LocalDate.MIN, LocalDate.MAX));
+        assertEquals(List.of(2L, 5L, 1L, 3L, 7L), idsInRange(LocalDate.of(1969, 12, 31), LocalDate.of(1970, 1, 1)));
+        assertEquals(List.of(9L), idsInRange(LocalDate.of(1800, 1, 1), LocalDate.of(1969, 12, 30)));
+    }
+
+    @Test
+    public void remove_SameDayIds_OnlyTheRemovedOneGoes() {
+        LocalDate birthDate = LocalDate.of(1960, 2, 29);
+        index.add(birthDate, 3);
+        index.add(birthDate, 1);
+        index.add(birthDate, 2);
+        index.add(birthDate, 2);
+
+        index.remove(birthDate, 2);
+        assertEquals(List.of(1L, 3L), idsInRange(birthDate, birthDate));
+
+        // removing an identifier the day does not hold changes nothing
+        index.remove(birthDate, 4);
+        index.remove(birthDate.plusDays(1), 1);
+        assertEquals(List.of(1L, 3L), idsInRange(birthDate, birthDate));
+
+        index.remove(birthDate, 1);
+        index.remove(birthDate, 3);
+        assertEquals(List.of(), idsInRange(birthDate, birthDate));
+        index.add(birthDate, 3);
+        assertEquals(List.of(3L), idsInRange(birthDate, birthDate));
+    }
+
+    private List<Long> idsInRange(LocalDate startDate, LocalDate endDate) {
+        List<Long> ids = new ArrayList<>();
+        index.forEachIdInRange(startDate, endDate, (epochDay, userId) -> ids.add(userId));
+        return ids;
+    }
+}
@@ -0,0 +1,57 @@
+package com.clear.solutions.user_restful.storage.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeGenerationsTest {
+
+    private final ChangeGenerations generations = new ChangeGenerations();
+
+    @Test
+    public void max_RandomRanges_SameAsScanningEveryDay() {
+        Random random = new Random(42);
+        Map<Long, Long> expected = new HashMap<>();
+        for (int write = 0; write < 2_000; write++) {
+            long[] days = {random.nextInt(20_000) - 10_000, random.nextInt(20_000) - 10_000};
+            int count = 1 + random.nextInt(2);
+            long generation = generations.advance(days, count);
+            for (int i = 0; i < count; i++)
+                expected.put(days[i], generation);
+        }
+
+        for (int query = 0; query < 2_000; query++) {
+            long start = random.nextInt(20_000) - 10_000;
+            long end = start + random.nextInt(query % 2 == 0 ? 40 : 20_000);
+            long max = 0;
+            for (long day = start; day <= end; day++)
+                max = Math.max(max, expected.getOrDefault(day, 0L));
+            assertEquals(max, generations.max(start, end), start + ".." + end);
+        }
+    }
+
+    @Test
+    public void max_ExtremeDates_Covered() {
+        long min = LocalDate.MIN.toEpochDay();
+        long max = LocalDate.MAX.toEpochDay();
+        generations.advance(new long[]{min}, 1);
+        generations.advance(new long[]{max}, 1);
+
+        assertEquals(1, generations.max(min, min));
+        assertEquals(2, generations.max(min, max));
+        assertEquals(2, generations.max(max, max));
+        assertEquals(0, generations.max(min + 1, max - 1));
+    }
+
+    @Test
+    public void advance_NoDays_GenerationUnchanged() {
+        assertEquals(1, generations.advance(new long[]{7}, 1));
+        assertEquals(1, generations.advance(new long[0], 0));
+        assertEquals(1, generations.current());
+    }
+}
@@ -0,0 +1,111 @@
+package com.clear.solutions.user_restful.storage.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LongObjectHashMapTest {
+
+    // a new map has 16 slots and grows past 12 entries
+    private static final int DEFAULT_CAPACITY = 16;
+
+    @Test
+    public void remove_ChainWrappingAroundTableEnd_KeepsEveryKeyReachable() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+        long[] lastSlotKeys = keysWithHomeSlot(DEFAULT_CAPACITY - 1, 3);
+        long[] firstSlotKeys = keysWithHomeSlot(0, 2);
+        // the chain takes the last slot and then slots 0 to 3 past the end of the table
+        for (long key : lastSlotKeys)
+            map.put(key, "last" + key);
+        for (long key : firstSlotKeys)
+            map.put(key, "first" + key);
+
+        assertEquals("last" + lastSlotKeys[0], map.remove(lastSlotKeys[0]));
+        assertNull(map.get(lastSlotKeys[0]));
+        assertEquals("last" + lastSlotKeys[1], map.get(lastSlotKeys[1]));
+        assertEquals("last" + lastSlotKeys[2], map.get(lastSlotKeys[2]));
+        for (long key : firstSlotKeys)
+            assertEquals("first" + key, map.get(key));
+
+        assertEquals("first" + firstSlotKeys[0], map.remove(firstSlotKeys[0]));
+        assertEquals("first" + firstSlotKeys[1], map.get(firstSlotKeys[1]));
+        map.put(lastSlotKeys[0], "again");
+        map.put(firstSlotKeys[0], "again");
+        assertEquals("again", map.get(lastSlotKeys[0]));
+        assertEquals("again", map.get(firstSlotKeys[0]));
+        assertEquals(5, map.size());
+    }
+
+    @Test
+    public void remove_MiddleOfCollisionChain_LaterEntriesStayReachable() {
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        long[] keys = keysWithHomeSlot(5, 4);
+        for (long key : keys)
+            map.put(key, key);
+
+        assertEquals(keys[1], map.remove(keys[1]));
+        assertNull(map.remove(keys[1]));
+        assertEquals(keys[0], map.get(keys[0]));
+        assertEquals(keys[2], map.get(keys[2]));
+        assertEquals(keys[3], map.get(keys[3]));
+        assertEquals(3, map.size());
+    }
+
+    @Test
+    public void put_ExistingKey_ReplacesValue() {
+        LongObjectHashMap<String> map = new LongObjectHashMap<>();
+
+        assertNull(map.put(-7, "first"));
+        assertEquals("first", map.put(-7, "second"));
+        assertEquals("second", map.get(-7));
+        assertEquals(1, map.size());
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+    }
+
+    @Test
+    public void randomOperations_ThroughResizes_SameAsHashMap() {
+        Random random = new Random(1);
+        LongObjectHashMap<Long> map = new LongObjectHashMap<>();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 100_000; i++) {
+            // the key range grows, so the table resizes many times while entries come and go
+            long key = random.nextInt(10 + i / 10) - 5;
+            if (random.nextInt(3) == 0)
+                assertEquals(expected.remove(key), map.remove(key));
+            else
+                assertEquals(expected.put(key, (long) i), map.put(key, (long) i));
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (long key = -5; key < 10_010; key++)
+            assertEquals(expected.get(key), map.get(key), "key " + key);
+        List<Long> values = new ArrayList<>();
+        map.forEachValue(values::add);
+        assertEquals(expected.size(), values.size());
+        assertTrue(values.containsAll(expected.values()));
+
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertNull(map.get(values.get(0)));
+    }
+
+    /**
+     * Keys the map places first at the slot of a new table, by the same Fibonacci hashing.
+     */
+    private static long[] keysWithHomeSlot(int slot, int count) {
+        long[] keys = new long[count];
+        int found = 0;
+        for (long key = 1; found < count; key++) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            if (((int) (hash ^ (hash >>> 32)) & (DEFAULT_CAPACITY - 1)) == slot)
+                keys[found++] = key;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,96 @@
+package com.clear.solutions.user_restful.storage.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NameIndexTest {
+
+    private final NameIndex index = new NameIndex();
+
+    @Test
+    public void forEachMatch_ExactThenPrefixThenTypos() {
+        index.add("jon", 1);
+        index.add("jonathan", 2);
+        index.add("john", 3);
+        index.add("joan", 4);
+        index.add("jonas", 5);
+        index.add("jno", 6);
+        index.add("ojn", 8);
+        index.add("mark", 7);
+
+        // "jno" and "ojn" are a transposition away, "john" and "joan" an insertion
+        assertEquals(List.of("jon:1", "jonas:5", "jonathan:2", "jno:6", "joan:4", "john:3", "ojn:8"), matchesOf("jon"));
+        // a typo in the first letter
+        assertEquals(List.of("john:3"), matchesOf("kohn"));
+        assertEquals(List.of("jonathan:2"), matchesOf("ionatahn"));
+        assertEquals(List.of("jonathan:2"), matchesOf("jonatahn"));
+        assertEquals(List.of("mark:7"), matchesOf("ma"));
+        assertEquals(List.of(), matchesOf("mo"));
+    }
+
+    @Test
+    public void forEachMatch_RandomTokens_SameAsComparingEveryToken() {
+        Random random = new Random(42);
+        List<String> tokens = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            String token = randomToken(random, 2 + random.nextInt(9));
+            tokens.add(token);
+            index.add(token, i);
+        }
+
+        for (int query = 0; query < 500; query++) {
+            String term = query % 2 == 0 ? randomToken(random, 3 + random.nextInt(8)) : tokens.get(random.nextInt(tokens.size()));
+            Set<String> expected = new TreeSet<>();
+            for (String token : tokens) {
+                if (NameIndex.matches(term, token))
+                    expected.add(token);
+            }
+            Set<String> found = new TreeSet<>();
+            index.forEachMatch(term, (token, userId) -> {
+                found.add(token);
+                return true;
+            });
+            assertEquals(expected, found, term);
+        }
+    }
+
+    @Test
+    public void forEachMatch_RemovedAndBulkAddedIds() {
+        index.addAll(new String[]{"anna", "anna", "smith", "anna"}, new long[]{3, 1, 1, 2}, 4);
+        index.add("anna", 4);
+        index.remove("anna", 2);
+        index.remove("smith", 1);
+
+        assertEquals(List.of("anna:1", "anna:3", "anna:4"), matchesOf("anna"));
+        assertEquals(List.of(), matchesOf("smith"));
+    }
+
+    @Test
+    public void tokenize_SplitsLowerCasesAndDropsRepeats() {
+        assertEquals(List.of("mary", "jane", "o'neil"),
+                NameIndex.tokenize("Mary-Jane", "  O'Neil ", null, "JANE"));
+        assertEquals(1, NameIndex.editDistance("ab", "ba", 1));
+        assertEquals(3, NameIndex.editDistance("abc", "xyz", 2));
+    }
+
+    private static String randomToken(Random random, int length) {
+        // a small alphabet, so that tokens have many neighbours
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i < length; i++)
+            token.append((char) ('a' + random.nextInt(5)));
+        return token.toString();
+    }
+
+    private List<String> matchesOf(String term) {
+        List<String> matches = new ArrayList<>();
+        index.forEachMatch(term, (token, userId) -> matches.add(token + ":" + userId));
+        return matches;
+    }
+}
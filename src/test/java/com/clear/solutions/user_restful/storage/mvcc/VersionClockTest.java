@@ -0,0 +1,32 @@
+package com.clear.solutions.user_restful.storage.mvcc;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VersionClockTest {
+
+    @Test
+    public void publish_EarlierVersionNotPublished_WriterParksUntilItIs() throws Exception {
+        VersionClock clock = new VersionClock();
+        long first = clock.reserve();
+        long second = clock.reserve();
+
+        Thread laterWriter = new Thread(() -> clock.publish(second));
+        laterWriter.start();
+        // parked rather than spinning on the CPU the first writer needs
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            while (laterWriter.getState() != Thread.State.WAITING)
+                Thread.sleep(1);
+        });
+        assertEquals(0, clock.committedVersion());
+
+        clock.publish(first);
+        laterWriter.join(10_000);
+
+        assertFalse(laterWriter.isAlive());
+        assertEquals(second, clock.committedVersion());
+    }
+}
@@ -0,0 +1,87 @@
+package com.clear.solutions.user_restful.storage.snapshot;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.storage.UsersPatch;
+import com.clear.solutions.user_restful.storage.implementation.ConcurrentUsersStorage;
+import com.clear.solutions.user_restful.storage.wal.FileWriteAheadLog;
+import com.clear.solutions.user_restful.storage.wal.FsyncPolicy;
+import com.clear.solutions.user_restful.storage.wal.WriteAheadLog;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileSnapshotStoreTest {
+
+    private static final LocalDate BIRTH_DATE = LocalDate.of(1990, 1, 1);
+    private static final AtomicLong EMAIL_SEQUENCE = new AtomicLong();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void writeSnapshot_ThenMoreWrites_RestartLoadsSnapshotAndReplaysNewerLog() throws IOException {
+        Path walDirectory = directory.resolve("wal");
+        Path snapshotDirectory = directory.resolve("snapshots");
+        List<Long> userIds;
+        try (FileWriteAheadLog log = new FileWriteAheadLog(walDirectory, FsyncPolicy.EVERY_WRITE, 0)) {
+            ConcurrentUsersStorage storage = new ConcurrentUsersStorage(log, new FileSnapshotStore(snapshotDirectory));
+            userIds = storage.addNewUsers(List.of(createUser(), createUser(), createUser()));
+            storage.writeSnapshot();
+
+            storage.updateUsersData(List.of(new UsersPatch(userIds.get(0), null, "changed", null, null, null, null)), false);
+            storage.removeUser(userIds.get(1));
+        }
+
+        // the segment covered by the snapshot is gone, the log holds only the writes made after it
+        assertEquals(1, countFiles(walDirectory));
+        assertEquals(1, countFiles(snapshotDirectory));
+
+        try (FileWriteAheadLog log = new FileWriteAheadLog(walDirectory, FsyncPolicy.EVERY_WRITE, 0)) {
+            ConcurrentUsersStorage storage = new ConcurrentUsersStorage(log, new FileSnapshotStore(snapshotDirectory));
+
+            assertEquals("changed", storage.getUserById(userIds.get(0)).orElseThrow().getFirstName());
+            assertTrue(storage.getUserById(userIds.get(1)).isEmpty());
+            assertEquals("Street 10/2", storage.getUserById(userIds.get(2)).orElseThrow().getAddress());
+            assertEquals(userIds.get(2) + 1, storage.addNewUser(createUser()));
+        }
+    }
+
+    @Test
+    public void writeSnapshot_WithoutLog_RestartLoadsSnapshot() throws IOException {
+        ConcurrentUsersStorage storage = new ConcurrentUsersStorage(WriteAheadLog.DISABLED, new FileSnapshotStore(directory));
+        for (int i = 0; i < 1000; i++)
+            storage.addNewUser(createUser());
+        storage.writeSnapshot();
+        storage.writeSnapshot();
+
+        ConcurrentUsersStorage restoredStorage = new ConcurrentUsersStorage(WriteAheadLog.DISABLED, new FileSnapshotStore(directory));
+
+        assertEquals(1000, restoredStorage.getAllByBirthDateRange(BIRTH_DATE, BIRTH_DATE).size());
+        assertEquals(1001L, restoredStorage.addNewUser(createUser()));
+    }
+
+    private static long countFiles(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.count();
+        }
+    }
+
+    private static Users createUser() {
+        Users user = new Users();
+        user.setEmail("examplemail" + EMAIL_SEQUENCE.incrementAndGet() + "@lll.kpi.ua");
+        user.setFirstName("name");
+        user.setLastName("surname");
+        user.setBirthDate(BIRTH_DATE);
+        user.setAddress("Street 10/2");
+        return user;
+    }
+}
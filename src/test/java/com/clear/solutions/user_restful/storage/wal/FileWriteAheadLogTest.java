@@ -0,0 +1,146 @@
+package com.clear.solutions.user_restful.storage.wal;
+
+import com.clear.solutions.user_restful.entity.Users;
+import com.clear.solutions.user_restful.storage.BirthDateChangeListener;
+import com.clear.solutions.user_restful.storage.UsersPatch;
+import com.clear.solutions.user_restful.storage.implementation.ConcurrentUsersStorage;
+import com.clear.solutions.user_restful.storage.snapshot.SnapshotStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileWriteAheadLogTest {
+
+    private static final LocalDate BIRTH_DATE = LocalDate.of(1990, 1, 1);
+    private static final AtomicLong EMAIL_SEQUENCE = new AtomicLong();
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void replay_AfterRestart_StorageIsRebuilt() throws IOException {
+        Path path = directory.resolve("wal");
+        List<Long> userIds;
+        try (FileWriteAheadLog log = new FileWriteAheadLog(path, FsyncPolicy.EVERY_WRITE, 0)) {
+            ConcurrentUsersStorage storage = new ConcurrentUsersStorage(log, SnapshotStore.DISABLED);
+            userIds = storage.addNewUsers(List.of(createUser(), createUser(), createUser()));
+            storage.updateUsersData(List.of(new UsersPatch(userIds.get(0), null, "changed", null, BIRTH_DATE.plusDays(1), null, null)), false);
+            storage.removeUser(userIds.get(1));
+        }
+
+        try (FileWriteAheadLog log = new FileWriteAheadLog(path, FsyncPolicy.EVERY_WRITE, 0)) {
+            ConcurrentUsersStorage storage = new ConcurrentUsersStorage(log, SnapshotStore.DISABLED);
+
+            Users updatedUser = storage.getUserById(userIds.get(0)).orElseThrow();
+            assertEquals("changed", updatedUser.getFirstName());
+            assertEquals("Street 10/2", updatedUser.getAddress());
+            assertNull(updatedUser.getPhoneNumber());
+            assertEquals(userIds.get(0), storage.getUserByEmail(updatedUser.getEmail()).orElseThrow().getId());
+            assertTrue(storage.getUserById(userIds.get(1)).isEmpty());
+            assertEquals(List.of(userIds.get(2)),
+                    storage.getAllByBirthDateRange(BIRTH_DATE, BIRTH_DATE).stream().map(Users::getId).toList());
+            assertEquals(List.of(userIds.get(0)),
+                    storage.getAllByBirthDateRange(BIRTH_DATE.plusDays(1), BIRTH_DATE.plusDays(1)).stream().map(Users::getId).toList());
+            // identifiers are never reused, not even the one of the removed user
+            assertEquals(userIds.get(2) + 1, storage.addNewUser(createUser()));
+        }
+    }
+
+    @Test
+    public void replay_TornLastRecord_LogIsTruncatedBeforeIt() throws IOException {
+        Path path = directory.resolve("wal");
+        try (FileWriteAheadLog log = new FileWriteAheadLog(path, FsyncPolicy.EVERY_N_RECORDS, 100)) {
+            new ConcurrentUsersStorage(log, SnapshotStore.DISABLED).addNewUser(createUser());
+        }
+        Path segment = path.resolve("wal-00000000000000000001.log");
+        long validSize = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.APPEND)) {
+            // header of a record whose payload never made it to the disk
+            channel.write(ByteBuffer.allocate(8).putInt(64).putInt(7).flip());
+        }
+
+        try (FileWriteAheadLog log = new FileWriteAheadLog(path, FsyncPolicy.EVERY_N_MILLIS, 5)) {
+            ConcurrentUsersStorage storage = new ConcurrentUsersStorage(log, SnapshotStore.DISABLED);
+            assertEquals(validSize, Files.size(segment));
+            storage.addNewUser(createUser());
+        }
+
+        try (FileWriteAheadLog log = new FileWriteAheadLog(path, FsyncPolicy.EVERY_WRITE, 0)) {
+            ConcurrentUsersStorage storage = new ConcurrentUsersStorage(log, SnapshotStore.DISABLED);
+            assertEquals(2, storage.getAllByBirthDateRange(BIRTH_DATE, BIRTH_DATE).size());
+        }
+    }
+
+    @Test
+    public void everyNRecords_FewerRecords_ForcedAfterMaximumDelay() throws IOException {
+        Path path = directory.resolve("wal");
+        try (FileWriteAheadLog log = new FileWriteAheadLog(path, FsyncPolicy.EVERY_N_RECORDS, 1000, 20)) {
+            new ConcurrentUsersStorage(log, SnapshotStore.DISABLED).addNewUser(createUser());
+
+            Path segment = path.resolve("wal-00000000000000000001.log");
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                while (Files.size(segment) == 0)
+                    Thread.sleep(5);
+            });
+        }
+    }
+
+    @Test
+    public void commit_FlushFails_LaterWritesRejectedBeforeAnythingChanges() throws IOException {
+        List<Long> changedDays = new ArrayList<>();
+        BirthDateChangeListener listener = (epochDays, count) -> {
+            for (int i = 0; i < count; i++)
+                changedDays.add(epochDays[i]);
+        };
+        try (FileWriteAheadLog log = new FileWriteAheadLog(directory.resolve("wal"), FsyncPolicy.EVERY_WRITE, 0)) {
+            ConcurrentUsersStorage storage = new ConcurrentUsersStorage(log, SnapshotStore.DISABLED, listener);
+            Long userId = storage.addNewUser(createUser());
+            long generation = storage.getModificationGeneration(BIRTH_DATE, BIRTH_DATE);
+            // the channel is closed under the storage, so the next flush fails like a disk that went away
+            log.close();
+
+            // the first write is visible before its commit fails, so the caches still learn about it
+            assertThrows(UncheckedIOException.class, () -> storage.addNewUser(createUser()));
+            assertEquals(List.of(BIRTH_DATE.toEpochDay(), BIRTH_DATE.toEpochDay()), changedDays);
+            assertTrue(storage.getModificationGeneration(BIRTH_DATE, BIRTH_DATE) > generation);
+            long usersBefore = storage.countByBirthDateRange(BIRTH_DATE, BIRTH_DATE.plusDays(1));
+            generation = storage.getModificationGeneration(BIRTH_DATE, BIRTH_DATE.plusDays(1));
+
+            Users rejected = createUser();
+            assertThrows(UncheckedIOException.class, () -> storage.addNewUser(rejected));
+            assertThrows(UncheckedIOException.class, () -> storage.updateUserData(userId, null, "changed", null, BIRTH_DATE.plusDays(1), null, null));
+            assertThrows(UncheckedIOException.class, () -> storage.removeUser(userId));
+
+            assertTrue(storage.getUserByEmail(rejected.getEmail()).isEmpty());
+            assertEquals("name", storage.getUserById(userId).orElseThrow().getFirstName());
+            assertEquals(usersBefore, storage.countByBirthDateRange(BIRTH_DATE, BIRTH_DATE.plusDays(1)));
+            assertEquals(usersBefore, storage.getAllByBirthDateRange(BIRTH_DATE, BIRTH_DATE.plusDays(1)).size());
+            assertEquals(generation, storage.getModificationGeneration(BIRTH_DATE, BIRTH_DATE.plusDays(1)));
+            assertEquals(2, changedDays.size());
+        }
+    }
+
+    private static Users createUser() {
+        Users user = new Users();
+        user.setEmail("examplemail" + EMAIL_SEQUENCE.incrementAndGet() + "@lll.kpi.ua");
+        user.setFirstName("name");
+        user.setLastName("surname");
+        user.setBirthDate(BIRTH_DATE);
+        user.setAddress("Street 10/2");
+        return user;
+    }
+}
@@ -0,0 +1,45 @@
+package com.clear.solutions.user_restful.util.validation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EmailFormatTest {
+
+    private static final Pattern PATTERN = Pattern.compile(EmailFormat.PATTERN);
+    // characters the pattern tells apart; dots are frequent enough to produce multi-label domains
+    private static final String ALPHABET = "abz09A_..";
+
+    @Test
+    public void matches_KnownEmails_SameAsPattern() {
+        for (String email : new String[] {"examplemail@lll.kpi.ua", "ex.ample1@mail.com", "a1@bb.cc", "ab@bb.cc",
+                "a@bb.cc", "a.@bb.cc", "1a@bb.cc", "a1.b@bb.cc", "ab@bbbbbbb.cc", "ab@bb.ccccc", "ab@bb.cc.dd.ee",
+                "ab@bb", "ab@bb.cc.", "@bb.cc", "ab@@bb.cc", "Example@mail.com", ""})
+            assertEquals(PATTERN.matcher(email).matches(), EmailFormat.matches(email), email);
+    }
+
+    @Test
+    public void matches_RandomStrings_SameAsPattern() {
+        Random random = new Random(42);
+        StringBuilder email = new StringBuilder();
+        for (int i = 0; i < 1_000_000; i++) {
+            email.setLength(0);
+            appendRandom(email, random, random.nextInt(6));
+            // mostly a single '@', so that the domain rules get exercised
+            if (random.nextInt(10) > 0)
+                email.append('@');
+            appendRandom(email, random, random.nextInt(14));
+
+            String candidate = email.toString();
+            assertEquals(PATTERN.matcher(candidate).matches(), EmailFormat.matches(candidate), candidate);
+        }
+    }
+
+    private static void appendRandom(StringBuilder email, Random random, int length) {
+        for (int i = 0; i < length; i++)
+            email.append(ALPHABET.charAt(random.nextInt(ALPHABET.length())));
+    }
+}